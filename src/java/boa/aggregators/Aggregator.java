@@ -18,9 +18,10 @@ package boa.aggregators;
 
 import java.io.IOException;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer.Context;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
 import boa.functions.BoaCasts;
 import boa.io.EmitKey;
@@ -36,7 +37,7 @@ import boa.runtime.Tuple;
 public abstract class Aggregator {
 	private long arg;
 	@SuppressWarnings("rawtypes")
-	private Context context;
+	private TaskInputOutputContext context;
 	private EmitKey key;
 	private boolean combining;
 
@@ -62,7 +63,8 @@ public abstract class Aggregator {
 	}
 
 	/**
-	 * Reset this aggregator for a new key.
+	 * Reset this aggregator for a new key.  The context, if any, is set
+	 * before this is called.
 	 * 
 	 * @param key
 	 *            The {@link EmitKey} to aggregate for
@@ -94,6 +96,78 @@ public abstract class Aggregator {
 		this.aggregate(BoaCasts.doubleToString(data), null);
 	}
 
+	public void aggregate(final String data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final String data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
+	}
+
+	public void aggregate(final long data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final long data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
+	}
+
+	public void aggregate(final double data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final double data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
+	}
+
+	/**
+	 * Merge a serialized partial result, such as a sketch, that was collected
+	 * by this aggregator while combining.
+	 * 
+	 * @param data
+	 *            An array of bytes containing the serialized partial result
+	 * 
+	 */
+	public void aggregate(final byte[] data) throws IOException, InterruptedException, FinishedException {
+		throw new UnsupportedOperationException(this.getClass().getSimpleName() + " does not merge serialized data");
+	}
+
+	/**
+	 * Aggregate an emitted value, dispatching on the type of its data and
+	 * metadata so that long and double values never go through a {@link String}.
+	 * 
+	 * @param value
+	 *            The {@link EmitValue} to aggregate
+	 * 
+	 */
+	public void aggregate(final EmitValue value) throws IOException, InterruptedException, FinishedException {
+		if (value.isBytesData()) {
+			this.aggregate(value.getBytesData());
+		} else if (value.isLongData()) {
+			if (value.isLongMetadata())
+				this.aggregate(value.getLongData(), value.getLongMetadata());
+			else if (value.isDoubleMetadata())
+				this.aggregate(value.getLongData(), value.getDoubleMetadata());
+			else
+				this.aggregate(value.getLongData(), value.getMetadata());
+		} else if (value.isDoubleData()) {
+			if (value.isLongMetadata())
+				this.aggregate(value.getDoubleData(), value.getLongMetadata());
+			else if (value.isDoubleMetadata())
+				this.aggregate(value.getDoubleData(), value.getDoubleMetadata());
+			else
+				this.aggregate(value.getDoubleData(), value.getMetadata());
+		} else {
+			for (final String s : value.getData())
+				if (value.isLongMetadata())
+					this.aggregate(s, value.getLongMetadata());
+				else if (value.isDoubleMetadata())
+					this.aggregate(s, value.getDoubleMetadata());
+				else
+					this.aggregate(s, value.getMetadata());
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	protected void collect(final String data, final String metadata) throws IOException, InterruptedException {
 		if (this.combining)
@@ -108,20 +182,67 @@ public abstract class Aggregator {
 		this.collect(data, null);
 	}
 
+	@SuppressWarnings("unchecked")
+	protected void collect(final byte[] data) throws IOException, InterruptedException {
+		if (!this.combining)
+			throw new UnsupportedOperationException("serialized data can only be collected while combining");
+		this.getContext().write(this.getKey(), new EmitValue(data));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void collect(final String data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(data, BoaCasts.longToString(metadata));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void collect(final String data, final double metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(data, BoaCasts.doubleToString(metadata));
+	}
+
+	@SuppressWarnings("unchecked")
 	protected void collect(final long data, final String metadata) throws IOException, InterruptedException {
-		this.collect(BoaCasts.longToString(data), metadata);
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.longToString(data), metadata);
 	}
 
 	protected void collect(final long data) throws IOException, InterruptedException {
-		this.collect(BoaCasts.longToString(data), null);
+		this.collect(data, (String) null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void collect(final long data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.longToString(data), BoaCasts.longToString(metadata));
 	}
 
+	@SuppressWarnings("unchecked")
 	protected void collect(final double data, final String metadata) throws IOException, InterruptedException {
-		this.collect(BoaCasts.doubleToString(data), metadata);
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.doubleToString(data), metadata);
 	}
 
 	protected void collect(final double data) throws IOException, InterruptedException {
-		this.collect(BoaCasts.doubleToString(data), null);
+		this.collect(data, (String) null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void collect(final double data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.doubleToString(data), BoaCasts.longToString(metadata));
 	}
 
 	public void finish() throws IOException, InterruptedException {
@@ -132,7 +253,7 @@ public abstract class Aggregator {
 		return this.arg;
 	}
 
-	public void setContext(@SuppressWarnings("rawtypes") final Context context) {
+	public void setContext(@SuppressWarnings("rawtypes") final TaskInputOutputContext context) {
 		this.context = context;
 	}
 
@@ -145,10 +266,22 @@ public abstract class Aggregator {
 	}
 
 	@SuppressWarnings("rawtypes")
-	public Context getContext() {
+	public TaskInputOutputContext getContext() {
 		return this.context;
 	}
 
+	/**
+	 * Return the job configuration.
+	 * 
+	 * @return The {@link Configuration} of the current context, or null if
+	 *         there is no context
+	 */
+	protected Configuration getConf() {
+		if (this.context == null)
+			return null;
+		return this.context.getConfiguration();
+	}
+
 	public void setKey(final EmitKey key) {
 		this.key = key;
 	}
@@ -73,6 +73,18 @@ public abstract class BottomOrTopAggregator extends Aggregator {
 			this.set.add(data, Double.valueOf(metadata));
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) {
+		this.set.add(data, (double) metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final double metadata) {
+		this.set.add(data, metadata);
+	}
+
 	protected abstract boolean shouldInsert(final double a, final double b);
 
 	/** {@inheritDoc} */
@@ -80,7 +92,7 @@ public abstract class BottomOrTopAggregator extends Aggregator {
 	public void finish() throws IOException, InterruptedException {
 		if (this.isCombining()) {
 			for (final Entry<String, Double> e : this.set.getEntries())
-				this.collect(e.getKey().toString(), e.getValue().toString());
+				this.collect(e.getKey().toString(), e.getValue().doubleValue());
 		} else {
 			// TODO: replace this with the algorithm described in M. Charikar,
 			// K. Chen, and M. Farach-Colton, Finding frequent items in data
@@ -40,6 +40,7 @@ public class DistinctAggregator extends Aggregator {
 	// Our desired error rate is by default 0.005, i.e. 0.5%
 	private static final float errorRate = 0.005f;
 
+	// created by getFilter() when the key gets its first value
 	protected Filter filter;
 
 	/**
@@ -66,21 +67,32 @@ public class DistinctAggregator extends Aggregator {
 	public void start(final EmitKey key) {
 		super.start(key);
 
-		this.filter = new DynamicBloomFilter(this.vectorSize, HASH_COUNT, Hash.MURMUR_HASH, (int) this.getArg());
+		this.filter = null;
+	}
+
+	/**
+	 * Return the bloom filter for the current key, creating it on first use.
+	 * 
+	 * @return The {@link Filter} holding the values seen so far
+	 */
+	protected Filter getFilter() {
+		if (this.filter == null)
+			this.filter = new DynamicBloomFilter(this.vectorSize, HASH_COUNT, Hash.MURMUR_HASH, (int) this.getArg());
+		return this.filter;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final String data, final String metadata) throws IOException, InterruptedException {
 		// instantiate a bloom filter input key initialized by the data
-		Key key = new Key(data.getBytes());
+		final Key key = new Key(data.getBytes("UTF-8"));
 
 		// if the key is already in the filter, forget it
-		if (this.filter.membershipTest(key))
+		if (this.getFilter().membershipTest(key))
 			return;
 
 		// add the key to the bloom filter
-		this.filter.add(key);
+		this.getFilter().add(key);
 
 		// and collect it
 		this.collect(data);
@@ -65,7 +65,29 @@ public class FloatQuantileAggregator extends QuantileAggregator {
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final double data, final String metadata) throws IOException {
-		this.list.add(Double.valueOf(data), super.count(metadata));
+		final long count = super.count(metadata);
+		if (!this.sketch(data, count))
+			this.list.add(Double.valueOf(data), count);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) throws IOException {
+		this.aggregate(Double.parseDouble(data), metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) throws IOException {
+		this.aggregate(Long.valueOf(data).doubleValue(), metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) throws IOException {
+		final long count = super.count(metadata);
+		if (!this.sketch(data, count))
+			this.list.add(Double.valueOf(data), count);
 	}
 
 	/** {@inheritDoc} */
@@ -79,4 +101,10 @@ public class FloatQuantileAggregator extends QuantileAggregator {
 
 		return list;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected String format(final double value) {
+		return Double.toString(value);
+	}
 }
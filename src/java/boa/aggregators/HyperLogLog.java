@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+
+/**
+ * A HyperLogLog sketch of the number of distinct values in a stream, as
+ * described in P. Flajolet, E. Fusy, O. Gandouet, and F. Meunier,
+ * HyperLogLog: the analysis of a near-optimal cardinality estimation
+ * algorithm, AofA 2007.
+ *
+ * Values are hashed to 64 bits, so no large range correction is needed, and
+ * small cardinalities are estimated by linear counting as in HyperLogLog++.
+ * The sketch uses 2<sup>p</sup> bytes and its relative error is about
+ * 1.04 / sqrt(2<sup>p</sup>).  Sketches of the same precision are merged by
+ * taking the maximum of each register.
+ *
+ * @author agent
+ */
+public class HyperLogLog {
+	private static final int MIN_PRECISION = 4;
+	private static final int MAX_PRECISION = 18;
+
+	private final int p;
+	private final byte[] registers;
+
+	/**
+	 * Construct a {@link HyperLogLog} sketch.
+	 *
+	 * @param p
+	 *            An int representing the number of bits used to pick a register
+	 */
+	public HyperLogLog(final int p) {
+		this.p = Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, p));
+		this.registers = new byte[1 << this.p];
+	}
+
+	/**
+	 * Construct a {@link HyperLogLog} sketch with a given accuracy.
+	 *
+	 * @param error
+	 *            A double representing the relative error allowed
+	 *
+	 * @return The {@link HyperLogLog} sketch
+	 */
+	public static HyperLogLog withError(final double error) {
+		final double m = Math.pow(1.04 / error, 2);
+		return new HyperLogLog((int) Math.ceil(Math.log(m) / Math.log(2)));
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 *
+	 * @param data
+	 *            An array of bytes containing the value
+	 */
+	public void add(final byte[] data) {
+		final long hash = hash(data);
+
+		final int index = (int) (hash >>> (64 - this.p));
+		final byte rank = (byte) (Long.numberOfLeadingZeros((hash << this.p) | (1L << (this.p - 1))) + 1);
+
+		if (rank > this.registers[index])
+			this.registers[index] = rank;
+	}
+
+	/**
+	 * Merge another sketch into this one.
+	 *
+	 * @param other
+	 *            The {@link HyperLogLog} sketch to merge
+	 */
+	public void merge(final HyperLogLog other) {
+		if (other.p != this.p)
+			throw new IllegalArgumentException("can not merge sketches of precision " + this.p + " and " + other.p);
+
+		for (int i = 0; i < this.registers.length; i++)
+			if (other.registers[i] > this.registers[i])
+				this.registers[i] = other.registers[i];
+	}
+
+	/**
+	 * Estimate the number of distinct values added to the sketch.
+	 *
+	 * @return A long representing the estimated cardinality
+	 */
+	public long cardinality() {
+		final int m = this.registers.length;
+
+		double sum = 0;
+		int zeros = 0;
+		for (final byte r : this.registers) {
+			sum += 1.0 / (1L << r);
+			if (r == 0)
+				zeros++;
+		}
+
+		final double alpha;
+		if (m == 16)
+			alpha = 0.673;
+		else if (m == 32)
+			alpha = 0.697;
+		else if (m == 64)
+			alpha = 0.709;
+		else
+			alpha = 0.7213 / (1 + 1.079 / m);
+
+		final double estimate = alpha * m * m / sum;
+
+		// use linear counting while there are empty registers and the estimate is small
+		if (zeros > 0 && estimate <= 2.5 * m)
+			return Math.round(m * Math.log(m / (double) zeros));
+
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Serialize this sketch.
+	 *
+	 * @return An array of bytes containing the serialized sketch
+	 */
+	public byte[] toBytes() {
+		final byte[] bytes = new byte[this.registers.length + 1];
+		bytes[0] = (byte) this.p;
+		System.arraycopy(this.registers, 0, bytes, 1, this.registers.length);
+		return bytes;
+	}
+
+	/**
+	 * Deserialize a sketch.
+	 *
+	 * @param data
+	 *            An array of bytes containing a sketch serialized by
+	 *            {@link #toBytes()}
+	 *
+	 * @return The {@link HyperLogLog} sketch
+	 */
+	public static HyperLogLog fromBytes(final byte[] data) throws IOException {
+		final HyperLogLog s = new HyperLogLog(data[0]);
+		if (data.length != s.registers.length + 1)
+			throw new IOException("corrupt sketch of " + data.length + " bytes for precision " + s.p);
+
+		System.arraycopy(data, 1, s.registers, 0, s.registers.length);
+		return s;
+	}
+
+	// FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+	private static long hash(final byte[] data) {
+		long h = 0xcbf29ce484222325L;
+		for (final byte b : data) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb93fe53e4ec3L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
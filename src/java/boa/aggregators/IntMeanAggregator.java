@@ -18,7 +18,6 @@ package boa.aggregators;
 
 import java.io.IOException;
 
-import boa.functions.BoaCasts;
 import boa.io.EmitKey;
 
 /**
@@ -58,12 +57,26 @@ public class IntMeanAggregator extends MeanAggregator {
 		this.aggregate(Double.valueOf(data).longValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) {
+		this.sum += data;
+
+		super.count(metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) {
+		this.aggregate(Double.valueOf(data).longValue(), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void finish() throws IOException, InterruptedException {
 		// if we are in the combiner, output the sum and the count
 		if (this.isCombining())
-			this.collect(this.sum, BoaCasts.longToString(this.getCount()));
+			this.collect(this.sum, this.getCount());
 		// otherwise, output the final answer
 		else
 			this.collect(this.sum / (double) this.getCount());
@@ -59,7 +59,9 @@ public class IntQuantileAggregator extends QuantileAggregator {
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final long data, final String metadata) throws IOException {
-		this.list.add(Long.valueOf(data), super.count(metadata));
+		final long count = super.count(metadata);
+		if (!this.sketch(data, count))
+			this.list.add(Long.valueOf(data), count);
 	}
 
 	/** {@inheritDoc} */
@@ -68,6 +70,26 @@ public class IntQuantileAggregator extends QuantileAggregator {
 		this.aggregate(Double.valueOf(data).longValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) throws IOException {
+		this.aggregate(Double.valueOf(data).longValue(), metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) throws IOException {
+		final long count = super.count(metadata);
+		if (!this.sketch(data, count))
+			this.list.add(Long.valueOf(data), count);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) throws IOException {
+		this.aggregate(Double.valueOf(data).longValue(), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public List<Pair<String, Long>> getTuples() {
@@ -79,4 +101,10 @@ public class IntQuantileAggregator extends QuantileAggregator {
 
 		return list;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected String format(final double value) {
+		return Long.toString((long) value);
+	}
 }
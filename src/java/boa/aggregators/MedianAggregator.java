@@ -17,20 +17,27 @@
 package boa.aggregators;
 
 import java.io.IOException;
+import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.SortedMap;
 
+import org.apache.hadoop.conf.Configuration;
+
 import boa.io.EmitKey;
 
 /**
  * A Boa aggregator to calculate a median of the values in a dataset.
  * 
+ * If {@link QuantileAggregator#ERROR} is set to a value between 0 and 1, the
+ * values are kept in a {@link QuantileSketch} and the median is approximate.
+ * 
  * @author rdyer
  */
-@AggregatorSpec(name = "median", type = "int")
+@AggregatorSpec(name = "median", type = "int", canCombine = true)
 public class MedianAggregator extends Aggregator {
 	private SortedMap<Long, Long> map;
 	private long count;
+	private QuantileSketch sketch;
 
 	/** {@inheritDoc} */
 	@Override
@@ -39,6 +46,24 @@ public class MedianAggregator extends Aggregator {
 
 		map = new TreeMap<Long, Long>();
 		count = 0;
+
+		final Configuration conf = this.getConf();
+		final float error = conf == null ? 0 : conf.getFloat(QuantileAggregator.ERROR, 0);
+		if (error > 0 && error < 1)
+			this.sketch = QuantileSketch.withError(error);
+		else
+			this.sketch = null;
+	}
+
+	private void add(final long data, final long n) {
+		if (this.sketch != null) {
+			this.sketch.add(data, n);
+			return;
+		}
+
+		final Long c = map.get(data);
+		map.put(data, c == null ? n : c + n);
+		count += n;
 	}
 
 	/** {@inheritDoc} */
@@ -47,10 +72,7 @@ public class MedianAggregator extends Aggregator {
 		for (final String s : data.split(";")) {
 			final int idx = s.indexOf(":");
 			if (idx > 0) {
-				final long item = Long.valueOf(s.substring(0, idx));
-				final long count = Long.valueOf(s.substring(idx + 1));
-				for (int i = 0; i < count; i++)
-					aggregate(item, metadata);
+				add(Long.parseLong(s.substring(0, idx)), Long.parseLong(s.substring(idx + 1)));
 			} else
 				aggregate(Long.valueOf(s), metadata);
 		}
@@ -59,11 +81,7 @@ public class MedianAggregator extends Aggregator {
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final long data, final String metadata) {
-		if (map.containsKey(data))
-			map.put(data, map.get(data) + 1L);
-		else
-			map.put(data, 1L);
-		count++;
+		add(data, 1L);
 	}
 
 	/** {@inheritDoc} */
@@ -72,17 +90,44 @@ public class MedianAggregator extends Aggregator {
 		this.aggregate(Double.valueOf(data).longValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final byte[] data) throws IOException {
+		final QuantileSketch s = QuantileSketch.fromBytes(data);
+
+		if (this.sketch != null)
+			this.sketch.merge(s);
+		else
+			for (final Entry<Double, Long> e : s.getWeightedValues().entrySet())
+				add(e.getKey().longValue(), e.getValue());
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void finish() throws IOException, InterruptedException {
 		if (this.isCombining()) {
-			String s = "";
-			for (final Long key : map.keySet())
-				s += key + ":" + map.get(key) + ";";
-			this.collect(s, null);
+			if (this.sketch != null) {
+				this.collect(this.sketch.toBytes());
+				return;
+			}
+
+			final StringBuilder s = new StringBuilder();
+			for (final Entry<Long, Long> e : map.entrySet())
+				s.append(e.getKey()).append(':').append(e.getValue()).append(';');
+			this.collect(s.toString(), null);
 			return;
 		}
 
+		if (this.sketch != null) {
+			// the sketch's values, with their weights, stand in for the dataset
+			for (final Entry<Double, Long> e : this.sketch.getWeightedValues().entrySet()) {
+				final long key = e.getKey().longValue();
+				final Long c = map.get(key);
+				map.put(key, c == null ? e.getValue() : c + e.getValue());
+			}
+			count = this.sketch.getCount();
+		}
+
 		float median = 0;
 
 		long medianPos = count / 2L;
@@ -18,7 +18,6 @@ package boa.aggregators;
 
 import java.io.IOException;
 
-import boa.functions.BoaCasts;
 import boa.io.EmitKey;
 
 /**
@@ -68,7 +67,19 @@ abstract class MinOrMaxAggregator extends Aggregator {
 		else
 			weight = Double.parseDouble(metadata);
 
-		final WeightedString s = new WeightedString(data, weight);
+		this.aggregate(data, weight);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) {
+		this.aggregate(data, (double) metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final double metadata) {
+		final WeightedString s = new WeightedString(data, metadata);
 
 		if (this.compare(s, this.list[this.last]) > 0)
 			// find this new item's position within the list
@@ -107,7 +118,7 @@ abstract class MinOrMaxAggregator extends Aggregator {
 	public void finish() throws IOException, InterruptedException {
 		for (int i = 0; i < this.getArg(); i++)
 			if (this.isCombining())
-				this.collect(this.list[i].getString(), BoaCasts.doubleToString(this.list[i].getWeight()));
+				this.collect(this.list[i].getString(), this.list[i].getWeight());
 			else
 				this.collect(this.list[i].toString());
 	}
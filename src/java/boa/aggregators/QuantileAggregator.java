@@ -17,18 +17,33 @@
 package boa.aggregators;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
 
 import boa.io.EmitKey;
 
 /**
  * A Boa aggregator to calculate the quantiles for the values in a dataset.
  * 
+ * If {@link #ERROR} is set to a value between 0 and 1, the values are kept
+ * in a {@link QuantileSketch} instead of exactly, and the quantiles are
+ * approximate to within that fraction of the dataset's size.
+ * 
  * @author anthonyu
  */
 abstract class QuantileAggregator extends Aggregator {
-	private int total;
+	/**
+	 * The configuration key holding the normalized rank error allowed when
+	 * calculating quantiles with a sketch.
+	 */
+	public static final String ERROR = "boa.quantile.error";
+
+	private long total;
+	private QuantileSketch sketch;
 
 	/**
 	 * Construct a QuantileAggregator.
@@ -61,12 +76,65 @@ abstract class QuantileAggregator extends Aggregator {
 		return count;
 	}
 
+	/**
+	 * Add a count to the running total.
+	 * 
+	 * @param metadata
+	 *            A long containing the number of values
+	 * 
+	 * @return A long representing the value in metadata
+	 */
+	public long count(final long metadata) {
+		this.total += metadata;
+
+		return metadata;
+	}
+
+	/**
+	 * Add a value to the sketch, if the quantiles are being approximated.
+	 * 
+	 * @param data
+	 *            A double representing the value
+	 * 
+	 * @param count
+	 *            A long representing how many times the value occurs
+	 * 
+	 * @return true if the value was added to the sketch, false if the
+	 *         quantiles are exact
+	 */
+	protected boolean sketch(final double data, final long count) {
+		if (this.sketch == null)
+			return false;
+
+		this.sketch.add(data, count);
+		return true;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void start(final EmitKey key) {
 		super.start(key);
 
 		this.total = 0;
+
+		final Configuration conf = this.getConf();
+		final float error = conf == null ? 0 : conf.getFloat(ERROR, 0);
+		if (error > 0 && error < 1)
+			this.sketch = QuantileSketch.withError(error);
+		else
+			this.sketch = null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final byte[] data) throws IOException, InterruptedException, FinishedException {
+		final QuantileSketch s = QuantileSketch.fromBytes(data);
+
+		if (this.sketch != null)
+			this.sketch.merge(s);
+		else
+			for (final Entry<Double, Long> e : s.getWeightedValues().entrySet())
+				this.aggregate(e.getKey().doubleValue(), e.getValue().longValue());
 	}
 
 	/** {@inheritDoc} */
@@ -78,17 +146,31 @@ abstract class QuantileAggregator extends Aggregator {
 	public void finish() throws IOException, InterruptedException {
 		// if we're in the combiner, just output the compressed data
 		if (this.isCombining()) {
-			for (final Pair<String, Long> e : this.getTuples())
-				this.collect(e.getFirst(), e.getSecond().toString());
+			if (this.sketch != null)
+				this.collect(this.sketch.toBytes());
+			else
+				for (final Pair<String, Long> e : this.getTuples())
+					this.collect(e.getFirst(), e.getSecond().longValue());
 		} else {
 			// otherwise, set up the quantiles
+			final List<Pair<String, Long>> tuples;
+			if (this.sketch != null) {
+				this.total = this.sketch.getCount();
+
+				tuples = new ArrayList<Pair<String, Long>>();
+				for (final Entry<Double, Long> e : this.sketch.getWeightedValues().entrySet())
+					tuples.add(new Pair<String, Long>(this.format(e.getKey()), e.getValue()));
+			} else {
+				tuples = this.getTuples();
+			}
+
 			final int n = (int) (this.getArg() - 1);
 			final String[] quantiles = new String[n];
 			final double step = this.total / (double) n;
 
 			long last = 0;
 			long q = 0;
-			for (final Pair<String, Long> e : this.getTuples()) {
+			for (final Pair<String, Long> e : tuples) {
 				q += e.getSecond();
 
 				final int curr = (int) (q / step);
@@ -112,4 +194,14 @@ abstract class QuantileAggregator extends Aggregator {
 	 *         containing the data points from the dataset
 	 */
 	public abstract List<Pair<String, Long>> getTuples();
+
+	/**
+	 * Format a value from the sketch the way the dataset's values are output.
+	 * 
+	 * @param value
+	 *            A double representing the value
+	 * 
+	 * @return A {@link String} containing the formatted value
+	 */
+	protected abstract String format(double value);
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A mergeable sketch of the distribution of a stream of numbers, as
+ * described in Z. Karnin, K. Lang, and E. Liberty, Optimal quantile
+ * approximation in streams, FOCS 2016.
+ *
+ * Values are kept in a stack of compactors, where each value at level
+ * <i>h</i> stands for 2<sup>h</sup> values of the stream.  A full compactor
+ * is sorted and every other value is promoted to the next level.  The
+ * memory used grows with <i>k</i> and only logarithmically with the stream,
+ * and the rank of any value is known to within about 1.65 / <i>k</i> of the
+ * stream's length.
+ *
+ * @author agent
+ */
+public class QuantileSketch {
+	private static final double C = 2.0 / 3.0;
+
+	private final int k;
+	private final Random random = new Random(0);
+
+	private double[][] levels = new double[0][];
+	private int[] sizes = new int[0];
+	private int size;
+	private int maxSize;
+	private long count;
+
+	/**
+	 * Construct a {@link QuantileSketch}.
+	 *
+	 * @param k
+	 *            An int controlling the size, and so the accuracy, of the sketch
+	 */
+	public QuantileSketch(final int k) {
+		this.k = Math.max(8, k);
+		this.grow();
+	}
+
+	/**
+	 * Construct a {@link QuantileSketch} with a given accuracy.
+	 *
+	 * @param error
+	 *            A double representing the normalized rank error allowed
+	 *
+	 * @return The {@link QuantileSketch}
+	 */
+	public static QuantileSketch withError(final double error) {
+		return new QuantileSketch((int) Math.ceil(1.65 / error));
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 *
+	 * @param value
+	 *            A double representing the value
+	 *
+	 * @param n
+	 *            A long representing how many times the value occurs
+	 */
+	public void add(final double value, final long n) {
+		if (n <= 0)
+			return;
+
+		this.count += n;
+
+		// a value occurring n times is the sum of its binary digits at each level
+		for (int h = 0; (n >> h) != 0; h++)
+			if (((n >> h) & 1) != 0) {
+				while (h >= this.levels.length)
+					this.grow();
+				this.append(h, value);
+			}
+
+		if (this.size >= this.maxSize)
+			this.compress();
+	}
+
+	/**
+	 * Merge another sketch into this one.
+	 *
+	 * @param other
+	 *            The {@link QuantileSketch} to merge
+	 */
+	public void merge(final QuantileSketch other) {
+		while (this.levels.length < other.levels.length)
+			this.grow();
+
+		for (int h = 0; h < other.levels.length; h++)
+			for (int i = 0; i < other.sizes[h]; i++)
+				this.append(h, other.levels[h][i]);
+
+		this.count += other.count;
+
+		while (this.size >= this.maxSize)
+			this.compress();
+	}
+
+	/**
+	 * Return the number of values added to the sketch.
+	 *
+	 * @return A long representing the number of values in the stream
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Return the values kept by the sketch with the number of stream values
+	 * each stands for.
+	 *
+	 * @return A {@link SortedMap} from each value to its weight
+	 */
+	public SortedMap<Double, Long> getWeightedValues() {
+		final SortedMap<Double, Long> values = new TreeMap<Double, Long>();
+
+		for (int h = 0; h < this.levels.length; h++)
+			for (int i = 0; i < this.sizes[h]; i++) {
+				final Double v = this.levels[h][i];
+				final Long w = values.get(v);
+				values.put(v, (w == null ? 0 : w) + (1L << h));
+			}
+
+		return values;
+	}
+
+	private int capacity(final int h) {
+		return (int) Math.ceil(Math.pow(C, this.levels.length - h - 1) * this.k) + 1;
+	}
+
+	private void grow() {
+		final int h = this.levels.length;
+
+		this.levels = Arrays.copyOf(this.levels, h + 1);
+		this.sizes = Arrays.copyOf(this.sizes, h + 1);
+		this.levels[h] = new double[this.k + 1];
+
+		this.maxSize = 0;
+		for (int i = 0; i <= h; i++)
+			this.maxSize += this.capacity(i);
+	}
+
+	private void append(final int h, final double value) {
+		if (this.sizes[h] == this.levels[h].length)
+			this.levels[h] = Arrays.copyOf(this.levels[h], this.sizes[h] * 2);
+
+		this.levels[h][this.sizes[h]++] = value;
+		this.size++;
+	}
+
+	private void compress() {
+		for (int h = 0; h < this.levels.length; h++) {
+			if (this.sizes[h] < this.capacity(h))
+				continue;
+
+			if (h + 1 >= this.levels.length)
+				this.grow();
+
+			// sort the level and promote every other value, starting at a random one
+			final double[] level = this.levels[h];
+			final int n = this.sizes[h];
+			Arrays.sort(level, 0, n);
+
+			final int offset = this.random.nextBoolean() ? 1 : 0;
+			final int pairs = n / 2;
+			for (int i = 0; i < pairs; i++)
+				this.append(h + 1, level[n - 1 - (2 * i + offset)]);
+
+			// with an odd count, the smallest value stays behind
+			this.sizes[h] = n % 2;
+			this.size -= 2 * pairs;
+
+			if (this.size < this.maxSize)
+				break;
+		}
+	}
+
+	/**
+	 * Serialize this sketch.
+	 *
+	 * @return An array of bytes containing the serialized sketch
+	 */
+	public byte[] toBytes() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+
+		WritableUtils.writeVInt(out, this.k);
+		WritableUtils.writeVLong(out, this.count);
+		WritableUtils.writeVInt(out, this.levels.length);
+		for (int h = 0; h < this.levels.length; h++) {
+			WritableUtils.writeVInt(out, this.sizes[h]);
+			for (int i = 0; i < this.sizes[h]; i++)
+				out.writeDouble(this.levels[h][i]);
+		}
+
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserialize a sketch.
+	 *
+	 * @param data
+	 *            An array of bytes containing a sketch serialized by
+	 *            {@link #toBytes()}
+	 *
+	 * @return The {@link QuantileSketch}
+	 */
+	public static QuantileSketch fromBytes(final byte[] data) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+		final QuantileSketch s = new QuantileSketch(WritableUtils.readVInt(in));
+		s.count = WritableUtils.readVLong(in);
+
+		final int height = WritableUtils.readVInt(in);
+		while (s.levels.length < height)
+			s.grow();
+
+		for (int h = 0; h < height; h++) {
+			final int n = WritableUtils.readVInt(in);
+			for (int i = 0; i < n; i++)
+				s.append(h, in.readDouble());
+		}
+
+		return s;
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A weighted Space-Saving summary of the heaviest items in a stream, as
+ * described in A. Metwally, D. Agrawal, and A. El Abbadi, Efficient
+ * computation of frequent and top-k elements in data streams, ICDT 2005.
+ *
+ * At most <i>capacity</i> counters are kept.  Each counter's weight is an
+ * upper bound on the item's true weight and overestimates it by at most the
+ * counter's error, which is never more than the total weight divided by the
+ * capacity.  Summaries can be serialized and merged.
+ *
+ * @author agent
+ */
+public class SpaceSaving {
+	/**
+	 * A monitored item with its estimated weight and maximum overestimation.
+	 */
+	public static class Counter {
+		private final String item;
+		private double weight;
+		private double error;
+
+		Counter(final String item, final double weight, final double error) {
+			this.item = item;
+			this.weight = weight;
+			this.error = error;
+		}
+
+		public String getItem() {
+			return this.item;
+		}
+
+		public double getWeight() {
+			return this.weight;
+		}
+
+		public double getError() {
+			return this.error;
+		}
+	}
+
+	private static final Comparator<Counter> ORDER = new Comparator<Counter>() {
+		@Override
+		public int compare(final Counter a, final Counter b) {
+			final int c = Double.compare(a.weight, b.weight);
+			if (c != 0)
+				return c;
+			return b.item.compareTo(a.item);
+		}
+	};
+
+	private final int capacity;
+	private final Map<String, Counter> counters = new HashMap<String, Counter>();
+	private final TreeSet<Counter> order = new TreeSet<Counter>(ORDER);
+
+	/**
+	 * Construct a {@link SpaceSaving} summary.
+	 *
+	 * @param capacity
+	 *            An int representing the maximum number of items to monitor
+	 */
+	public SpaceSaving(final int capacity) {
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Add an item and its weight to the summary.
+	 *
+	 * @param item
+	 *            A {@link String} containing the item
+	 *
+	 * @param weight
+	 *            A double representing the weight of the item
+	 */
+	public void add(final String item, final double weight) {
+		Counter c = this.counters.get(item);
+
+		if (c != null) {
+			this.order.remove(c);
+			c.weight += weight;
+		} else if (this.counters.size() < this.capacity) {
+			c = new Counter(item, weight, 0);
+			this.counters.put(item, c);
+		} else {
+			// replace the lightest item, which the new item may have been all along
+			final Counter min = this.order.pollFirst();
+			this.counters.remove(min.item);
+
+			c = new Counter(item, min.weight + weight, min.weight);
+			this.counters.put(item, c);
+		}
+
+		this.order.add(c);
+	}
+
+	/**
+	 * Merge another summary into this one.
+	 *
+	 * Items monitored by only one summary may have had up to the other
+	 * summary's minimum weight evicted from it, so that minimum is added to
+	 * both their weight and error.
+	 *
+	 * @param other
+	 *            The {@link SpaceSaving} summary to merge
+	 */
+	public void merge(final SpaceSaving other) {
+		final double min = this.getMinimum();
+		final double otherMin = other.getMinimum();
+
+		final Set<String> items = new HashSet<String>(this.counters.keySet());
+		items.addAll(other.counters.keySet());
+
+		final List<Counter> merged = new ArrayList<Counter>(items.size());
+		for (final String item : items) {
+			final Counter a = this.counters.get(item);
+			final Counter b = other.counters.get(item);
+
+			merged.add(new Counter(item,
+					(a == null ? min : a.weight) + (b == null ? otherMin : b.weight),
+					(a == null ? min : a.error) + (b == null ? otherMin : b.error)));
+		}
+
+		this.clear();
+
+		final TreeSet<Counter> sorted = new TreeSet<Counter>(ORDER);
+		sorted.addAll(merged);
+		for (final Counter c : sorted.descendingSet()) {
+			if (this.counters.size() >= this.capacity)
+				break;
+			this.counters.put(c.item, c);
+			this.order.add(c);
+		}
+	}
+
+	/**
+	 * Return the weight every unmonitored item may have had evicted.
+	 *
+	 * @return A double representing the lightest weight, or 0 if the summary
+	 *         is not full
+	 */
+	public double getMinimum() {
+		if (this.counters.size() < this.capacity)
+			return 0;
+		return this.order.first().weight;
+	}
+
+	/**
+	 * Get the monitored items.
+	 *
+	 * @return A {@link Collection} of {@link Counter} containing the monitored
+	 *         items, heaviest first
+	 */
+	public Collection<Counter> getCounters() {
+		return this.order.descendingSet();
+	}
+
+	public void clear() {
+		this.counters.clear();
+		this.order.clear();
+	}
+
+	/**
+	 * Serialize this summary.
+	 *
+	 * @return An array of bytes containing the serialized summary
+	 */
+	public byte[] toBytes() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+
+		WritableUtils.writeVInt(out, this.capacity);
+		WritableUtils.writeVInt(out, this.counters.size());
+		for (final Counter c : this.order) {
+			Text.writeString(out, c.item);
+			out.writeDouble(c.weight);
+			out.writeDouble(c.error);
+		}
+
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserialize a summary.
+	 *
+	 * @param data
+	 *            An array of bytes containing a summary serialized by
+	 *            {@link #toBytes()}
+	 *
+	 * @return The {@link SpaceSaving} summary
+	 */
+	public static SpaceSaving fromBytes(final byte[] data) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+		final SpaceSaving s = new SpaceSaving(WritableUtils.readVInt(in));
+		final int size = WritableUtils.readVInt(in);
+		for (int i = 0; i < size; i++) {
+			final Counter c = new Counter(Text.readString(in), in.readDouble(), in.readDouble());
+			s.counters.put(c.item, c);
+			s.order.add(c);
+		}
+
+		return s;
+	}
+}
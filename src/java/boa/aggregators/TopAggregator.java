@@ -16,15 +16,34 @@
  */
 package boa.aggregators;
 
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+
+import boa.functions.BoaCasts;
+import boa.io.EmitKey;
+
 /**
  * A Boa aggregator to estimate the top <i>n</i> values in a dataset by
  * cardinality.
  * 
+ * If {@link #ERROR} is set to a value between 0 and 1, the values are counted
+ * in a bounded {@link SpaceSaving} summary instead of exactly.  Each output
+ * is then followed by the most its weight may be overestimated by.
+ * 
  * @author anthonyu
  * @author rdyer
  */
 @AggregatorSpec(name = "top", formalParameters = { "int" }, weightType = "float", canOmitWeight = true, canCombine = true)
 public class TopAggregator extends BottomOrTopAggregator {
+	/**
+	 * The configuration key holding the relative error allowed when counting
+	 * with a summary.  The summary monitors 1 / error values.
+	 */
+	public static final String ERROR = "boa.top.error";
+
+	private SpaceSaving sketch;
+
 	/**
 	 * Construct a {@link TopAggregator}.
 	 * 
@@ -36,9 +55,77 @@ public class TopAggregator extends BottomOrTopAggregator {
 		DefaultValue = Double.MIN_VALUE;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void start(final EmitKey key) {
+		super.start(key);
+
+		final Configuration conf = this.getConf();
+		final float error = conf == null ? 0 : conf.getFloat(ERROR, 0);
+		if (error > 0 && error < 1)
+			this.sketch = new SpaceSaving(Math.max(this.list.length, (int) Math.ceil(1 / error)));
+		else
+			this.sketch = null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final String metadata) {
+		if (this.sketch == null)
+			super.aggregate(data, metadata);
+		else if (metadata == null)
+			this.sketch.add(data, 1.0);
+		else
+			this.sketch.add(data, Double.valueOf(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) {
+		this.aggregate(data, (double) metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final double metadata) {
+		if (this.sketch == null)
+			super.aggregate(data, metadata);
+		else
+			this.sketch.add(data, metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final byte[] data) throws IOException {
+		final SpaceSaving s = SpaceSaving.fromBytes(data);
+
+		if (this.sketch != null)
+			this.sketch.merge(s);
+		else
+			for (final SpaceSaving.Counter c : s.getCounters())
+				super.aggregate(c.getItem(), c.getWeight());
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	protected boolean shouldInsert(final double a, final double b) {
 		return a > b;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		if (this.sketch == null) {
+			super.finish();
+		} else if (this.isCombining()) {
+			this.collect(this.sketch.toBytes());
+		} else {
+			int i = 0;
+			for (final SpaceSaving.Counter c : this.sketch.getCounters()) {
+				if (i++ > this.last)
+					break;
+				this.collect(new WeightedString(c.getItem(), c.getWeight()) + " +/- " + BoaCasts.doubleToString(c.getError()));
+			}
+		}
+	}
 }
@@ -18,6 +18,7 @@ package boa.aggregators;
 
 import java.io.IOException;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.bloom.Key;
 
 import boa.io.EmitKey;
@@ -26,11 +27,22 @@ import boa.io.EmitKey;
  * A Boa aggregator to estimate the size of the set of unique values in a
  * dataset. Roughly equivalent to a count(distinct(*)).
  * 
+ * If {@link #ERROR} is set to a value between 0 and 1, the values are counted
+ * with a {@link HyperLogLog} sketch of that relative error instead of a bloom
+ * filter, and combiners emit the sketch rather than each new value.
+ * 
  * @author anthonyu
  */
 @AggregatorSpec(name = "unique", formalParameters = { "int" }, canCombine = true)
 public class UniqueAggregator extends DistinctAggregator {
+	/**
+	 * The configuration key holding the relative error allowed when counting
+	 * with a sketch.
+	 */
+	public static final String ERROR = "boa.unique.error";
+
 	private long total;
+	private HyperLogLog sketch;
 
 	/**
 	 * Construct a UniqueAggregator.
@@ -50,20 +62,32 @@ public class UniqueAggregator extends DistinctAggregator {
 
 		// clear out the internal total
 		this.total = 0;
+
+		final Configuration conf = this.getConf();
+		final float error = conf == null ? 0 : conf.getFloat(ERROR, 0);
+		if (error > 0 && error < 1)
+			this.sketch = HyperLogLog.withError(error);
+		else
+			this.sketch = null;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final String data, final String metadata) throws IOException, InterruptedException {
+		if (this.sketch != null) {
+			this.sketch.add(data.getBytes("UTF-8"));
+			return;
+		}
+
 		// instantiate a bloom filter input key initialized by the data
-		final Key key = new Key(data.getBytes());
+		final Key key = new Key(data.getBytes("UTF-8"));
 
 		// if the key is already in the filter, forget about it
-		if (this.filter.membershipTest(key))
+		if (this.getFilter().membershipTest(key))
 			return;
 
 		// add the key to the bloom filter
-		this.filter.add(key);
+		this.getFilter().add(key);
 
 		if (this.isCombining())
 			this.collect(data);
@@ -71,9 +95,29 @@ public class UniqueAggregator extends DistinctAggregator {
 			this.total++;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final byte[] data) throws IOException, InterruptedException {
+		final HyperLogLog s = HyperLogLog.fromBytes(data);
+
+		if (this.sketch == null)
+			throw new IOException("received a " + ERROR + " sketch while counting exactly");
+
+		this.sketch.merge(s);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void finish() throws IOException, InterruptedException {
+		if (this.sketch != null) {
+			// if we are combining, pass the sketch on, otherwise collect its estimate
+			if (this.isCombining())
+				this.collect(this.sketch.toBytes());
+			else
+				this.collect(this.sketch.cardinality());
+			return;
+		}
+
 		// if we are reducing, collect the total
 		if (!this.isCombining())
 			this.collect(this.total);
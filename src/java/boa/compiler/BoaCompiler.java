@@ -62,6 +62,7 @@ import boa.compiler.transforms.VisitorOptimizingTransformer;
 import boa.compiler.visitors.ASTPrintingVisitor;
 import boa.compiler.visitors.CodeGeneratingVisitor;
 import boa.compiler.visitors.PrettyPrintVisitor;
+import boa.compiler.visitors.ProjectFieldFindingVisitor;
 import boa.compiler.visitors.TaskClassifyingVisitor;
 import boa.compiler.visitors.TypeCheckingVisitor;
 import boa.datagen.DefaultProperties;
@@ -141,6 +142,10 @@ public class BoaCompiler extends BoaMain {
 					simpleVisitor.start(p);
 					final boolean isSimple = !simpleVisitor.isComplex();
 					LOG.info(inputFile.getName() + ": task complexity: " + (isSimple ? "simple" : "complex"));
+					LOG.info(inputFile.getName() + ": stores read: " + simpleVisitor.getStores());
+
+					final ProjectFieldFindingVisitor projectFields = new ProjectFieldFindingVisitor();
+					projectFields.start(p);
 
 					new VariableDeclRenameTransformer().start(p);
 					new InheritedAttributeTransformer().start(p);
@@ -150,7 +155,7 @@ public class BoaCompiler extends BoaMain {
 					if (cl.hasOption("pp")) new PrettyPrintVisitor().start(p);
 					if (cl.hasOption("ast2")) new ASTPrintingVisitor().start(p);
 
-					final CodeGeneratingVisitor cg = new CodeGeneratingVisitor(className, isSimple ? 64 * 1024 * 1024 : 10 * 1024 * 1024, seed, DefaultProperties.localDataPath != null);
+					final CodeGeneratingVisitor cg = new CodeGeneratingVisitor(className, simpleVisitor.getSplitSize(), seed, DefaultProperties.localDataPath != null, projectFields, simpleVisitor.getStores());
 					cg.start(p);
 
 					final File outputFile = new File(outputSrcDir, className + ".java");
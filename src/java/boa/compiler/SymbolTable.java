@@ -46,6 +46,7 @@ public class SymbolTable {
 	private static Map<String, BoaType> types;
 	private static final Map<String, BoaType> globals;
 	private static FunctionTrie globalFunctions;
+	private static boolean importedBuiltins = false;
 
 	private FunctionTrie functions;
 	private Map<String, BoaType> locals;
@@ -365,6 +366,12 @@ public class SymbolTable {
 	}
 
 	public static void initialize(final List<URL> libs) throws IOException {
+		// the built-ins are global, so compiling again in the same JVM must
+		// not define them a second time
+		if (!importedBuiltins) {
+			importBuiltins();
+			importedBuiltins = true;
+		}
 		importLibs(libs);
 	}
 
@@ -587,7 +594,7 @@ public class SymbolTable {
 		}
 	}
 
-	private static void importLibs(final List<URL> urls) throws IOException {
+	private static void importBuiltins() {
 		// load built-in functions
 		final Class<?>[] builtinFuncs = {
 			boa.functions.BoaAstIntrinsics.class,
@@ -674,7 +681,9 @@ public class SymbolTable {
 
 		for (final Class<?> c : builtinAggs)
 			importAggregator(c);
+	}
 
+	private static void importLibs(final List<URL> urls) throws IOException {
 		// also check any libs passed into the compiler
 		if (urls.size() > 0) {
 			final AnnotationDB db = new AnnotationDB();
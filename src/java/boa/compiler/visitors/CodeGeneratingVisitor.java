@@ -280,6 +280,8 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				final List<String> types = new ArrayList<String>();
 				final List<Boolean> protos = new ArrayList<Boolean>();
 				final List<Boolean> enums = new ArrayList<Boolean>();
+				final List<Boolean> arrays = new ArrayList<Boolean>();
+				final List<String> codecs = new ArrayList<String>();
 
 				int counter = 0;
 				for (final Expression e : n.getExprs()) {
@@ -288,7 +290,9 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 					counter++;
 					types.add(type.toBoxedJavaType());
 					protos.add(type instanceof BoaProtoTuple);
-					enums.add(type instanceof BoaEnum);
+					enums.add(type instanceof BoaEnum || type instanceof BoaProtoMap);
+					arrays.add(type instanceof BoaArray);
+					codecs.add(tupleCodec(type));
 				}
 
 				st.add("name", name);
@@ -296,6 +300,8 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				st.add("types", types);
 				st.add("protos", protos);
 				st.add("enums", enums);
+				st.add("arrays", arrays);
+				st.add("codecs", codecs);
 
 				code.add(st.render());
 			}
@@ -321,6 +327,8 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 			final List<String> types = new ArrayList<String>();
 			final List<Boolean> protos = new ArrayList<Boolean>();
 			final List<Boolean> enums = new ArrayList<Boolean>();
+			final List<Boolean> arrays = new ArrayList<Boolean>();
+			final List<String> codecs = new ArrayList<String>();
 
 			int fieldCount = 0;
 			for (final Component c : members) {
@@ -332,8 +340,10 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				fieldCount++;
 				BoaType type = c.getType().type;
 				protos.add(type instanceof BoaProtoTuple);
-				enums.add(type instanceof BoaEnum);
+				enums.add(type instanceof BoaEnum || type instanceof BoaProtoMap);
+				arrays.add(type instanceof BoaArray);
 				types.add(type.toBoxedJavaType());
+				codecs.add(tupleCodec(type));
 			}
 
 			st.add("name", tupType.toJavaType());
@@ -341,6 +351,8 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 			st.add("types", types);
 			st.add("protos", protos);
 			st.add("enums", enums);
+			st.add("arrays", arrays);
+			st.add("codecs", codecs);
 
 			code.add(st.render());
 		}
@@ -502,12 +514,24 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 	protected int splitSize;
 	protected int seed;
 	protected boolean isLocal;
+	protected ProjectFieldFindingVisitor projectFields;
+	protected Collection<String> stores;
 
 	public CodeGeneratingVisitor(final String className, final int splitSize, final int seed, final boolean isLocal) throws IOException {
+		this(className, splitSize, seed, isLocal, null, null);
+	}
+
+	/**
+	 * @param projectFields the fields of the input the program reads, or null to parse all fields
+	 * @param stores the stores the program reads, or null if not known
+	 */
+	public CodeGeneratingVisitor(final String className, final int splitSize, final int seed, final boolean isLocal, final ProjectFieldFindingVisitor projectFields, final Collection<String> stores) throws IOException {
 		this.className = className;
 		this.splitSize = splitSize;
 		this.seed = seed;
 		this.isLocal = isLocal;
+		this.projectFields = projectFields;
+		this.stores = stores;
 
 		varDecl = new VarDeclCodeGeneratingVisitor();
 		staticInitialization = new StaticInitializationCodeGeneratingVisitor();
@@ -553,6 +577,7 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 			throw new TypeCheckException(n, "No output variables were declared - must declare at least one output variable");
 
 		final List<String> combineAggregatorStrings = new ArrayList<String>();
+		final List<String> mapCombineAggregatorStrings = new ArrayList<String>();
 		final List<String> reduceAggregatorStrings = new ArrayList<String>();
 
 		for (final Entry<String, AggregatorDescription> entry : this.aggregators.entrySet()) {
@@ -572,11 +597,14 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				throw new TypeCheckException(n, e.getMessage(), e);
 			}
 			reduceAggregatorStrings.add("this.aggregators.put(\"" + id + "\", new " + c.getCanonicalName() + "(" + parameters + "));");
-			if (combines)
+			if (combines) {
 				combineAggregatorStrings.add(reduceAggregatorStrings.get(reduceAggregatorStrings.size() - 1));
+				mapCombineAggregatorStrings.add("if (name.equals(\"" + id + "\"))\n\treturn new " + c.getCanonicalName() + "(" + parameters + ");");
+			}
 		}
 
 		st.add("combineTables", combineAggregatorStrings);
+		st.add("mapCombineTables", mapCombineAggregatorStrings);
 		st.add("reduceTables", reduceAggregatorStrings);
 
 		final List<String> variableNames = new ArrayList<String>();
@@ -589,6 +617,11 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		st.add("seed", seed);
 		st.add("outputVariableNames", variableNames);
 		if (isLocal) st.add("isLocal", true);
+		if (projectFields != null && !projectFields.needsAll()) st.add("projectFields", "0x" + Long.toHexString(projectFields.getFields()));
+		if (stores != null) {
+			st.add("profiled", true);
+			st.add("stores", stores);
+		}
 
 		code.add(st.render());
 	}
@@ -1960,6 +1993,7 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		final List<Component> members = n.getMembers();
 		final List<String> fields = new ArrayList<String>();
 		final List<String> types = new ArrayList<String>();
+		final List<String> codecs = new ArrayList<String>();
 
 		int fieldCount = 0;
 		for (final Component c : members) {
@@ -1969,11 +2003,13 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				fields.add("id" + fieldCount++);
 			}
 			types.add(c.getType().type.toJavaType());
+			codecs.add(tupleCodec(c.getType().type));
 		}
 
 		st.add("name", tupType.toJavaType());
 		st.add("fields", fields);
 		st.add("types", types);
+		st.add("codecs", codecs);
 
 		code.add(st.render());
 	}
@@ -2045,6 +2081,32 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		return typeStr;
 	}
 
+	/**
+	 * Returns the name of the template that writes and reads a tuple field
+	 * of the given type.  Types without a compact encoding fall back to Java
+	 * serialization.
+	 */
+	protected static String tupleCodec(BoaType type) {
+		while (type instanceof BoaName)
+			type = ((BoaName) type).getType();
+
+		if (type instanceof BoaInt || type instanceof BoaTime)
+			return "TupleLong";
+		if (type instanceof BoaFloat)
+			return "TupleDouble";
+		if (type instanceof BoaBool)
+			return "TupleBoolean";
+		if (type instanceof BoaString)
+			return "TupleString";
+		if (type instanceof BoaEnum || type instanceof BoaProtoMap)
+			return "TupleEnum";
+		if (type instanceof BoaProtoTuple)
+			return "TupleProto";
+		if (type instanceof BoaTuple)
+			return "TupleTuple";
+		return "TupleObject";
+	}
+
 	protected static String camelCase(final String string) {
 		final StringBuilder camelized = new StringBuilder();
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.compiler.visitors;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
+import boa.compiler.ast.Call;
+import boa.compiler.ast.Factor;
+import boa.compiler.ast.Identifier;
+import boa.compiler.ast.Node;
+import boa.compiler.ast.Selector;
+import boa.compiler.ast.expressions.Expression;
+import boa.compiler.ast.statements.VisitStatement;
+
+import boa.types.BoaName;
+import boa.types.BoaProtoList;
+import boa.types.BoaProtoTuple;
+import boa.types.BoaType;
+import boa.types.proto.ProjectProtoTuple;
+import boa.types.Toplevel.Project;
+
+/**
+ * Find the fields of the input {@link Project} a program reads, so the
+ * mapper only has to parse those fields.
+ *
+ * A field is read if the program selects it from a project, or if the
+ * program visits a project and one of its visitors handles a type reachable
+ * from the field.  A project used any other way (assigned, passed to a
+ * function, etc) needs all of its fields.  The required fields are always
+ * kept.
+ *
+ * Must run on a type checked tree, before the transformers.
+ *
+ * @author agent
+ */
+public class ProjectFieldFindingVisitor extends AbstractVisitorNoArgNoRet {
+	protected final static List<FieldDescriptor> fields = Project.getDescriptor().getFields();
+	protected final static ProjectProtoTuple projectType = new ProjectProtoTuple();
+
+	// names of the members selected from a project
+	protected final Set<String> selected = new HashSet<String>();
+	protected final Set<Class<? extends BoaType>> types = new HashSet<Class<? extends BoaType>>();
+	// projects that are the first argument of a call to visit()
+	protected final Set<Factor> visited = Collections.newSetFromMap(new IdentityHashMap<Factor, Boolean>());
+
+	private boolean all = false;
+	private boolean wildcard = false;
+
+	/** {@inheritDoc} */
+	@Override
+	protected void initialize() {
+		selected.clear();
+		types.clear();
+		visited.clear();
+		all = wildcard = false;
+	}
+
+	/**
+	 * @return true if the program needs all fields of the project
+	 */
+	public boolean needsAll() {
+		return getFields() == getAll();
+	}
+
+	/**
+	 * @return a mask with bit n set if the program needs field number n
+	 */
+	public long getFields() {
+		if (all || (!visited.isEmpty() && wildcard))
+			return getAll();
+
+		long mask = 0;
+		for (final String name : selected) {
+			final FieldDescriptor f = Project.getDescriptor().findFieldByName(name);
+			if (f == null)
+				return getAll();
+			mask |= 1L << f.getNumber();
+		}
+
+		// members are matched to fields by name, not by their order
+		for (final FieldDescriptor f : fields)
+			if (f.isRequired() || (!visited.isEmpty() && projectType.hasMember(f.getName()) && reaches(projectType.getMember(f.getName()))))
+				mask |= 1L << f.getNumber();
+		return mask;
+	}
+
+	private static long getAll() {
+		long mask = 0;
+		for (final FieldDescriptor f : fields)
+			mask |= 1L << f.getNumber();
+		return mask;
+	}
+
+	private boolean reaches(final BoaType t) {
+		final Set<Class<? extends BoaType>> reachable = new HashSet<Class<? extends BoaType>>();
+		if (t instanceof BoaProtoTuple) {
+			reachable.add(t.getClass());
+			reachable.addAll(((BoaProtoTuple) t).reachableTypes());
+		} else if (t instanceof BoaProtoList) {
+			reachable.addAll(((BoaProtoList) t).reachableTypes());
+		}
+
+		reachable.retainAll(types);
+		return !reachable.isEmpty();
+	}
+
+	private static boolean isProject(BoaType t) {
+		if (t instanceof BoaName)
+			t = ((BoaName) t).getType();
+		return t instanceof ProjectProtoTuple;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Factor n) {
+		if (n.getOperand() instanceof Identifier) {
+			final Identifier id = (Identifier) n.getOperand();
+
+			// a type name, such as the argument of current(Project)
+			if (n.getOpsSize() == 0 && id.env != null && id.env.hasType(id.getToken())) {
+				super.visit(n);
+				return;
+			}
+
+			// where the project comes from, not a use of it
+			if (n.getOpsSize() == 0 && "input".equals(id.getToken())) {
+				super.visit(n);
+				return;
+			}
+
+			if ("visit".equals(id.getToken()) && n.getOpsSize() > 0 && n.getOp(0) instanceof Call) {
+				final Call c = (Call) n.getOp(0);
+				if (c.getArgsSize() > 0 && isProject(c.getArg(0).type)) {
+					final Expression e = c.getArg(0);
+					visited.add(e.getLhs().getLhs().getLhs().getLhs().getLhs());
+				}
+			}
+		}
+
+		BoaType type = n.getOperand().type;
+		for (final Node op : n.getOps()) {
+			if (isProject(type) && op instanceof Selector)
+				selected.add(((Selector) op).getId().getToken());
+			type = op.type;
+		}
+
+		if (isProject(n.type) && !visited.contains(n))
+			all = true;
+
+		super.visit(n);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitStatement n) {
+		super.visit(n);
+
+		if (n.hasWildcard())
+			wildcard = true;
+		else if (n.hasComponent())
+			types.add(n.getComponent().getType().type.getClass());
+		else
+			for (final Identifier id : n.getIdList())
+				types.add(id.type.getClass());
+	}
+}
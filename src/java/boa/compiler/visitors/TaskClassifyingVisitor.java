@@ -18,29 +18,49 @@ package boa.compiler.visitors;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 import boa.compiler.ast.Call;
 import boa.compiler.ast.Factor;
 import boa.compiler.ast.Identifier;
+import boa.compiler.ast.Node;
 import boa.compiler.ast.expressions.VisitorExpression;
 import boa.compiler.ast.statements.VisitStatement;
 
+import boa.types.BoaArray;
+import boa.types.BoaName;
+import boa.types.BoaProtoList;
 import boa.types.BoaType;
 import boa.types.proto.ASTRootProtoTuple;
+import boa.types.proto.ChangedFileProtoTuple;
+import boa.types.proto.CodeRepositoryProtoTuple;
+import boa.types.proto.ProjectProtoTuple;
+import boa.types.proto.RevisionProtoTuple;
 
 /**
- * Analyze the code to see if it is simple or complex.
+ * Analyze the code to see if it is simple or complex, and which stores
+ * besides the projects it reads.
  * 
  * @author rdyer
  */
 public class TaskClassifyingVisitor extends AbstractVisitorNoArgNoRet {
+	/** The stores a program may read, named after their directories. */
+	public static final String AST_STORE = "ast", COMMIT_STORE = "commit", COMMENTS_STORE = "comments", ISSUES_STORE = "issues";
+
 	protected final static Set<Class<? extends BoaType>> astTypes = new HashSet<Class<? extends BoaType>>();
+	// types only found in revisions, which may have to be read from the commit store
+	protected final static Set<Class<? extends BoaType>> commitTypes = new HashSet<Class<? extends BoaType>>();
 
 	static {
 		astTypes.addAll(new ASTRootProtoTuple().reachableTypes());
+
+		commitTypes.addAll(astTypes);
+		commitTypes.add(RevisionProtoTuple.class);
+		commitTypes.add(ChangedFileProtoTuple.class);
 	}
 
 	protected final Set<Class<? extends BoaType>> types = new HashSet<Class<? extends BoaType>>();
+	protected final Set<String> stores = new TreeSet<String>();
 
 	private boolean complex = false;
 
@@ -48,36 +68,88 @@ public class TaskClassifyingVisitor extends AbstractVisitorNoArgNoRet {
 		return complex;
 	}
 
+	/**
+	 * @return the stores the program reads, in order of name
+	 */
+	public Set<String> getStores() {
+		return stores;
+	}
+
+	/**
+	 * Choose the split size: 10 MB for complex programs, those reading ASTs
+	 * or comments, and 64 MB for the others, as before.  The stores a
+	 * program reads do not change the size, as there are no measurements of
+	 * what each one costs to map.
+	 * 
+	 * @return the maximum split size, in bytes
+	 */
+	public int getSplitSize() {
+		if (complex)
+			return 10 * 1024 * 1024;
+		return 64 * 1024 * 1024;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	protected void initialize() {
 		complex = false;
 		types.clear();
+		stores.clear();
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void visit(Factor n) {
-		if (n.getOperand() instanceof Identifier) {
+		if (n.getOperand() instanceof Identifier && n.getOpsSize() > 0 && n.getOp(0) instanceof Call) {
 			final String id = ((Identifier)n.getOperand()).getToken();
-			if ("getast".equals(id) || "getcomments".equals(id))
-				if (n.getOpsSize() > 0 && n.getOp(0) instanceof Call) {
-					complex = true;
-					return;
-				}
+			final Call c = (Call)n.getOp(0);
+			if ("getast".equals(id)) {
+				complex = true;
+				stores.add(AST_STORE);
+				stores.add(COMMIT_STORE);
+			} else if ("getcomments".equals(id)) {
+				complex = true;
+				stores.add(COMMENTS_STORE);
+				stores.add(COMMIT_STORE);
+			} else if ("getissues".equals(id)) {
+				stores.add(ISSUES_STORE);
+			} else if ("visit".equals(id) && c.getArgsSize() > 0) {
+				// traversing a project or repository reads its revisions
+				final BoaType t = c.getArg(0).type;
+				if (t instanceof ProjectProtoTuple || t instanceof CodeRepositoryProtoTuple)
+					stores.add(COMMIT_STORE);
+			}
 		}
 
+		if (isCommitType(n.type))
+			stores.add(COMMIT_STORE);
+		for (final Node op : n.getOps())
+			if (isCommitType(op.type))
+				stores.add(COMMIT_STORE);
+
 		super.visit(n);
 	}
 
+	private static boolean isCommitType(BoaType t) {
+		if (t instanceof BoaName)
+			t = ((BoaName) t).getType();
+		if (t instanceof BoaArray)
+			t = ((BoaArray) t).getType();
+		else if (t instanceof BoaProtoList)
+			t = ((BoaProtoList) t).getType();
+		return t != null && commitTypes.contains(t.getClass());
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void visit(final VisitStatement n) {
 		super.visit(n);
 
-		if (n.hasWildcard())
+		if (n.hasWildcard()) {
 			complex = true;
-		else if (n.hasComponent())
+			stores.add(AST_STORE);
+			stores.add(COMMIT_STORE);
+		} else if (n.hasComponent())
 			types.add(n.getComponent().getType().type.getClass());
 		else
 			for (final Identifier id : n.getIdList())
@@ -90,7 +162,10 @@ public class TaskClassifyingVisitor extends AbstractVisitorNoArgNoRet {
 		super.visit(n);
 
 		types.retainAll(astTypes);
-		if (!types.isEmpty())
+		if (!types.isEmpty()) {
 			complex = true;
+			stores.add(AST_STORE);
+			stores.add(COMMIT_STORE);
+		}
 	}
 }
@@ -24,6 +24,7 @@ import java.io.File;
  */
 public class DefaultProperties {
 	public static String NUM_THREADS = "1";
+	public static String NUM_PARSE_THREADS = "1";
 	public static String MAX_PROJECTS = "1000";
 	public static String MAX_COMMITS = "10000";
 	public static String MAX_SIZE_FOR_PROJECT_WITH_COMMITS = String.valueOf(1 << 26); // Integer.MAX_VALUE / 3
@@ -71,6 +72,8 @@ public class DefaultProperties {
 	public static  String OUTPUT = "output";
 	
 	public static boolean STORE_ASCII_PRINTABLE_CONTENTS = true, STORE_COMMITS = true;
+	public static boolean JS_SINGLE_PASS = true;
+	public static boolean INCREMENTAL = false;
 
 	public static String localDataPath = null;
 	
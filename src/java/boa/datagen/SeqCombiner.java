@@ -18,6 +18,11 @@
 package boa.datagen;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -83,6 +88,7 @@ public class SeqCombiner {
 				return name.endsWith(".seq") && name.contains("-");
 			}
 		});
+		final Map<String, String> newestFiles = getNewestFiles(conf, fileSystem, files);
 		long lastAstWriterKey = 0, lastCommitWriterKey = 0;
 		for (int i = 0; i < files.length; i++) {
 			FileStatus file = files[i];
@@ -91,8 +97,15 @@ public class SeqCombiner {
 			SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, file.getPath(), conf);
 			Text textKey = new Text();
 			BytesWritable value = new BytesWritable();
+			// the keys the file's newest projects point at, in case the rest is dropped
+			Set<Long> astKeys = new HashSet<Long>(), commitKeys = new HashSet<Long>();
+			boolean superseded = false;
 			try {
 				while (r.next(textKey, value)) {
+					if (!name.equals(newestFiles.get(textKey.toString()))) {
+						superseded = true;
+						continue; // the project was refreshed since
+					}
 					Project p = Project.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
 					Project.Builder pb = Project.newBuilder(p);
 					for (CodeRepository.Builder crb : pb.getCodeRepositoriesBuilderList()) {
@@ -100,19 +113,24 @@ public class SeqCombiner {
 							for (Revision.Builder rb : crb.getRevisionsBuilderList()) {
 								for (ChangedFile.Builder cfb : rb.getFilesBuilderList()) {
 									long key = cfb.getKey();
-									if (key > 0)
+									if (key > 0) {
+										astKeys.add(key);
 										cfb.setKey(lastAstWriterKey + key);
+									}
 								}
 							}
 						} else {
 							for (int j = 0; j < crb.getRevisionKeysCount(); j++) {
+								commitKeys.add(crb.getRevisionKeys(j));
 								crb.setRevisionKeys(j, lastCommitWriterKey + crb.getRevisionKeys(j));
 							}
 						}
 						for (ChangedFile.Builder cfb : crb.getHeadSnapshotBuilderList()) {
 							long key = cfb.getKey();
-							if (key > 0)
+							if (key > 0) {
+								astKeys.add(key);
 								cfb.setKey(lastAstWriterKey + key);
+							}
 						}
 					}
 					projectWriter.append(textKey, new BytesWritable(pb.build().toByteArray()));
@@ -123,8 +141,12 @@ public class SeqCombiner {
 			} finally {
 				r.close();
 			}
-			lastCommitWriterKey = readAndAppendCommit(conf, fileSystem, commitWriter, base + "/commit/" + name, lastAstWriterKey, lastCommitWriterKey);
-			lastAstWriterKey = readAndAppendAst(conf, fileSystem, astWriter, base + "/ast/" + name, lastAstWriterKey);
+			// a refreshed project is stored again with a copy of its ASTs, so the
+			// old copies are dropped rather than appended every refresh
+			if (!superseded)
+				astKeys = commitKeys = null;
+			lastCommitWriterKey = readAndAppendCommit(conf, fileSystem, commitWriter, base + "/commit/" + name, lastAstWriterKey, lastCommitWriterKey, commitKeys, astKeys);
+			lastAstWriterKey = readAndAppendAst(conf, fileSystem, astWriter, base + "/ast/" + name, lastAstWriterKey, astKeys);
 		}
 		projectWriter.close();
 		astWriter.close();
@@ -133,7 +155,50 @@ public class SeqCombiner {
 		fileSystem.close();
 	}
 
+	/**
+	 * Find the newest file storing each project, as refreshed projects are
+	 * stored again in a newer file.  File names end with the time they were
+	 * started.
+	 */
+	public static Map<String, String> getNewestFiles(Configuration conf, FileSystem fileSystem, FileStatus[] files) throws IOException {
+		Map<String, String> newestFiles = new HashMap<String, String>();
+		for (FileStatus file : files) {
+			String name = file.getPath().getName();
+			SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, file.getPath(), conf);
+			Text textKey = new Text();
+			try {
+				while (r.next(textKey)) {
+					String newest = newestFiles.get(textKey.toString());
+					if (newest == null || getTime(newest) <= getTime(name))
+						newestFiles.put(textKey.toString(), name);
+				}
+			} catch (Exception e) {
+				System.err.println(name);
+				e.printStackTrace();
+			} finally {
+				r.close();
+			}
+		}
+		return newestFiles;
+	}
+
+	private static long getTime(String name) {
+		try {
+			return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - ".seq".length()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
 	public static long readAndAppendCommit(Configuration conf, FileSystem fileSystem, MapFile.Writer writer, String fileName, long lastAstKey, long lastCommitKey) throws IOException {
+		return readAndAppendCommit(conf, fileSystem, writer, fileName, lastAstKey, lastCommitKey, null, null);
+	}
+
+	/**
+	 * Append the commits of a file, or only those with the given keys.  The
+	 * keys of the ASTs the appended commits point at are added to astKeys.
+	 */
+	public static long readAndAppendCommit(Configuration conf, FileSystem fileSystem, MapFile.Writer writer, String fileName, long lastAstKey, long lastCommitKey, Set<Long> keys, Set<Long> astKeys) throws IOException {
 		long newLastKey = lastCommitKey;
 		SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, new Path(fileName), conf);
 		LongWritable longKey = new LongWritable();
@@ -141,12 +206,17 @@ public class SeqCombiner {
 		try {
 			while (r.next(longKey, value)) {
 				newLastKey = longKey.get() + lastCommitKey;
+				if (keys != null && !keys.contains(longKey.get()))
+					continue;
 				Revision rev = Revision.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
 				Revision.Builder rb = Revision.newBuilder(rev);
 				for (ChangedFile.Builder cfb : rb.getFilesBuilderList()) {
 					long key = cfb.getKey();
-					if (key > 0)
+					if (key > 0) {
+						if (astKeys != null)
+							astKeys.add(key);
 						cfb.setKey(lastAstKey + key);
+					}
 				}
 				writer.append(new LongWritable(newLastKey), new BytesWritable(rb.build().toByteArray()));
 			}
@@ -160,6 +230,13 @@ public class SeqCombiner {
 	}
 
 	public static long readAndAppendAst(Configuration conf, FileSystem fileSystem, MapFile.Writer writer, String fileName, long lastKey) throws IOException {
+		return readAndAppendAst(conf, fileSystem, writer, fileName, lastKey, null);
+	}
+
+	/**
+	 * Append the ASTs of a file, or only those with the given keys.
+	 */
+	public static long readAndAppendAst(Configuration conf, FileSystem fileSystem, MapFile.Writer writer, String fileName, long lastKey, Set<Long> keys) throws IOException {
 		long newLastKey = lastKey;
 		SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, new Path(fileName), conf);
 		LongWritable longKey = new LongWritable();
@@ -167,7 +244,8 @@ public class SeqCombiner {
 		try {
 			while (r.next(longKey, value)) {
 				newLastKey = longKey.get() + lastKey;
-				writer.append(new LongWritable(newLastKey), value);
+				if (keys == null || keys.contains(longKey.get()))
+					writer.append(new LongWritable(newLastKey), value);
 			}
 		} catch (Exception e) {
 			System.err.println(fileName);
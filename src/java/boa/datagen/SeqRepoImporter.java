@@ -21,6 +21,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -28,10 +33,12 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -39,7 +46,9 @@ import com.google.gson.JsonObject;
 import boa.datagen.forges.github.RepoMetadata;
 import boa.datagen.forges.github.RepositoryCloner;
 import boa.datagen.scm.AbstractConnector;
+import boa.datagen.scm.AstIndex;
 import boa.datagen.scm.GitConnector;
+import boa.datagen.scm.ImportedRepository;
 import boa.datagen.util.FileIO;
 import boa.datagen.util.Properties;
 import boa.types.Code.CodeRepository;
@@ -49,6 +58,7 @@ import boa.types.Toplevel.Project;
 public class SeqRepoImporter {
 	private final static boolean debug = Properties.getBoolean("debug", DefaultProperties.DEBUG);
 	private final static boolean cache = Properties.getBoolean("cache", DefaultProperties.CACHE);
+	private final static boolean incremental = Properties.getBoolean("incremental", DefaultProperties.INCREMENTAL);
 
 	private final static File gitRootPath = new File(Properties.getProperty("gh.svn.path", DefaultProperties.GH_GIT_PATH));
 	final static String jsonPath = Properties.getProperty("gh.json.path", DefaultProperties.GH_JSON_PATH);
@@ -59,12 +69,23 @@ public class SeqRepoImporter {
 	private static Configuration conf = null;
 	private static FileSystem fileSystem = null;
 	private static String base = null;
-	private static boolean done = false;
+
+	// the combined dataset written by SeqCombiner, when refreshing the projects in it
+	private static MapFile.Reader previousAstReader = null, previousCommitReader = null;
 
 	private final static int POOL_SIZE = Integer.parseInt(Properties.getProperty("num.threads", DefaultProperties.NUM_THREADS));
+	private final static int CLONE_POOL_SIZE = Integer.parseInt(Properties.getProperty("num.clone.threads", DefaultProperties.NUM_THREADS));
 	private final static int MAX_SIZE_FOR_PROJECT_WITH_COMMITS = Integer.valueOf(DefaultProperties.MAX_SIZE_FOR_PROJECT_WITH_COMMITS);
 	private final static boolean STORE_COMMITS = DefaultProperties.STORE_COMMITS;
 	
+	// cloned projects waiting for an import worker, and the marker telling a worker to stop
+	private final static BlockingQueue<Project> clonedProjects = new ArrayBlockingQueue<Project>(POOL_SIZE);
+	private final static Project DONE = Project.getDefaultInstance();
+
+	private final static Stage cloneStage = new Stage("clone");
+	private final static Stage importStage = new Stage("import");
+	private final static Stage appendStage = new Stage("append");
+
 	public static void main(String[] args) throws IOException, InterruptedException {
 
 		conf = new Configuration();
@@ -73,17 +94,21 @@ public class SeqRepoImporter {
 
 		getProcessedProjects();
 
-		// assign each thread with a worker
-		ImportTask[] workers = new ImportTask[POOL_SIZE];
+		// import workers take the next cloned project as soon as they are idle
 		Thread[] threads = new Thread[POOL_SIZE];
 		for (int i = 0; i < POOL_SIZE; i++) {
-			workers[i] = new ImportTask(i);
-			threads[i] = new Thread(workers[i]);
+			threads[i] = new Thread(new ImportTask(i));
 			threads[i].start();
-			Thread.sleep(10);
 		}
-		
+
+		// when every cloner is busy and the queue is full, the main thread clones the next project itself
+		final ThreadPoolExecutor cloners = new ThreadPoolExecutor(CLONE_POOL_SIZE, CLONE_POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(CLONE_POOL_SIZE), new ThreadPoolExecutor.CallerRunsPolicy());
+
 		int counter = 0;
+		if (incremental)
+			counter = refreshProjects(cloners);
+
 		File dir = new File(jsonPath);
 		for (File file : dir.listFiles()) {
 			if (file.getName().endsWith(".json")) {
@@ -106,18 +131,7 @@ public class SeqRepoImporter {
 							Project project = repo.toBoaMetaDataProtobuf(); // current project instance only contains metadata 
 
 							// System.out.println(jRepo.toString());
-							boolean assigned = false;
-							while (!assigned) {
-								for (int j = 0; j < POOL_SIZE; j++) {
-									if (workers[j].isReady()) {
-										workers[j].setProject(project);
-										workers[j].setReady(false);
-										assigned = true;
-										break;
-									}
-								}
-//								Thread.sleep(100);
-							}
+							cloners.execute(new CloneTask(project));
 							System.out.println("Assigned the " + (++counter) + "th project: " + repo.name + " with id: " + repo.id  
 									+ " from the " + i + "th object of the json file: " + file.getPath());
 						}
@@ -128,24 +142,148 @@ public class SeqRepoImporter {
 				}
 			}
 		}
-		for (int j = 0; j < POOL_SIZE; j++) {
-			while (!workers[j].isReady())
-				Thread.sleep(100);
-		}
-		setDone(true);
-		
+		cloners.shutdown();
+		cloners.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		for (int j = 0; j < POOL_SIZE; j++)
+			clonedProjects.put(DONE);
+
 		// wait for workers to close writers and finish
 		for (Thread thread : threads)
-			while (thread.isAlive())
-				Thread.sleep(1000);
+			thread.join();
+
+		if (previousAstReader != null) {
+			previousAstReader.close();
+			previousCommitReader.close();
+		}
+
+		System.out.println(cloneStage);
+		System.out.println(importStage);
+		System.out.println(appendStage);
+	}
+
+	/**
+	 * Clone the projects in the combined dataset again, so their commits added
+	 * since they were imported are parsed and stored with a copy of the rest.
+	 * SeqCombiner keeps the newest record of each project.
+	 */
+	private static int refreshProjects(final ThreadPoolExecutor cloners) throws IOException {
+		final Path path = new Path(base + "/" + DefaultProperties.SEQ_PROJECTS_PATH);
+		if (!fileSystem.exists(path)) {
+			System.err.println("No combined dataset to refresh at " + path);
+			return 0;
+		}
+
+		previousAstReader = new MapFile.Reader(fileSystem, base + "/" + DefaultProperties.SEQ_AST_DIR, conf);
+		previousCommitReader = new MapFile.Reader(fileSystem, base + "/commit", conf);
+
+		int counter = 0;
+		final SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, path, conf);
+		try {
+			final Text key = new Text();
+			final BytesWritable value = new BytesWritable();
+			while (r.next(key, value)) {
+				final Project project = Project.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
+				processedProjectIds.add(project.getId());
+				cloners.execute(new CloneTask(project));
+				System.out.println("Assigned the " + (++counter) + "th project: " + project.getName() + " with id: " + project.getId()
+						+ " to refresh");
+			}
+		} finally {
+			r.close();
+		}
+		return counter;
+	}
+
+	/**
+	 * Tracks how many projects went through a stage of the import and how long they took.
+	 */
+	static class Stage {
+		private final String name;
+		private final AtomicLong projects = new AtomicLong(), nanos = new AtomicLong();
+
+		Stage(final String name) {
+			this.name = name;
+		}
+
+		void record(final long start) {
+			projects.incrementAndGet();
+			nanos.addAndGet(System.nanoTime() - start);
+		}
+
+		@Override
+		public String toString() {
+			final long n = projects.get();
+			final double seconds = nanos.get() / 1e9;
+			return name + ": " + n + " projects in " + String.format("%.1f", seconds) + "s of thread time ("
+					+ String.format("%.2f", n == 0 ? 0 : seconds / n) + "s per project)";
+		}
+	}
+
+	public static class CloneTask implements Runnable {
+		private final Project project;
+
+		public CloneTask(final Project project) {
+			this.project = project;
+		}
+
+		@Override
+		public void run() {
+			final long start = System.nanoTime();
+			if (!cloneRepository(project))
+				return;
+			cloneStage.record(start);
+
+			try {
+				clonedProjects.put(project);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 
-	synchronized static boolean getDone() {
-		return SeqRepoImporter.done;
+	private static boolean cloneRepository(final Project project) {
+		final CodeRepository repo = project.getCodeRepositories(0);
+		final String name = project.getName();
+		File gitDir = new File(gitRootPath + "/" + name);
+
+		if (isFiltered(project))
+			return false; // skip empty project
+
+		// If repository is already cloned delete then re-clone, this should only happen during recover
+		FileIO.DirectoryRemover filecheck = new FileIO.DirectoryRemover(gitRootPath + "/" + project.getName());
+		filecheck.run();
+
+		// clone repository
+		String[] args = { repo.getUrl(), gitDir.getAbsolutePath() };
+		try {
+			RepositoryCloner.clone(args);
+		} catch (Throwable t) {
+			System.err.println("Error cloning " + repo.getUrl());
+			t.printStackTrace();
+			return false; // skip project that can not be cloned
+		}
+
+		if (debug)
+			System.out.println(Thread.currentThread().getName() + " id: " + Thread.currentThread().getId() + " cloned repository: " + name);
+		return true;
 	}
 
-	synchronized static void setDone(boolean done) {
-		SeqRepoImporter.done = done;
+	private static boolean isFiltered(Project project) {
+		if (project.getForked())
+			return true;
+//		if (project.getStars() < 2 && project.getSize() < 100)
+//			return true;
+		if (project.getProgrammingLanguagesList().contains("Java")
+				|| project.getProgrammingLanguagesList().contains("JavaScript")
+				|| project.getProgrammingLanguagesList().contains("PHP"))
+			return false;
+		String lang = project.getMainLanguage();
+		if (lang != null
+				&& (lang.equals("Java")
+					|| lang.equals("JavaScript")
+					|| lang.equals("PHP")))
+			return false;
+		return true;
 	}
 
 	private static void getProcessedProjects() throws IOException {
@@ -186,8 +324,7 @@ public class SeqRepoImporter {
 		private String suffix;
 		private SequenceFile.Writer projectWriter, astWriter, commitWriter, contentWriter;
 		private long astWriterLen = 1, commitWriterLen = 1, contentWriterLen = 1;
-		private volatile boolean ready = true;
-		private volatile Project project;
+		private final AstIndex astIndex = new AstIndex();
 
 		public ImportTask(int id) {
 			setId(id);
@@ -210,6 +347,7 @@ public class SeqRepoImporter {
 					astWriterLen = 1;
 					commitWriterLen = 1;
 					contentWriterLen = 1;
+					astIndex.clear();
 					break;
 				} catch (Throwable t) {
 					t.printStackTrace();
@@ -229,6 +367,9 @@ public class SeqRepoImporter {
 					commitWriter.close();
 					contentWriter.close();
 					System.out.println(Thread.currentThread().getName() + " " + getId() + " " + suffix + " done!!!");
+					System.out.println(Thread.currentThread().getName() + " " + getId() + " " + suffix + " reused ASTs for "
+							+ astIndex.getHits() + " of " + astIndex.getLookups() + " parsed files ("
+							+ String.format("%.1f", 100 * astIndex.getDedupRatio()) + "%)");
 					try {
 						Thread.sleep(1000);
 					} catch (InterruptedException e) {
@@ -248,30 +389,30 @@ public class SeqRepoImporter {
 		public void run() {
 			openWriters();
 			while (true) {
-				
-				while (isReady()) {
-					if (getDone())
-						break;
-					try {
-						Thread.sleep(10);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
+				Project project;
+				try {
+					project = clonedProjects.take();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+					break;
 				}
-				
-				if (getDone())
+
+				if (project == DONE)
 					break;
-				
+
 				storeProject : try {
 					final String name = project.getName();
 
 					if (debug)
 						System.out.println(Thread.currentThread().getName() + " id: " + Thread.currentThread().getId()
 								+ " is processing the " + (allCounter + 1) + "th project: " + name + " with id: "+ project.getId());
+					long start = System.nanoTime();
 					project = storeRepository(project, 0);
 					
 					if (project == null) // if the project is null then skip this process
 						break storeProject;
+					importStage.record(start);
+					start = System.nanoTime();
 					
 					if (debug)
 						System.out.println(Thread.currentThread().getName() + " id: " + Thread.currentThread().getId() 
@@ -305,6 +446,7 @@ public class SeqRepoImporter {
 							e.printStackTrace();
 						}
 					}
+					appendStage.record(start);
 					counter++;
 					allCounter++;
 					if (counter >= Integer.parseInt(DefaultProperties.MAX_PROJECTS)) {
@@ -315,43 +457,33 @@ public class SeqRepoImporter {
 				} catch (Throwable e) {
 					e.printStackTrace();
 				}
-				setReady(true);
 			}
 			closeWriters();
 		}
 
-		private synchronized Project storeRepository(final Project project, final int i) {
-			final CodeRepository repo = project.getCodeRepositories(i);   // this is an empty code repo
+		// the repository must already be cloned, see cloneRepository
+		private Project storeRepository(final Project project, final int i) {
+			final CodeRepository repo = project.getCodeRepositories(i);   // this is an empty code repo, unless it is refreshed
 			final Project.Builder projBuilder = Project.newBuilder(project);
 
 			final String name = project.getName();
 			File gitDir = new File(gitRootPath + "/" + name);
-			
-			if (isFiltered(project))
-				return null; // return null to skip empty project
-
-			// If repository is already cloned delete then re-clone, this should only happen during recover
-			FileIO.DirectoryRemover filecheck = new FileIO.DirectoryRemover(gitRootPath + "/" + project.getName());
-			filecheck.run();
-
-			// clone repository
-			String[] args = { repo.getUrl(), gitDir.getAbsolutePath() };
-			try {
-				RepositoryCloner.clone(args);
-			} catch (Throwable t) {
-				System.err.println("Error cloning " + repo.getUrl());
-				t.printStackTrace();
-				return null; // return null to skip empty project
-			}
-
-			if (debug)
-				System.out.println(Thread.currentThread().getName() + " id: " + Thread.currentThread().getId() + " cloned repository: " + name);
 
 			AbstractConnector conn = null;
 			try {
 				conn = new GitConnector(gitDir.getAbsolutePath(), project.getName(), astWriter, astWriterLen, commitWriter, commitWriterLen,
 						contentWriter, contentWriterLen);
-				final CodeRepository.Builder repoBuilder = CodeRepository.newBuilder(repo);
+				conn.setAstIndex(astIndex);
+				if (previousAstReader != null && (repo.getRevisionsCount() > 0 || repo.getRevisionKeysCount() > 0))
+					conn.setPrevious(new ImportedRepository(repo, previousAstReader, previousCommitReader));
+				final CodeRepository.Builder repoBuilder = CodeRepository.newBuilder(repo)
+						.clearRevisions()
+						.clearRevisionKeys()
+						.clearHeadSnapshot()
+						.clearBranches()
+						.clearBranchNames()
+						.clearTags()
+						.clearTagNames();
 				if (STORE_COMMITS) {
 					List<Object> revisions = conn.getRevisions(project.getName());
 					if (!revisions.isEmpty()) {
@@ -402,40 +534,6 @@ public class SeqRepoImporter {
 			return null; // return null to skip error project
 		}
 
-		private synchronized boolean isFiltered(Project project) {
-			if (project.getForked())
-				return true;
-//			if (project.getStars() < 2 && project.getSize() < 100)
-//				return true;
-			if (project.getProgrammingLanguagesList().contains("Java")
-					|| project.getProgrammingLanguagesList().contains("JavaScript")
-					|| project.getProgrammingLanguagesList().contains("PHP"))
-				return false;
-			String lang = project.getMainLanguage();
-			if (lang != null
-					&& (lang.equals("Java")
-						|| lang.equals("JavaScript")
-						|| lang.equals("PHP")))
-				return false;
-			return true;
-		}
-
-		public synchronized Project getProject() {
-			return this.project;
-		}
-		
-		public synchronized void setProject(Project project) {
-			this.project = project;
-		};
-
-		public synchronized boolean isReady() {
-			return this.ready;
-		}
-
-		public synchronized void setReady(boolean ready) {
-			this.ready = ready;
-		}
-
 		public synchronized int getId() {
 			return this.id;
 		}
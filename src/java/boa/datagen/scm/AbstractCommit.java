@@ -20,6 +20,7 @@ package boa.datagen.scm;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
@@ -32,7 +33,6 @@ import org.eclipse.php.internal.core.PHPVersion;
 import org.eclipse.php.internal.core.ast.nodes.Program;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.mozilla.javascript.CompilerEnvirons;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ast.AstRoot;
 import org.w3c.css.sac.InputSource;
@@ -52,6 +52,7 @@ import boa.datagen.util.CssVisitor;
 import boa.datagen.util.FileIO;
 import boa.datagen.util.HtmlVisitor;
 import boa.datagen.util.JavaScriptErrorCheckVisitor;
+import boa.datagen.util.JavaScriptLevelVisitor;
 import boa.datagen.util.JavaScriptVisitor;
 import boa.datagen.util.JavaVisitor;
 import boa.datagen.util.PHPErrorCheckVisitor;
@@ -67,6 +68,7 @@ public abstract class AbstractCommit {
 	protected static final boolean debug = Properties.getBoolean("debug", DefaultProperties.DEBUG);
 	protected static final boolean debugparse = Properties.getBoolean("debugparse", DefaultProperties.DEBUGPARSE);
 	protected static final boolean STORE_ASCII_PRINTABLE_CONTENTS = Properties.getBoolean("ascii", DefaultProperties.STORE_ASCII_PRINTABLE_CONTENTS);
+	protected static final boolean JS_SINGLE_PASS = Properties.getBoolean("jssinglepass", DefaultProperties.JS_SINGLE_PASS);
 
 	protected AbstractConnector connector;
 	protected String projectName;
@@ -145,10 +147,26 @@ public abstract class AbstractCommit {
 
 	protected List<Integer> childrenIndices = new LinkedList<Integer>();
 
-	protected static final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+	// files of a commit may be read by several threads of the parser pool
+	protected static final ThreadLocal<ByteArrayOutputStream> buffers = new ThreadLocal<ByteArrayOutputStream>() {
+		@Override
+		protected ByteArrayOutputStream initialValue() {
+			return new ByteArrayOutputStream(4096);
+		}
+	};
 
 	protected abstract String getFileContents(final String path);
 
+	/**
+	 * Get an id identifying the contents of a file, such as a hash of them.
+	 *
+	 * @param path the path of the file
+	 * @return the id, or null if it is not known
+	 */
+	protected String getFileId(final String path) {
+		return null;
+	}
+
 	public abstract String writeFile(final String classpathRoot, final String path);
 
 	public abstract Set<String> getGradleDependencies(final String classpathRoot, final String path);
@@ -158,6 +176,15 @@ public abstract class AbstractCommit {
 			Stack<PomFile> parentPomFiles);
 
 	public Revision asProtobuf(final String projectName) {
+		return asProtobuf(projectName, null);
+	}
+
+	/**
+	 * Convert the commit to protobuf, writing the ASTs of its files in order.
+	 *
+	 * @param parsers the pool parsing the files ahead, or null to parse them here
+	 */
+	Revision asProtobuf(final String projectName, final ParserPool parsers) {
 		final Revision.Builder revision = Revision.newBuilder();
 		revision.setId(id);
 		this.projectName = projectName;
@@ -184,11 +211,13 @@ public abstract class AbstractCommit {
 				revision.addParents(parentIndex);
 
 		for (ChangedFile.Builder cfb : changedFiles) {
-			cfb.setKind(FileKind.OTHER);
 			if (cfb.getChange() == ChangeKind.DELETED || cfb.getChange() == ChangeKind.UNKNOWN) {
+				cfb.setKind(FileKind.OTHER);
 				cfb.setKey(0);
 //				cfb.setKind(connector.revisions.get(cfb.getPreviousVersions(0)).changedFiles.get(cfb.getPreviousIndices(0)).getKind());
-			} else
+			} else if (parsers != null)
+				processChangeFile(cfb, parsers.take(cfb));
+			else
 				processChangeFile(cfb);
 			revision.addFiles(cfb.build());
 		}
@@ -196,11 +225,82 @@ public abstract class AbstractCommit {
 		return revision.build();
 	}
 
+	// files with the same contents and extension parse to the same AST
+	static String getContentId(final String path, final String fileId) {
+		final String lowerPath = path.toLowerCase();
+		if (fileId == null || !(lowerPath.endsWith(".java") || lowerPath.endsWith(".js") || lowerPath.endsWith(".php")))
+			return null;
+		return lowerPath.substring(lowerPath.lastIndexOf('.')) + ":" + fileId;
+	}
+
+	// whether a file is parsed, so its AST can be parsed ahead by the parser pool
+	static boolean isParsed(final String path) {
+		final String lowerPath = path.toLowerCase();
+		return lowerPath.endsWith(".java") || lowerPath.endsWith(".js") || lowerPath.endsWith(".php");
+	}
+
 	Builder processChangeFile(final ChangedFile.Builder fb) {
-		long len = connector.astWriterLen;
+		final String contentId = getContentId(fb.getName(), getFileId(fb.getName()));
+		if (contentId != null && connector.astIndex.reuse(contentId, fb))
+			return fb;
+
+		return storeChangeFile(fb, contentId, parseChangeFile(fb));
+	}
+
+	/**
+	 * Store a file parsed by the parser pool.  The pool only parses ahead the
+	 * first file with given contents, so the later ones are found in the AST
+	 * index as if the files were parsed in order.
+	 *
+	 * @param parsed the AST being parsed, or null if the file was not parsed ahead
+	 */
+	Builder processChangeFile(final ChangedFile.Builder fb, final Future<byte[]> parsed) {
+		if (parsed == null)
+			return processChangeFile(fb);
+
+		final byte[] ast = ParserPool.get(parsed);
+		final String contentId = getContentId(fb.getName(), getFileId(fb.getName()));
+		if (contentId != null && connector.astIndex.reuse(contentId, fb))
+			return fb;
+
+		return storeChangeFile(fb, contentId, ast);
+	}
+
+	private Builder storeChangeFile(final ChangedFile.Builder fb, final String contentId, final byte[] ast) {
+		if (ast != null) {
+			try {
+				final BytesWritable bw = new BytesWritable(ast);
+				connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
+				fb.setKey(connector.astWriterLen);
+				fb.setAst(true);
+				connector.astWriterLen += bw.getLength();
+			} catch (IOException e) {
+				if (debug)
+					e.printStackTrace();
+			}
+		}
+
+		if (contentId != null)
+			connector.astIndex.add(contentId, fb);
+
+		return fb;
+	}
+
+	// the AST of the file being parsed by each thread
+	private static final ThreadLocal<byte[]> parsedAst = new ThreadLocal<byte[]>();
+
+	/**
+	 * Parse a file and set its kind, without storing its AST.
+	 *
+	 * @return the serialized AST, or null if the file has none
+	 */
+	byte[] parseChangeFile(final ChangedFile.Builder fb) {
 		String path = fb.getName();
 
 		final String lowerPath = path.toLowerCase();
+
+		parsedAst.remove();
+		fb.setKind(FileKind.OTHER);
 		if (lowerPath.endsWith(".txt"))
 			fb.setKind(FileKind.TEXT);
 		else if (lowerPath.endsWith(".xml"))
@@ -211,6 +311,9 @@ public abstract class AbstractCommit {
 			final String content = getFileContents(path);
 			fb.setKind(FileKind.SOURCE_JAVA_ERROR);
 			parseJavaFile(path, fb, content, false); // parse java file
+		} else if (lowerPath.endsWith(".js") && JS_SINGLE_PASS && parseJavaScriptFileOnce(path, fb, getFileContents(path))) {
+			if (debugparse)
+				System.err.println("Accepted " + fb.getKind() + ": revision " + id + ": file " + path);
 		} else if (lowerPath.endsWith(".js")) {
 			final String content = getFileContents(path);
 
@@ -352,13 +455,10 @@ public abstract class AbstractCommit {
 				}
 			}
 		}*/
-		 
-		if (connector.astWriterLen > len) {
-			fb.setKey(len);
-			fb.setAst(true);
-		}
 
-		return fb;
+		final byte[] ast = parsedAst.get();
+		parsedAst.remove();
+		return ast;
 	}
 
 	@SuppressWarnings("unused")
@@ -386,14 +486,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		parsedAst.set(ast.build().toByteArray());
 		return true;
 	}
 
@@ -424,14 +517,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		parsedAst.set(ast.build().toByteArray());
 		return true;
 	}
 
@@ -462,14 +548,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		parsedAst.set(ast.build().toByteArray());
 		return true;
 	}
 	
@@ -504,14 +583,7 @@ public abstract class AbstractCommit {
 				System.exit(-1);
 				return false;
 			}
-			try {
-				// System.out.println("writing=" + count + "\t" + path);
-				BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-				connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-				connector.astWriterLen += bw.getLength();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			parsedAst.set(ast.build().toByteArray());
 		}
 		return !errorCheck.hasError;
 	}
@@ -520,55 +592,16 @@ public abstract class AbstractCommit {
 			final int astLevel, final boolean storeOnError) {
 		try {
 			// System.out.println("parsing=" + (++count) + "\t" + path);
-			CompilerEnvirons cp = new CompilerEnvirons();
-			cp.setLanguageVersion(astLevel);
-			final org.mozilla.javascript.Parser parser = new org.mozilla.javascript.Parser(cp);
-
-			AstRoot cu;
-			try {
-				cu = parser.parse(content, null, 0);
-			} catch (java.lang.IllegalArgumentException ex) {
-				return false;
-			} catch (org.mozilla.javascript.EvaluatorException ex) {
+			final AstRoot cu = parseJavaScript(content, astLevel);
+			if (cu == null)
 				return false;
-			}
 
 			final JavaScriptErrorCheckVisitor errorCheck = new JavaScriptErrorCheckVisitor();
 			cu.visit(errorCheck);
 
-			if (!errorCheck.hasError || storeOnError) {
-				final ASTRoot.Builder ast = ASTRoot.newBuilder();
-				// final CommentsRoot.Builder comments =
-				// CommentsRoot.newBuilder();
-				final JavaScriptVisitor visitor = new JavaScriptVisitor(content);
-				try {
-					ast.addNamespaces(visitor.getNamespaces(cu));
-					// for (final String s : visitor.getImports())
-					// ast.addImports(s);
-					/*
-					 * for (final Comment c : visitor.getComments())
-					 * comments.addComments(c);
-					 */
-				} catch (final UnsupportedOperationException e) {
-					return false;
-				} catch (final Throwable e) {
-					if (debug)
-						System.err.println("Error visiting JS file: " + path  + " from: " + projectName);
-					e.printStackTrace();
-					System.exit(-1);
+			if (!errorCheck.hasError || storeOnError)
+				if (!writeJavaScriptAst(path, cu, content))
 					return false;
-				}
-
-				try {
-					// System.out.println("writing=" + count + "\t" + path);
-					BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-					connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-					connector.astWriterLen += bw.getLength();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-				// fb.setComments(comments);
-			}
 
 			return !errorCheck.hasError;
 		} catch (final Exception e) {
@@ -577,6 +610,55 @@ public abstract class AbstractCommit {
 		}
 	}
 
+	/**
+	 * Parse a JavaScript file once, at the highest language version, and set
+	 * its kind to the lowest version whose parser accepts the syntax it uses.
+	 * This gives the same kind and AST as trying each version in turn.
+	 *
+	 * @return false if the file must be parsed at each version in turn
+	 */
+	private boolean parseJavaScriptFileOnce(final String path, final ChangedFile.Builder fb, final String content) {
+		try {
+			final AstRoot cu = JavaScriptLevelVisitor.parseOnce(content, fb);
+			return cu != null && writeJavaScriptAst(path, cu, content);
+		} catch (final Exception e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	private AstRoot parseJavaScript(final String content, final int astLevel) {
+		return JavaScriptLevelVisitor.parse(content, astLevel);
+	}
+
+	private boolean writeJavaScriptAst(final String path, final AstRoot cu, final String content) {
+		final ASTRoot.Builder ast = ASTRoot.newBuilder();
+		// final CommentsRoot.Builder comments =
+		// CommentsRoot.newBuilder();
+		final JavaScriptVisitor visitor = new JavaScriptVisitor(content);
+		try {
+			ast.addNamespaces(visitor.getNamespaces(cu));
+			// for (final String s : visitor.getImports())
+			// ast.addImports(s);
+			/*
+			 * for (final Comment c : visitor.getComments())
+			 * comments.addComments(c);
+			 */
+		} catch (final UnsupportedOperationException e) {
+			return false;
+		} catch (final Throwable e) {
+			if (debug)
+				System.err.println("Error visiting JS file: " + path  + " from: " + projectName);
+			e.printStackTrace();
+			System.exit(-1);
+			return false;
+		}
+
+		parsedAst.set(ast.build().toByteArray());
+		// fb.setComments(comments);
+		return true;
+	}
+
 	public Map<String, String> getLOC() {
 		final Map<String, String> l = new HashMap<String, String>();
 
@@ -587,18 +669,33 @@ public abstract class AbstractCommit {
 		return l;
 	}
 
+	// each thread reuses its parser and options, as creating them is costly;
+	// creating an AST resets the parser, so its settings are set every time
+	private static final ThreadLocal<org.eclipse.jdt.core.dom.ASTParser> javaParsers = new ThreadLocal<org.eclipse.jdt.core.dom.ASTParser>() {
+		@Override
+		protected org.eclipse.jdt.core.dom.ASTParser initialValue() {
+			return org.eclipse.jdt.core.dom.ASTParser.newParser(AST.JLS8);
+		}
+	};
+
+	private static final ThreadLocal<Map<?, ?>> javaOptions = new ThreadLocal<Map<?, ?>>() {
+		@Override
+		protected Map<?, ?> initialValue() {
+			final Map<?, ?> options = JavaCore.getOptions();
+			JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+			return options;
+		}
+	};
+
 	private boolean parseJavaFile(final String path, final ChangedFile.Builder fb, final String content, final boolean storeOnError) {
 		try {
-			final org.eclipse.jdt.core.dom.ASTParser parser = org.eclipse.jdt.core.dom.ASTParser.newParser(AST.JLS8);
+			final org.eclipse.jdt.core.dom.ASTParser parser = javaParsers.get();
 			parser.setKind(org.eclipse.jdt.core.dom.ASTParser.K_COMPILATION_UNIT);
 //			parser.setResolveBindings(true);
 //			parser.setUnitName(FileIO.getFileName(path));
 //			parser.setEnvironment(null, null, null, true);
 			parser.setSource(content.toCharArray());
-
-			final Map<?, ?> options = JavaCore.getOptions();
-			JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
-			parser.setCompilerOptions(options);
+			parser.setCompilerOptions(javaOptions.get());
 
 			final CompilationUnit cu;
 			
@@ -647,15 +744,7 @@ public abstract class AbstractCommit {
 						fb.setKind(FileKind.SOURCE_JAVA_ERROR);
 				}
 
-				try {
-					BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-					connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-					connector.astWriterLen += bw.getLength();
-				} catch (IOException e) {
-					if (debug) 
-						e.printStackTrace();
-					
-				}
+				parsedAst.set(ast.build().toByteArray());
 				// fb.setComments(comments);
 			}
 
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import org.apache.hadoop.io.SequenceFile;
+import boa.types.Code.Revision;
 import boa.types.Diff.ChangedFile;
 import boa.types.Shared.ChangeKind;
 
@@ -47,6 +48,23 @@ public abstract class AbstractConnector implements AutoCloseable {
 	protected int headCommitOffset = -1;
 	protected SequenceFile.Writer astWriter, commitWriter, contentWriter;
 	protected long astWriterLen = 1, commitWriterLen = 1, contentWriterLen = 1;
+	protected AstIndex astIndex = new AstIndex();
+	protected ImportedRepository previous = null;
+	protected List<Revision> previousRevisions = new ArrayList<Revision>();
+
+	/**
+	 * Share an index of parsed contents with other connectors writing to the same AST file.
+	 */
+	public void setAstIndex(final AstIndex astIndex) {
+		this.astIndex = astIndex;
+	}
+
+	/**
+	 * Refresh a repository imported before, only parsing the commits added since.
+	 */
+	public void setPrevious(final ImportedRepository previous) {
+		this.previous = previous;
+	}
 
 	public long getAstWriterLen() {
 		return astWriterLen;
@@ -191,12 +209,13 @@ public abstract class AbstractConnector implements AutoCloseable {
 		setRevisions();
 		
 		long maxTime = 1000;
-		final List<Object> revs = new ArrayList<Object>();
+		final List<Object> revs = new ArrayList<Object>(previousRevisions);
 		if (!revisions.isEmpty()) {
+			final ParserPool parsers = ParserPool.create(revisions, astIndex);
 			for (int i = 0; i < revisions.size(); i++) {
 				long startTime = System.currentTimeMillis();
 				final AbstractCommit rev = revisions.get(i);
-				revs.add(rev.asProtobuf(projectName));
+				revs.add(rev.asProtobuf(projectName, parsers));
 				
 				if (debug) {
 					long endTime = System.currentTimeMillis();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boa.datagen.scm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * An index from file contents to the result of parsing them, so identical
+ * contents are parsed and stored only once.
+ *
+ * AST keys are offsets into one AST sequence file, so an index must not be
+ * shared by connectors writing to different files.
+ *
+ * @author agent
+ */
+public class AstIndex {
+	private static class Entry {
+		private final FileKind kind;
+		private final long key;
+		private final boolean ast;
+
+		Entry(final FileKind kind, final long key, final boolean ast) {
+			this.kind = kind;
+			this.key = key;
+			this.ast = ast;
+		}
+	}
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private long lookups = 0, hits = 0;
+
+	/**
+	 * If contents were already parsed, point a file at their kind and AST.
+	 *
+	 * @param id the id of the file's contents
+	 * @param fb the file to update
+	 * @return true if the contents were already parsed
+	 */
+	public synchronized boolean reuse(final String id, final ChangedFile.Builder fb) {
+		lookups++;
+		final Entry e = entries.get(id);
+		if (e == null)
+			return false;
+
+		hits++;
+		fb.setKind(e.kind);
+		if (e.ast) {
+			fb.setKey(e.key);
+			fb.setAst(true);
+		}
+		return true;
+	}
+
+	/**
+	 * @param id the id of the file's contents
+	 * @return true if the contents were already parsed
+	 */
+	public synchronized boolean contains(final String id) {
+		return entries.containsKey(id);
+	}
+
+	/**
+	 * Record the result of parsing a file's contents.
+	 *
+	 * @param id the id of the file's contents
+	 * @param fb the parsed file
+	 */
+	public synchronized void add(final String id, final ChangedFile.Builder fb) {
+		entries.put(id, new Entry(fb.getKind(), fb.getKey(), fb.getAst()));
+	}
+
+	public synchronized long getLookups() {
+		return lookups;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the fraction of lookups that reused an earlier parse
+	 */
+	public synchronized double getDedupRatio() {
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		lookups = 0;
+		hits = 0;
+	}
+}
@@ -18,6 +18,7 @@
 package boa.datagen.scm;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -73,6 +74,7 @@ public class GitCommit extends AbstractCommit {
 	@Override
 	/** {@inheritDoc} */
 	protected String getFileContents(final String path) {
+		final ByteArrayOutputStream buffer = buffers.get();
 		ObjectId fileid = filePathGitObjectIds.get(path);
 		try {
 			buffer.reset();
@@ -84,8 +86,18 @@ public class GitCommit extends AbstractCommit {
 		return buffer.toString();
 	}
 
+	@Override
+	/** {@inheritDoc} */
+	protected String getFileId(final String path) {
+		final ObjectId fileid = filePathGitObjectIds.get(path);
+		if (fileid == null)
+			return null;
+		return fileid.getName();
+	}
+
 	@Override
 	public String writeFile(final String classpathRoot, final String path) {
+		final ByteArrayOutputStream buffer = buffers.get();
 		String name = FileIO.getFileName(path);
 		File file = new File(classpathRoot, name);
 		if (!file.exists()) {
@@ -117,6 +129,7 @@ public class GitCommit extends AbstractCommit {
 
 	@Override
 	public Set<String> getGradleDependencies(final String classpathRoot, final String path) {
+		final ByteArrayOutputStream buffer = buffers.get();
 		Set<String> paths = new HashSet<String>();
 		String content = null;
 		ObjectId fileid = filePathGitObjectIds.get(path);
@@ -141,6 +154,7 @@ public class GitCommit extends AbstractCommit {
 	public Set<String> getPomDependencies(String outPath, String path,
 			HashSet<String> globalRepoLinks, HashMap<String, String> globalProperties, HashMap<String, String> globalManagedDependencies,
 			Stack<PomFile> parentPomFiles) {
+		final ByteArrayOutputStream buffer = buffers.get();
 		Set<String> paths = new HashSet<String>();
 		String content = null;
 		ObjectId fileid = filePathGitObjectIds.get(path);
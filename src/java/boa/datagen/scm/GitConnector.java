@@ -38,6 +38,7 @@ import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -132,6 +133,8 @@ public class GitConnector extends AbstractConnector {
 			Set<RevCommit> heads = getHeads(); // all branches
 //			RevCommit heads = revwalk.parseCommit(repository.resolve(Constants.HEAD)); // main branch
 			revwalk.markStart(heads);
+			if (previous != null)
+				markImported();
 			revwalk.sort(RevSort.TOPO, true);
 			revwalk.sort(RevSort.COMMIT_TIME_DESC, true);
 			revwalk.sort(RevSort.REVERSE, true);
@@ -144,12 +147,21 @@ public class GitConnector extends AbstractConnector {
 			for (RevCommit rc : revwalk) {
 				commitList.add(rc);
 			}
-			if (commitList.size() > MAX_COMMITS) {
-				System.err.println(projectName + " has " + commitList.size() + " commits " + " exceeding the maximum commit size of " + MAX_COMMITS);
+			final int commitCount = commitList.size() + (previous == null ? 0 : previous.getRevisionsCount());
+			if (commitCount > MAX_COMMITS) {
+				System.err.println(projectName + " has " + commitCount + " commits " + " exceeding the maximum commit size of " + MAX_COMMITS);
 //				return;
 			}
 
+			if (previous != null) {
+				copyImported(commitCount > MAX_COMMITS);
+				reuseImportedHead();
+			}
+
 			for (final RevCommit rc: commitList) {
+				if (revisionMap.containsKey(rc.getName()))
+					continue; // imported before, from a branch that was since rewritten
+
 				long startTime = System.currentTimeMillis();
 				
 				final GitCommit gc = new GitCommit(this, repository, temprevwalk, projectName);
@@ -174,15 +186,15 @@ public class GitConnector extends AbstractConnector {
 				gc.updateChangedFiles(rc);
 				gc.fileNameIndices.clear();
 				
-				if (commitList.size() > MAX_COMMITS) {
+				if (commitCount > MAX_COMMITS) {
 					revisionMap.put(gc.id, revisionKeys.size());
-					Revision revision = gc.asProtobuf(projectName);
+					Revision revision = gc.asProtobuf(projectName, ParserPool.create(gc, astIndex));
 					revisionKeys.add(commitWriterLen);
 					BytesWritable bw = new BytesWritable(revision.toByteArray());
 					commitWriter.append(new LongWritable(commitWriterLen), bw);
 					commitWriterLen += bw.getLength();
 				} else {
-					revisionMap.put(gc.id, revisions.size());
+					revisionMap.put(gc.id, previousRevisions.size() + revisions.size());
 					revisions.add(gc);
 				}
 
@@ -212,6 +224,64 @@ public class GitConnector extends AbstractConnector {
 		}
 	}
 
+	// only walk the commits not reachable from the branch heads imported before
+	private void markImported() throws IOException {
+		for (final String id : previous.getBranchHeads()) {
+			try {
+				revwalk.markUninteresting(revwalk.parseCommit(ObjectId.fromString(id)));
+			} catch (final Exception e) {
+				if (debug)
+					System.err.println("Git Error finding imported branch head " + id + " of " + path + ". " + e.getMessage());
+			}
+		}
+	}
+
+	// copy the commits imported before, keeping their offsets
+	private void copyImported(final boolean toCommitFile) throws IOException {
+		for (int i = 0; i < previous.getRevisionsCount(); i++) {
+			final Revision revision = previous.copy(previous.getRevision(i), this);
+			revisionMap.put(revision.getId(), i);
+			if (toCommitFile) {
+				revisionKeys.add(commitWriterLen);
+				BytesWritable bw = new BytesWritable(revision.toByteArray());
+				commitWriter.append(new LongWritable(commitWriterLen), bw);
+				commitWriterLen += bw.getLength();
+			} else {
+				previousRevisions.add(revision);
+			}
+		}
+	}
+
+	// point the contents of the files at the imported head to their copied
+	// ASTs, so unchanged files are not parsed again for the head snapshot
+	private void reuseImportedHead() {
+		final TreeWalk tw = new TreeWalk(repository);
+		try {
+			final String id = previous.getHeadId();
+			if (id == null)
+				return;
+
+			final Map<String, ChangedFile> files = previous.getHeadSnapshot();
+			tw.addTree(revwalk.parseCommit(ObjectId.fromString(id)).getTree());
+			tw.setRecursive(true);
+			while (tw.next()) {
+				final String name = tw.getPathString();
+				final ChangedFile cf = files.get(name);
+				final String contentId = AbstractCommit.getContentId(name, tw.getObjectId(0).getName());
+				if (cf != null && contentId != null) {
+					final ChangedFile.Builder cfb = ChangedFile.newBuilder(cf);
+					previous.copy(cfb, this);
+					astIndex.add(contentId, cfb);
+				}
+			}
+		} catch (final Exception e) {
+			if (debug)
+				System.err.println("Git Error reading imported head of " + path + ". " + e.getMessage());
+		} finally {
+			tw.close();
+		}
+	}
+
 	private Set<RevCommit> getHeads() {
 		Set<RevCommit> heads = new HashSet<RevCommit>();
 		try {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen.scm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+
+import com.google.protobuf.CodedInputStream;
+
+import boa.types.Code.CodeRepository;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+
+/**
+ * A repository as it was imported before, read from the combined dataset
+ * written by SeqCombiner, so a refresh only parses the commits added since.
+ *
+ * The revisions and ASTs of the repository are copied to the files a
+ * connector writes, so the refreshed project only points into those files.
+ * ASTs are copied as stored, without parsing them again.
+ *
+ * @author agent
+ */
+public class ImportedRepository {
+	private final CodeRepository repo;
+	private final MapFile.Reader astReader, commitReader;
+
+	// AST keys in the combined dataset, and the keys their copies were written at
+	private final Map<Long, Long> copiedKeys = new HashMap<Long, Long>();
+
+	/**
+	 * @param repo the repository as stored in the combined dataset
+	 * @param astReader a reader of the combined AST map file
+	 * @param commitReader a reader of the combined commit map file
+	 */
+	public ImportedRepository(final CodeRepository repo, final MapFile.Reader astReader, final MapFile.Reader commitReader) {
+		this.repo = repo;
+		this.astReader = astReader;
+		this.commitReader = commitReader;
+	}
+
+	public int getRevisionsCount() {
+		if (repo.getRevisionsCount() > 0)
+			return repo.getRevisionsCount();
+		return repo.getRevisionKeysCount();
+	}
+
+	public Revision getRevision(final int index) throws IOException {
+		if (repo.getRevisionsCount() > 0)
+			return repo.getRevisions(index);
+
+		final BytesWritable value = new BytesWritable();
+		if (commitReader.get(new LongWritable(repo.getRevisionKeys(index)), value) == null)
+			throw new IOException("Missing commit " + index + " of " + repo.getUrl());
+		return Revision.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
+	}
+
+	/**
+	 * @return the ids of the commits the branches pointed at when imported
+	 */
+	public List<String> getBranchHeads() throws IOException {
+		final List<String> heads = new ArrayList<String>();
+		for (final int index : repo.getBranchesList())
+			if (index >= 0 && index < getRevisionsCount())
+				heads.add(getRevision(index).getId());
+		return heads;
+	}
+
+	/**
+	 * @return the id of the head commit when imported, or null if unknown
+	 */
+	public String getHeadId() throws IOException {
+		if (repo.getHead() < 0 || repo.getHead() >= getRevisionsCount())
+			return null;
+		return getRevision(repo.getHead()).getId();
+	}
+
+	/**
+	 * @return the files of the head snapshot when imported, by path
+	 */
+	public Map<String, ChangedFile> getHeadSnapshot() {
+		final Map<String, ChangedFile> files = new HashMap<String, ChangedFile>();
+		for (final ChangedFile cf : repo.getHeadSnapshotList())
+			files.put(cf.getName(), cf);
+		return files;
+	}
+
+	/**
+	 * Copy the ASTs of a revision's files to a connector's AST file.
+	 *
+	 * @return the revision, pointing at the copied ASTs
+	 */
+	public Revision copy(final Revision revision, final AbstractConnector conn) throws IOException {
+		final Revision.Builder rb = Revision.newBuilder(revision);
+		for (final ChangedFile.Builder cfb : rb.getFilesBuilderList())
+			copy(cfb, conn);
+		return rb.build();
+	}
+
+	/**
+	 * Copy the AST of a file to a connector's AST file, once per AST.
+	 *
+	 * @param cfb the file to point at the copied AST
+	 */
+	public void copy(final ChangedFile.Builder cfb, final AbstractConnector conn) throws IOException {
+		final long key = cfb.getKey();
+		if (key <= 0)
+			return;
+
+		Long copiedKey = copiedKeys.get(key);
+		if (copiedKey == null) {
+			final BytesWritable value = new BytesWritable();
+			// contents other than ASTs are not combined, so they are dropped
+			if (cfb.getAst() && astReader.get(new LongWritable(key), value) != null) {
+				copiedKey = conn.astWriterLen;
+				conn.astWriter.append(new LongWritable(conn.astWriterLen), value);
+				conn.astWriterLen += value.getLength();
+			} else
+				copiedKey = 0L;
+			copiedKeys.put(key, copiedKey);
+		}
+
+		cfb.setKey(copiedKey);
+		if (copiedKey == 0)
+			cfb.setAst(false);
+	}
+}
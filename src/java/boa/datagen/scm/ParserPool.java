@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen.scm;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import boa.datagen.DefaultProperties;
+import boa.datagen.util.Properties;
+import boa.types.Diff.ChangedFile;
+import boa.types.Shared.ChangeKind;
+
+/**
+ * Parses the changed files of a list of commits on a bounded pool of
+ * threads, ahead of the thread converting the commits to protobuf.  That
+ * thread still writes the ASTs, in the order of the files, so the AST keys
+ * are the same as when parsing the files one at a time.
+ *
+ * Only the first file with given contents is parsed ahead, as the later
+ * ones reuse its AST from the AST index when they are written.
+ *
+ * The threads are shared by all connectors, and each connector has at most
+ * a few files per thread parsed ahead.  The number of threads is read each
+ * time a connector starts, but the threads are only created once, by the
+ * first connector that parses ahead.
+ *
+ * @author agent
+ */
+class ParserPool {
+	private static ExecutorService executor = null;
+	private static int threads = 0;
+
+	private final List<? extends AbstractCommit> commits;
+	private final AstIndex astIndex;
+	// the most files to have parsing at once
+	private final int ahead;
+
+	// the next file to parse ahead
+	private int commit = 0, file = 0;
+
+	private final Set<String> queued = new HashSet<String>();
+	private final Map<ChangedFile.Builder, Future<byte[]>> parsing = new IdentityHashMap<ChangedFile.Builder, Future<byte[]>>();
+
+	private ParserPool(final List<? extends AbstractCommit> commits, final AstIndex astIndex, final int ahead) {
+		this.commits = commits;
+		this.astIndex = astIndex;
+		this.ahead = ahead;
+	}
+
+	/**
+	 * Parse the files of commits ahead, if there is more than one parser thread.
+	 *
+	 * @param commits the commits, in the order they are converted
+	 * @return the pool, or null if the files are parsed while converting
+	 */
+	static ParserPool create(final List<? extends AbstractCommit> commits, final AstIndex astIndex) {
+		final int n = Integer.parseInt(Properties.getProperty("num.parse.threads", DefaultProperties.NUM_PARSE_THREADS));
+		if (n <= 1)
+			return null;
+		synchronized (ParserPool.class) {
+			if (executor == null) {
+				threads = n;
+				executor = Executors.newFixedThreadPool(n, new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "parser");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			}
+			return new ParserPool(commits, astIndex, 4 * threads);
+		}
+	}
+
+	static ParserPool create(final AbstractCommit commit, final AstIndex astIndex) {
+		return create(Collections.singletonList(commit), astIndex);
+	}
+
+	/**
+	 * Take the AST of a file being parsed ahead, and parse more files ahead.
+	 * Files must be taken in order.
+	 *
+	 * @return the AST being parsed, or null if the file is not parsed ahead
+	 */
+	Future<byte[]> take(final ChangedFile.Builder fb) {
+		while (parsing.size() < ahead && commit < commits.size()) {
+			final AbstractCommit c = commits.get(commit);
+			if (file < c.changedFiles.size()) {
+				submit(c, c.changedFiles.get(file++));
+			} else {
+				commit++;
+				file = 0;
+			}
+		}
+		return parsing.remove(fb);
+	}
+
+	private void submit(final AbstractCommit c, final ChangedFile.Builder fb) {
+		if (fb.getChange() == ChangeKind.DELETED || fb.getChange() == ChangeKind.UNKNOWN || !AbstractCommit.isParsed(fb.getName()))
+			return;
+
+		final String contentId = AbstractCommit.getContentId(fb.getName(), c.getFileId(fb.getName()));
+		if (contentId != null && (astIndex.contains(contentId) || !queued.add(contentId)))
+			return;
+
+		parsing.put(fb, executor.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return c.parseChangeFile(fb);
+			}
+		}));
+	}
+
+	/**
+	 * Wait for the AST of a file.
+	 *
+	 * @return the serialized AST, or null if the file has none
+	 */
+	static byte[] get(final Future<byte[]> parsed) {
+		try {
+			return parsed.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+}
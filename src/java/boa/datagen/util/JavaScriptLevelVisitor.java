@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boa.datagen.util;
+
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.Parser;
+import org.mozilla.javascript.Token;
+import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.AstRoot;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.NodeVisitor;
+import org.mozilla.javascript.ast.ObjectProperty;
+
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Finds the syntax in an AST parsed at JavaScript 1.8 that Rhino only
+ * accepts at a given language version.  The parser treats versions 1.1
+ * through 1.6 alike, makes let and yield keywords at 1.7, and allows
+ * expression closures and destructuring shorthand at 1.8.
+ *
+ * @author agent
+ */
+public class JavaScriptLevelVisitor implements NodeVisitor {
+	public boolean usesJS17 = false, usesJS18 = false;
+
+	@Override
+	public boolean visit(AstNode node) {
+		switch (node.getType()) {
+			case Token.LET:
+			case Token.LETEXPR:
+			case Token.YIELD:
+				usesJS17 = true;
+				break;
+		}
+		if (node instanceof FunctionNode && ((FunctionNode) node).isExpressionClosure())
+			usesJS18 = true;
+		else if (node instanceof ObjectProperty && node.getProp(Node.DESTRUCTURING_SHORTHAND) != null)
+			usesJS18 = true;
+		return !usesJS18;
+	}
+
+	/**
+	 * Parse a file at a language version.
+	 *
+	 * @return the AST, or null if the parser gave up
+	 */
+	public static AstRoot parse(final String content, final int version) {
+		final CompilerEnvirons cp = new CompilerEnvirons();
+		cp.setLanguageVersion(version);
+		final Parser parser = new Parser(cp);
+
+		try {
+			return parser.parse(content, null, 0);
+		} catch (final IllegalArgumentException ex) {
+			return null;
+		} catch (final EvaluatorException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parse a file once, at the highest language version, and set its kind
+	 * to the lowest version whose parser accepts the syntax it uses.  This
+	 * gives the same kind and AST as trying each version in turn.
+	 *
+	 * @return the AST, or null if the file must be parsed at each version in turn
+	 */
+	public static AstRoot parseOnce(final String content, final ChangedFile.Builder fb) {
+		final AstRoot cu = parse(content, Context.VERSION_1_8);
+		if (cu == null || hasError(cu))
+			return null;
+
+		final JavaScriptLevelVisitor level = new JavaScriptLevelVisitor();
+		cu.visit(level);
+
+		if (level.usesJS18) {
+			fb.setKind(FileKind.SOURCE_JS_ES8);
+		} else if (!level.usesJS17) {
+			fb.setKind(FileKind.SOURCE_JS_ES1);
+		} else {
+			// before 1.7, let and yield are plain names and the file may still parse
+			final AstRoot cu1 = parse(content, Context.VERSION_1_1);
+			if (cu1 != null && !hasError(cu1)) {
+				fb.setKind(FileKind.SOURCE_JS_ES1);
+				return cu1;
+			}
+			fb.setKind(FileKind.SOURCE_JS_ES7);
+		}
+		return cu;
+	}
+
+	private static boolean hasError(final AstRoot cu) {
+		final JavaScriptErrorCheckVisitor errorCheck = new JavaScriptErrorCheckVisitor();
+		cu.visit(errorCheck);
+		return errorCheck.hasError;
+	}
+}
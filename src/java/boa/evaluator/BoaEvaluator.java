@@ -22,21 +22,34 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 import java.util.UUID;
 
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
 
 import boa.BoaMain;
 import boa.compiler.BoaCompiler;
 import boa.datagen.DefaultProperties;
 import boa.datagen.util.FileIO;
+import boa.runtime.BoaAbstractTraversal;
+import boa.runtime.BoaLocalRunner;
+import boa.runtime.BoaMapper;
+import boa.runtime.BoaPartitioner;
+import boa.runtime.BoaRunner;
 
 /**
  * The main entry point for Boa REPL.
  *
+ * Queries run inside this JVM on {@link BoaLocalRunner}, unless asked to run
+ * through Hadoop's local job runner.
+ *
  * @author hridesh
  * @author rdyer
  */
@@ -46,6 +59,11 @@ public class BoaEvaluator extends BoaMain {
 	private final String COMPILATION_DIR;
 	private final String OUTPUT_DIR;
 
+	private boolean useHadoop = false;
+	private int threads = 1;
+	private int reducers = 1;
+	private final Properties properties = new Properties();
+
 	public BoaEvaluator(final String prog, final String data) throws IOException {
 		this(prog, data, System.getProperty("java.io.tmpdir") + File.separator + UUID.randomUUID().toString());
 	}
@@ -65,6 +83,14 @@ public class BoaEvaluator extends BoaMain {
 		options.addOption("i", "input",  true, "input Boa source file (*.boa)");
 		options.addOption("d", "data",   true, "path to local data directory");
 		options.addOption("o", "output", true, "output directory");
+		options.addOption("t", "threads", true, "number of threads to map projects with (default 1)");
+		options.addOption("r", "reducers", true, "number of reducers to spread each output variable over (default 1)");
+		options.addOption("m", "mapreduce", false, "run through Hadoop's local job runner");
+		options.addOption(OptionBuilder.withArgName("key=value")
+										.hasArgs(2)
+										.withValueSeparator()
+										.withDescription("set a key in the job's configuration")
+										.create("D"));
 
 		options.getOption("i").setRequired(true);
 		options.getOption("d").setRequired(true);
@@ -89,6 +115,15 @@ public class BoaEvaluator extends BoaMain {
 						return;
 					}
 
+					if (cl.hasOption('t'))
+						evaluator.setThreads(Integer.parseInt(cl.getOptionValue('t')));
+					if (cl.hasOption('r'))
+						evaluator.setReducers(Integer.parseInt(cl.getOptionValue('r')));
+					if (cl.hasOption('m'))
+						evaluator.setUseHadoop(true);
+					if (cl.hasOption('D'))
+						evaluator.setProperties(cl.getOptionProperties("D"));
+
 					if (!evaluator.compile()) {
 						System.err.println("Compilation Failed");
 						return;
@@ -110,8 +145,35 @@ public class BoaEvaluator extends BoaMain {
 		}
 	}
 
+	/**
+	 * @param threads the number of threads to map projects with
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * @param reducers the number of reducers to spread each output variable over
+	 */
+	public void setReducers(final int reducers) {
+		this.reducers = reducers;
+	}
+
+	/**
+	 * @param useHadoop true to run through Hadoop's local job runner
+	 */
+	public void setUseHadoop(final boolean useHadoop) {
+		this.useHadoop = useHadoop;
+	}
+
+	/**
+	 * @param properties keys to set in the job's configuration
+	 */
+	public void setProperties(final Properties properties) {
+		this.properties.putAll(properties);
+	}
+
 	public void evaluate() {
-		final String[] actualArgs = createHadoopProgramArguments();
 		final File srcDir = new File(this.COMPILATION_DIR);
 
 		URLClassLoader cl = null;
@@ -120,11 +182,26 @@ public class BoaEvaluator extends BoaMain {
 
 			cl = new URLClassLoader(new URL[] { srcDirUrl }, ClassLoader.getSystemClassLoader());
 			final Class<?> cls = cl.loadClass("boa." + jarToClassname(this.PROG_PATH));
-			final Method method = cls.getMethod("main", String[].class);
 
-			method.invoke(null, (Object)actualArgs);
+			if (this.useHadoop) {
+				final Method method = cls.getMethod("main", String[].class);
+				method.invoke(null, (Object)createHadoopProgramArguments());
+			} else {
+				final Configuration conf = new Configuration();
+				conf.setInt(BoaMapper.THREADS, this.threads);
+				conf.setInt(BoaPartitioner.REDUCERS_PER_VARIABLE, this.reducers);
+				for (final String key : this.properties.stringPropertyNames())
+					conf.set(key, this.properties.getProperty(key));
+
+				final BoaLocalRunner runner = new BoaLocalRunner(cls.asSubclass(BoaRunner.class).getDeclaredConstructor().newInstance(), conf);
+				runner.run(this.DATA_PATH, this.OUTPUT_DIR);
+
+				final String traversals = BoaAbstractTraversal.summary(runner.getCounters());
+				if (!traversals.isEmpty())
+					System.err.print(traversals);
+			}
 		} catch (final Throwable e) {
-			System.err.print(e.getCause()); // use getCause to get more information
+			System.err.print(e.getCause() != null ? e.getCause() : e); // use getCause to get more information
 		} finally {
 			if (cl != null)
 				try {
@@ -168,13 +245,21 @@ public class BoaEvaluator extends BoaMain {
 	}
 
 	private String[] createHadoopProgramArguments() {
-		final String[] actualArgs = new String[3];
+		final List<String> actualArgs = new ArrayList<String>();
 
-		actualArgs[0] = this.DATA_PATH;
-		actualArgs[1] = this.OUTPUT_DIR;
-		actualArgs[2] = "-b"; // blocking call
-
-		return actualArgs;
+		for (final String key : this.properties.stringPropertyNames()) {
+			actualArgs.add("-D");
+			actualArgs.add(key + "=" + this.properties.getProperty(key));
+		}
+		actualArgs.add(this.DATA_PATH);
+		actualArgs.add(this.OUTPUT_DIR);
+		actualArgs.add("-b"); // blocking call
+		actualArgs.add("--threads");
+		actualArgs.add(Integer.toString(this.threads));
+		actualArgs.add("--reducers");
+		actualArgs.add(Integer.toString(this.reducers));
+
+		return actualArgs.toArray(new String[actualArgs.size()]);
 	}
 
 	/**
@@ -18,9 +18,13 @@
 package boa.functions;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import com.google.protobuf.CodedInputStream;
@@ -69,7 +73,7 @@ import boa.types.Toplevel.Project;
 public class BoaAstIntrinsics {
 	@SuppressWarnings("rawtypes")
 	static Context context;
-	private static MapFile.Reader map, commentsMap, issuesMap;
+	private static volatile MapFile.Reader map, commentsMap, issuesMap;
 
 	private static final Revision emptyRevision;
 	static {
@@ -83,7 +87,36 @@ public class BoaAstIntrinsics {
 		emptyRevision = rb.build();
 	}
 	
-	private static MapFile.Reader commitMap;
+	private static volatile MapFile.Reader commitMap;
+
+	/**
+	 * The configuration key for the bytes of heap that cached ASTs may use,
+	 * as estimated by {@link MessageCache}.  Defaults to a tenth of the
+	 * maximum heap, and 0 turns the cache off.
+	 */
+	public static final String AST_CACHE_SIZE = "boa.ast.cache.size";
+
+	/**
+	 * The configuration key for the bytes of heap that cached revisions may
+	 * use, as estimated by {@link MessageCache}.  Defaults to a fortieth of
+	 * the maximum heap, and 0 turns the cache off.
+	 */
+	public static final String COMMIT_CACHE_SIZE = "boa.commit.cache.size";
+
+	private static final long DEFAULT_AST_CACHE_SIZE = Runtime.getRuntime().maxMemory() / 10;
+	private static final long DEFAULT_COMMIT_CACHE_SIZE = Runtime.getRuntime().maxMemory() / 40;
+
+	/**
+	 * The configuration key for the stores the compiler found the query reads.
+	 * Readers are opened on first use, so the other stores are never opened.
+	 */
+	public static final String STORES = "boa.stores";
+
+	// the stores the query was found to read, or null if not known
+	private static Set<String> stores;
+
+	private static final MessageCache<ASTRoot> astCache = new MessageCache<ASTRoot>(DEFAULT_AST_CACHE_SIZE);
+	private static final MessageCache<Revision> commitCache = new MessageCache<Revision>(DEFAULT_COMMIT_CACHE_SIZE);
 
 	public static enum COMMITCOUNTER {
 		GETS_ATTEMPTED,
@@ -92,6 +125,16 @@ public class BoaAstIntrinsics {
 		GETS_FAIL_MISSING,
 		GETS_FAIL_BADPROTOBUF,
 		GETS_FAIL_BADLOC,
+		CACHE_HITS,
+		CACHE_MISSES,
+	};
+
+	// stores opened that the compiler did not expect the query to read
+	public static enum STORECOUNTER {
+		UNPROFILED_AST,
+		UNPROFILED_COMMENTS,
+		UNPROFILED_ISSUES,
+		UNPROFILED_COMMIT,
 	};
 
 	public static enum ASTCOUNTER {
@@ -101,6 +144,8 @@ public class BoaAstIntrinsics {
 		GETS_FAIL_MISSING,
 		GETS_FAIL_BADPROTOBUF,
 		GETS_FAIL_BADLOC,
+		CACHE_HITS,
+		CACHE_MISSES,
 	};
 
 	@FunctionSpec(name = "url", returnType = "string", formalParameters = { "ChangedFile" })
@@ -126,6 +171,14 @@ public class BoaAstIntrinsics {
 
 		context.getCounter(ASTCOUNTER.GETS_ATTEMPTED).increment(1);
 
+		final ASTRoot cached = astCache.get(f.getKey());
+		if (cached != null) {
+			context.getCounter(ASTCOUNTER.CACHE_HITS).increment(1);
+			context.getCounter(ASTCOUNTER.GETS_SUCCEED).increment(1);
+			return cached;
+		}
+		context.getCounter(ASTCOUNTER.CACHE_MISSES).increment(1);
+
 		if (map == null)
 			openMap();
 
@@ -138,6 +191,7 @@ public class BoaAstIntrinsics {
 				// defaults to 64, really big ASTs require more
 				_stream.setRecursionLimit(Integer.MAX_VALUE);
 				final ASTRoot root = ASTRoot.parseFrom(_stream);
+				astCache.put(f.getKey(), root, value.getLength());
 				context.getCounter(ASTCOUNTER.GETS_SUCCEED).increment(1);
 				return root;
 			}
@@ -160,10 +214,44 @@ public class BoaAstIntrinsics {
 		return emptyAst;
 	}
 
+	/**
+	 * Given some ChangedFiles, return the AST for each file at its revision.
+	 * The ASTs are read in key order, so the map is scanned forward instead
+	 * of seeking back and forth.
+	 *
+	 * @param files the ChangedFiles to get snapshots of the ASTs for
+	 * @return the ASTs, in the same order as the files, with an empty AST for any error
+	 */
+	@FunctionSpec(name = "getasts", returnType = "array of ASTRoot", formalParameters = { "array of ChangedFile" })
+	public static ASTRoot[] getasts(final ChangedFile[] files) {
+		final Integer[] order = new Integer[files.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				return Long.compare(files[a].getKey(), files[b].getKey());
+			}
+		});
+
+		final ASTRoot[] asts = new ASTRoot[files.length];
+		for (final int i : order)
+			asts[i] = getast(files[i]);
+		return asts;
+	}
+
 	@SuppressWarnings("unchecked")
 	static Revision getRevision(long key) {
 		context.getCounter(COMMITCOUNTER.GETS_ATTEMPTED).increment(1);
-		
+
+		final Revision cached = commitCache.get(key);
+		if (cached != null) {
+			context.getCounter(COMMITCOUNTER.CACHE_HITS).increment(1);
+			context.getCounter(COMMITCOUNTER.GETS_SUCCEED).increment(1);
+			return cached;
+		}
+		context.getCounter(COMMITCOUNTER.CACHE_MISSES).increment(1);
+
 		if (commitMap == null)
 			openCommitMap();
 		
@@ -176,6 +264,7 @@ public class BoaAstIntrinsics {
 				// defaults to 64, really big ASTs require more
 				_stream.setRecursionLimit(Integer.MAX_VALUE);
 				final Revision root = Revision.parseFrom(_stream);
+				commitCache.put(key, root, value.getLength());
 				context.getCounter(COMMITCOUNTER.GETS_SUCCEED).increment(1);
 				return root;
 			}
@@ -276,9 +365,26 @@ public class BoaAstIntrinsics {
 	@SuppressWarnings("rawtypes")
 	public static void setup(final Context context) {
 		BoaAstIntrinsics.context = context;
+
+		final Configuration conf = context.getConfiguration();
+		astCache.setCapacity(conf.getLong(AST_CACHE_SIZE, DEFAULT_AST_CACHE_SIZE));
+		commitCache.setCapacity(conf.getLong(COMMIT_CACHE_SIZE, DEFAULT_COMMIT_CACHE_SIZE));
+		stores = conf.get(STORES) == null ? null : new HashSet<String>(conf.getStringCollection(STORES));
+	}
+
+	// count a store the compiler did not expect the query to read
+	@SuppressWarnings("unchecked")
+	private static void checkStore(final String store, final STORECOUNTER counter) {
+		if (stores != null && !stores.contains(store))
+			context.getCounter(counter).increment(1);
 	}
 
-	private static void openMap() {
+	private static synchronized void openMap() {
+		// another thread may have opened it meanwhile
+		if (map != null)
+			return;
+		checkStore("ast", STORECOUNTER.UNPROFILED_AST);
+
 		try {
 			final Configuration conf = context.getConfiguration();
 			final FileSystem fs;
@@ -302,7 +408,12 @@ public class BoaAstIntrinsics {
 		}
 	}
 
-	private static void openCommentMap() {
+	private static synchronized void openCommentMap() {
+		// another thread may have opened it meanwhile
+		if (commentsMap != null)
+			return;
+		checkStore("comments", STORECOUNTER.UNPROFILED_COMMENTS);
+
 		try {
 			final Configuration conf = context.getConfiguration();
 			final FileSystem fs;
@@ -326,7 +437,12 @@ public class BoaAstIntrinsics {
 		}
 	}
 
-	private static void openIssuesMap() {
+	private static synchronized void openIssuesMap() {
+		// another thread may have opened it meanwhile
+		if (issuesMap != null)
+			return;
+		checkStore("issues", STORECOUNTER.UNPROFILED_ISSUES);
+
 		try {
 			final Configuration conf = context.getConfiguration();
 			final FileSystem fs;
@@ -350,7 +466,12 @@ public class BoaAstIntrinsics {
 		}
 	}
 
-	private static void openCommitMap() {
+	private static synchronized void openCommitMap() {
+		// another thread may have opened it meanwhile
+		if (commitMap != null)
+			return;
+		checkStore("commit", STORECOUNTER.UNPROFILED_COMMIT);
+
 		try {
 			final Configuration conf = context.getConfiguration();
 			final FileSystem fs;
@@ -375,6 +496,8 @@ public class BoaAstIntrinsics {
 		closeCommentMap();
 		closeIssuesMap();
 		closeCommitMap();
+		astCache.clear();
+		commitCache.clear();
 	}
 
 	private static void closeMap() {
@@ -708,10 +831,10 @@ public class BoaAstIntrinsics {
 			return true;
 		}
 	}
-	private static AnnotationCollectingVisitor annotationCollectingVisitor = new AnnotationCollectingVisitor();
 
 	@FunctionSpec(name = "collect_annotations", returnType = "map[string] of int", formalParameters = { "ASTRoot", "map[string] of int" })
 	public static HashMap<String,Long> collect_annotations(final ASTRoot f, final HashMap<String,Long> map) throws Exception {
+		final AnnotationCollectingVisitor annotationCollectingVisitor = new AnnotationCollectingVisitor();
 		annotationCollectingVisitor.initialize(map).visit(f);
 		return annotationCollectingVisitor.map;
 	}
@@ -734,10 +857,10 @@ public class BoaAstIntrinsics {
 			return true;
 		}
 	}
-	private static GenericsCollectingVisitor genericsCollectingVisitor = new GenericsCollectingVisitor();
 
 	@FunctionSpec(name = "collect_generic_types", returnType = "map[string] of int", formalParameters = { "ASTRoot", "map[string] of int" })
 	public static HashMap<String,Long> collect_generic_types(final ASTRoot f, final HashMap<String,Long> map) throws Exception {
+		final GenericsCollectingVisitor genericsCollectingVisitor = new GenericsCollectingVisitor();
 		genericsCollectingVisitor.initialize(map).visit(f);
 		return genericsCollectingVisitor.map;
 	}
@@ -818,13 +941,22 @@ public class BoaAstIntrinsics {
 		counts.put(rawType, rawCount + 1);
 	}
 
-	static int indent = 0;
+	// the indentation depth of each thread's pretty printing
+	private static final ThreadLocal<int[]> indent = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
 	private static String indent() {
 		String s = "";
-		for (int i = 0; i < indent; i++)
+		for (int i = 0; i < indent.get()[0]; i++)
 			s += "\t";
 		return s;
 	}
+	private static void indent(final int delta) {
+		indent.get()[0] += delta;
+	}
 
 	@FunctionSpec(name = "prettyprint", returnType = "string", formalParameters = { "ASTRoot" })
 	public static String prettyprint(final ASTRoot r) {
@@ -940,7 +1072,7 @@ public class BoaAstIntrinsics {
 
 		s += " {\n";
 
-		indent++;
+		indent(1);
 		for (int i = 0; i < d.getFieldsCount(); i++) {
 			s += indent() + prettyprint(d.getFieldsList().get(i));
 			s += (!d.getFieldsList().get(i).hasVariableType() 
@@ -952,7 +1084,7 @@ public class BoaAstIntrinsics {
 		for (final Declaration d2 : d.getNestedDeclarationsList())
 			s += prettyprint(d2);
 
-		indent--;
+		indent(-1);
 
 		s += indent() + "}\n";
 
@@ -1045,10 +1177,10 @@ public class BoaAstIntrinsics {
 
 			case BLOCK:
 				s += "{\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "}";
 				return s;
 
@@ -1096,10 +1228,10 @@ public class BoaAstIntrinsics {
 
 			case SYNCHRONIZED:
 				s += "synchronized () {\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += "}";
 				return s;
 
@@ -1107,19 +1239,19 @@ public class BoaAstIntrinsics {
 				s += indent() + "catch (";
 				s += prettyprint(stmt.getVariableDeclaration());
 				s += ") {\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "}";
 				return s;
 
 			case FINALLY:
 				s += indent() + "finally {\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "}";
 				return s;
 
@@ -1158,9 +1290,9 @@ public class BoaAstIntrinsics {
 					}
 				}
 				s += ")\n";
-				indent++;
+				indent(1);
 				s += indent() + prettyprint(stmt.getStatements(0)) + "\n";
-				indent--;
+				indent(-1);
 				return s;
 				
 			case FOREACH:
@@ -1171,41 +1303,41 @@ public class BoaAstIntrinsics {
 
 			case DO:
 				s += "do\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "while (" + prettyprint(stmt.getConditions(0)) + ");";
 				return s;
 
 			case WHILE:
 				s += "while (" + prettyprint(stmt.getConditions(0)) + ") {\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "}";
 				return s;
 
 			case IF:
 				s += "if (" + prettyprint(stmt.getConditions(0)) + ")\n";
-				indent++;
+				indent(1);
 				s += indent() + prettyprint(stmt.getStatements(0)) + "\n";
-				indent--;
+				indent(-1);
 				if (stmt.getStatementsCount() > 1) {
 					s += indent() + "else\n";
-					indent++;
+					indent(1);
 					s += indent() + prettyprint(stmt.getStatements(1)) + "\n";
-					indent--;
+					indent(-1);
 				}
 				return s;
 
 			case SWITCH:
 				s += "switch (" + prettyprint(stmt.getExpressions(0)) + ") {\n";
-				indent++;
+				indent(1);
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent(-1);
 				s += indent() + "}";
 				return s;
 
@@ -121,9 +121,11 @@ public class BoaCasts {
 	 * @return A {@link String} containing the number <em>d</em>
 	 */
 	public static String doubleToString(final double d) {
-		df.setMaximumFractionDigits(340); // value in private field: DecimalFormat.DOUBLE_FRACTION_DIGITS
-		df.setMinimumFractionDigits(1);
-		return df.format(d);
+		synchronized (df) {
+			df.setMaximumFractionDigits(340); // value in private field: DecimalFormat.DOUBLE_FRACTION_DIGITS
+			df.setMinimumFractionDigits(1);
+			return df.format(d);
+		}
 	}
 
 	/**
@@ -135,9 +137,11 @@ public class BoaCasts {
 	 * @return A {@link String} containing the number <em>l</em>
 	 */
 	public static String longToString(final long l) {
-		df.setMaximumFractionDigits(0);
-		df.setMinimumFractionDigits(0);
-		return df.format(l);
+		synchronized (df) {
+			df.setMaximumFractionDigits(0);
+			df.setMinimumFractionDigits(0);
+			return df.format(l);
+		}
 	}
 
 	/**
@@ -19,6 +19,8 @@ package boa.functions;
 
 import java.util.*;
 
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
 import boa.graphs.cdg.CDG;
 import boa.graphs.cfg.CFG;
 import boa.graphs.ddg.DDG;
@@ -43,19 +45,77 @@ import boa.runtime.BoaAbstractTraversal;
  * @author marafat
  */
 public class BoaGraphIntrinsics {
+	@SuppressWarnings("rawtypes")
+	private static Context context;
+
+	/**
+	 * The configuration key for the maximum number of CFG nodes of the methods
+	 * whose graphs are kept in memory.
+	 */
+	public static final String GRAPH_CACHE_SIZE = "boa.graph.cache.size";
+
+	private static final long DEFAULT_GRAPH_CACHE_SIZE = 100000;
+
+	private static final GraphCache graphCache = new GraphCache(DEFAULT_GRAPH_CACHE_SIZE);
+
+	public static enum GRAPHCOUNTER {
+		CACHE_HITS,
+		CACHE_MISSES,
+	};
+
+	@SuppressWarnings("rawtypes")
+	public static void setup(final Context context) {
+		BoaGraphIntrinsics.context = context;
+		graphCache.setCapacity(context.getConfiguration().getLong(GRAPH_CACHE_SIZE, DEFAULT_GRAPH_CACHE_SIZE));
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static void cleanup(final Context context) {
+		graphCache.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void count(final boolean hit) {
+		if (context != null)
+			context.getCounter(hit ? GRAPHCOUNTER.CACHE_HITS : GRAPHCOUNTER.CACHE_MISSES).increment(1);
+	}
+
+	private static GraphCache.Graphs graphs(final Method method, final boolean paramAsStatement) {
+		final GraphCache.Graphs graphs = graphCache.get(method, paramAsStatement);
+		if (graphs != null)
+			return graphs;
+		return graphCache.put(method, paramAsStatement, new CFG(method, paramAsStatement).get());
+	}
+
 	@FunctionSpec(name = "getcfg", returnType = "CFG", formalParameters = { "Method" })
 	public static CFG getcfg(final Method method) {
-		return new CFG(method).get();
+		final GraphCache.Graphs graphs = graphCache.get(method, false);
+		count(graphs != null);
+		if (graphs != null)
+			return graphs.cfg;
+		return graphCache.put(method, false, new CFG(method).get()).cfg;
 	}
 
 	@FunctionSpec(name = "getpdtree", returnType = "PDTree", formalParameters = { "Method" })
 	public static PDTree getpdtree(final Method method) throws Exception {
-		return new PDTree(method);
+		final GraphCache.Graphs graphs = graphs(method, false);
+		synchronized (graphs) {
+			count(graphs.pdtree != null);
+			if (graphs.pdtree == null)
+				graphs.pdtree = new PDTree(graphs.cfg);
+			return graphs.pdtree;
+		}
 	}
 
 	@FunctionSpec(name = "getcdg", returnType = "CDG", formalParameters = { "Method" })
 	public static CDG getcdg(final Method method) throws Exception {
-		return new CDG(method);
+		final GraphCache.Graphs graphs = graphs(method, false);
+		synchronized (graphs) {
+			count(graphs.cdg != null);
+			if (graphs.cdg == null)
+				graphs.cdg = new CDG(graphs.cfg);
+			return graphs.cdg;
+		}
 	}
 
 	@FunctionSpec(name = "getcdg", returnType = "CDG", formalParameters = { "CFG" })
@@ -65,7 +125,13 @@ public class BoaGraphIntrinsics {
 
 	@FunctionSpec(name = "getddg", returnType = "DDG", formalParameters = { "Method" })
 	public static DDG getddg(final Method method) throws Exception {
-		return new DDG(method);
+		final GraphCache.Graphs graphs = graphs(method, false);
+		synchronized (graphs) {
+			count(graphs.ddg != null);
+			if (graphs.ddg == null)
+				graphs.ddg = new DDG(graphs.cfg);
+			return graphs.ddg;
+		}
 	}
 
 	@FunctionSpec(name = "getddg", returnType = "DDG", formalParameters = { "CFG" })
@@ -75,21 +141,35 @@ public class BoaGraphIntrinsics {
 
 	@FunctionSpec(name = "getpdg", returnType = "PDG", formalParameters = { "Method" })
 	public static PDG getpdg(final Method method) throws Exception {
-		return new PDG(method);
+		return getpdg(method, false);
 	}
 
 	@FunctionSpec(name = "getpdg", returnType = "PDG", formalParameters = { "Method", "bool" })
 	public static PDG getpdg(final Method method, boolean paramAsStatement) throws Exception {
-		return new PDG(method, paramAsStatement);
+		final GraphCache.Graphs graphs = graphs(method, paramAsStatement);
+		synchronized (graphs) {
+			count(graphs.pdg != null);
+			if (graphs.pdg == null) {
+				// reuse the method's CDG and DDG if they were already built
+				if (!paramAsStatement && graphs.cdg != null && graphs.ddg != null)
+					graphs.pdg = new PDG(graphs.cdg, graphs.ddg);
+				else
+					graphs.pdg = new PDG(graphs.cfg);
+			}
+			return graphs.pdg;
+		}
 	}
 
 	@FunctionSpec(name = "getcfgslice", returnType = "CFGSlicer", formalParameters = { "Method", "int" })
 	public static CFGSlicer getcfgslice(final Method method, Long id) throws Exception {
-		return new CFGSlicer(method, (int)(long) id);
+		return new CFGSlicer(graphs(method, true).cfg, (int)(long) id);
 	}
 
 	@FunctionSpec(name = "getpdgslice", returnType = "PDGSlicer", formalParameters = { "PDG",  "int", "bool" })
 	public static PDGSlicer getpdgslice(final PDG pdg, Long id, boolean normalize) throws Exception {
+		// normalizing renames variables in the PDG itself
+		if (normalize)
+			graphCache.removePdg(pdg);
 		return new PDGSlicer(pdg, (int)(long) id, normalize);
 	}
 
@@ -25,7 +25,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import boa.types.Code.CodeRepository;
@@ -47,11 +46,11 @@ public class BoaIntrinsics {
 		//"\\b(bug|issue|fix)\\b\\s*id(s)?\\s*(=)?\\s*[0-9]+"
 	};
 
-	private final static List<Matcher> fixingMatchers = new ArrayList<Matcher>();
+	private final static List<Pattern> fixingPatterns = new ArrayList<Pattern>();
 
 	static {
 		for (final String s : fixingRegex)
-			fixingMatchers.add(Pattern.compile(s).matcher(""));
+			fixingPatterns.add(Pattern.compile(s));
 	}
 
 	private static int getRevisionIndex(final CodeRepository cr, final long timestamp) {
@@ -116,6 +115,9 @@ public class BoaIntrinsics {
 	public static ChangedFile[] getSnapshotByIndex(final CodeRepository cr, final long commitOffset, final String... kinds) {
 		if (commitOffset == cr.getHead())
 			return getSnapshot(cr, kinds);
+		final SnapshotIndex index = SnapshotIndex.get(cr);
+		if (index != null)
+			return index.getSnapshot(null, (int) commitOffset, kinds);
 		List<ChangedFile> snapshot = new LinkedList<ChangedFile>();
 		Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
 		PriorityQueue<Integer> pq = new PriorityQueue<Integer>(100, new Comparator<Integer>() {
@@ -142,6 +144,9 @@ public class BoaIntrinsics {
 
 	@FunctionSpec(name = "getsnapshot", returnType = "array of ChangedFile", formalParameters = { "CodeRepository", "Revision", "string..." })
 	public static ChangedFile[] getSnapshot(final CodeRepository cr, final Revision commit, final String... kinds) {
+		final SnapshotIndex index = SnapshotIndex.get(cr);
+		if (index != null)
+			return index.getSnapshot(commit, commit.getParentsCount() > 0 ? commit.getParents(0) : -1, kinds);
 		List<ChangedFile> snapshot = new LinkedList<ChangedFile>();
 		Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
 		PriorityQueue<Integer> pq = new PriorityQueue<Integer>(100, new Comparator<Integer>() {
@@ -162,6 +167,23 @@ public class BoaIntrinsics {
 
 	private static void update(List<ChangedFile> snapshot, Revision commit, Set<String> adds, Set<String> dels,
 			PriorityQueue<Integer> pq, Set<Integer> queuedCommitIds, final String... kinds) {
+		update(snapshot, commit, adds, dels, kinds);
+		// git system only consider diffs from the first parent
+		if (commit.getParentsList() != null && commit.getParentsList().size() != 0) {
+			int p = commit.getParentsList().get(0);
+			if (!queuedCommitIds.contains(p)) {
+				pq.offer(p);
+				queuedCommitIds.add(p);
+			}
+		}
+	}
+
+	/**
+	 * Add the files of a commit to a snapshot being built from newer commits
+	 * to older ones.  The first change seen to a file decides whether it is
+	 * in the snapshot.
+	 */
+	static void update(List<ChangedFile> snapshot, Revision commit, Set<String> adds, Set<String> dels, final String... kinds) {
 		for (final ChangedFile cf : commit.getFilesList()) {
 			ChangeKind ck = cf.getChange();
 			switch (ck) {
@@ -229,17 +251,9 @@ public class BoaIntrinsics {
 				break;
 			}
 		}
-		// git system only consider diffs from the first parent
-		if (commit.getParentsList() != null && commit.getParentsList().size() != 0) {
-			int p = commit.getParentsList().get(0);
-			if (!queuedCommitIds.contains(p)) {
-				pq.offer(p);
-				queuedCommitIds.add(p);
-			}
-		}
 	}
 
-	private static boolean isIncluded(ChangedFile cf, String[] kinds) {
+	static boolean isIncluded(ChangedFile cf, String[] kinds) {
 		if (kinds == null || kinds.length == 0)
 			return true;
 		final String kindName = cf.getKind().name();
@@ -353,8 +367,8 @@ public class BoaIntrinsics {
 	@FunctionSpec(name = "isfixingrevision", returnType = "bool", formalParameters = { "string" })
 	public static boolean isfixingrevision(final String log) {
 		final String lower = log.toLowerCase();
-		for (final Matcher m : fixingMatchers)
-			if (m.reset(lower).find())
+		for (final Pattern p : fixingPatterns)
+			if (p.matcher(lower).find())
 				return true;
 
 		return false;
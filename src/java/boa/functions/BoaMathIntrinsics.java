@@ -28,7 +28,23 @@ import java.util.Random;
  * @author anthonyu
  */
 public class BoaMathIntrinsics {
-	public static Random random = new Random();
+	// each thread mapping records draws from its own generator
+	private static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+		@Override
+		protected Random initialValue() {
+			return new Random();
+		}
+	};
+
+	/**
+	 * Reset the random numbers drawn by the current thread.
+	 * 
+	 * @param seed
+	 *            A long to seed the generator with
+	 */
+	public static void seed(final long seed) {
+		BoaMathIntrinsics.random.set(new Random(seed));
+	}
 
 	/**
 	 * Return a random floating point number x in the range 0.0 &lt; x &lt; 1.0.
@@ -37,7 +53,7 @@ public class BoaMathIntrinsics {
 	 */
 	@FunctionSpec(name = "rand", returnType = "float")
 	public static double rand() {
-		return BoaMathIntrinsics.random.nextDouble();
+		return BoaMathIntrinsics.random.get().nextDouble();
 	}
 
 	/**
@@ -56,7 +72,7 @@ public class BoaMathIntrinsics {
 		if (n < 1)
 			throw new IllegalArgumentException("n must be greater than zero");
 
-		return (long) (BoaMathIntrinsics.random.nextDouble() * n);
+		return (long) (BoaMathIntrinsics.random.get().nextDouble() * n);
 	}
 
 	/**
@@ -38,7 +38,6 @@ public class BoaMetricIntrinsics {
 			return true;
 		}
 	}
-	private static BoaNOAVisitor noaVisitor = new BoaNOAVisitor();
 
 	/**
 	 * Computes the Number of Attributes (NOA) metric for a node.
@@ -48,6 +47,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noa", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNOA(final Declaration node) throws Exception {
+		final BoaNOAVisitor noaVisitor = new BoaNOAVisitor();
 		noaVisitor.initialize().visit(node);
 		return noaVisitor.count;
 	}
@@ -64,7 +64,6 @@ public class BoaMetricIntrinsics {
     		return true;
 		}
 	}
-	private static BoaNOOVisitor nooVisitor = new BoaNOOVisitor();
 
 	/**
 	 * Computes the Number of Operations (NOO) metric for a node.
@@ -74,6 +73,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noo", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNOO(final Declaration node) throws Exception {
+		final BoaNOOVisitor nooVisitor = new BoaNOOVisitor();
 		nooVisitor.initialize().visit(node);
 		return nooVisitor.count;
 	}
@@ -90,7 +90,6 @@ public class BoaMetricIntrinsics {
     		return true;
 		}
 	}
-	private static BoaNPMVisitor npmVisitor = new BoaNPMVisitor();
 
 	/**
 	 * Computes the Number of Public Methods (NPM) metric for a node.
@@ -100,6 +99,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_npm", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNPM(final Declaration node) throws Exception {
+		final BoaNPMVisitor npmVisitor = new BoaNPMVisitor();
 		npmVisitor.initialize().visit(node);
 		return npmVisitor.count;
 	}
@@ -125,7 +125,6 @@ public class BoaMetricIntrinsics {
 			return super.preVisit(node);
 		}
 	}
-	private static BoaNOCVisitor nocVisitor = new BoaNOCVisitor();
 
 	/**
 	 * (Partially) Computes the Number of Children (NOC) metric.
@@ -135,6 +134,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noc", returnType = "map[string] of int", formalParameters = { "ASTRoot" })
 	public static HashMap<String,Long> getMetricNOC(final ASTRoot node) throws Exception {
+		final BoaNOCVisitor nocVisitor = new BoaNOCVisitor();
 		nocVisitor.initialize(new HashMap<String,Long>()).visit(node);
 		return nocVisitor.map;
 	}
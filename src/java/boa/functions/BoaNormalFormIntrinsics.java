@@ -2941,7 +2941,7 @@ public class BoaNormalFormIntrinsics {
 				sb.append(prettyprint(node.getExpr()));
 			visited.add(node);
 
-			for (final PDGNode succ : node.getSuccessors()) {
+			for (final PDGNode succ : node.getSuccessorsList()) {
 				final List<PDGEdge> edges = node.getOutEdges(succ);
 				for (PDGEdge e: edges)
 					sb.append(e.getKind()).append(e.getLabel());
@@ -16,11 +16,11 @@
  */
 package boa.functions;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
 /**
  * String Manipulation
  * 
@@ -28,6 +28,33 @@ import java.util.regex.Pattern;
  * @author rdyer
  */
 public class BoaStringIntrinsics {
+	/**
+	 * The configuration key for the maximum number of compiled regular
+	 * expressions kept in memory.
+	 */
+	public static final String REGEX_CACHE_SIZE = "boa.regex.cache.size";
+
+	private static final int DEFAULT_REGEX_CACHE_SIZE = 1024;
+
+	// cache the regular expression patterns for performance
+	private static final PatternCache patternCache = new PatternCache(DEFAULT_REGEX_CACHE_SIZE);
+
+	public static enum REGEXCOUNTER {
+		CACHE_HITS,
+		CACHE_MISSES,
+	};
+
+	@SuppressWarnings("rawtypes")
+	public static void setup(final Context context) {
+		patternCache.setCapacity(context.getConfiguration().getInt(REGEX_CACHE_SIZE, DEFAULT_REGEX_CACHE_SIZE));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void cleanup(final Context context) {
+		context.getCounter(REGEXCOUNTER.CACHE_HITS).increment(patternCache.takeHits());
+		context.getCounter(REGEXCOUNTER.CACHE_MISSES).increment(patternCache.takeMisses());
+	}
+
 	/**
 	 * Returns a copy of the given {@link String} with all leading and trailing whitespace removed.
 	 * 
@@ -146,7 +173,9 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "split", returnType = "array of string", formalParameters = { "string", "string"})
 	public static String[] split(final String str, final String regex) {
-		return str.split(regex, 1);
+		if (isLiteralChar(regex))
+			return str.split(regex, 1);
+		return patternCache.getPattern(regex).split(str, 1);
 	}
 
 	/**
@@ -160,7 +189,9 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "splitn", returnType = "array of string", formalParameters = { "string", "string", "int"})
 	public static String[] splitn(final String str, final String regex, final long n) {
-		return str.split(regex, (int)n);
+		if (isLiteralChar(regex))
+			return str.split(regex, (int)n);
+		return patternCache.getPattern(regex).split(str, (int)n);
 	}
 
 	/**
@@ -173,7 +204,15 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "splitall", returnType = "array of string", formalParameters = { "string", "string"})
 	public static String[] splitall(final String str, final String regex) {
-		return str.split(regex);
+		if (isLiteralChar(regex))
+			return str.split(regex);
+		return patternCache.getPattern(regex).split(str);
+	}
+
+	// String.split splits on a single character that is not a regex
+	// metacharacter without compiling a pattern at all
+	private static boolean isLiteralChar(final String regex) {
+		return regex.length() == 1 && ".$|()[{^?*+\\".indexOf(regex.charAt(0)) < 0;
 	}
 
 	/**
@@ -202,16 +241,7 @@ public class BoaStringIntrinsics {
 		if (replaceAll)
 			return str.replace(lit, rep);
 		else
-			return str.replaceFirst(Pattern.quote(lit), rep);
-	}
-
-	// cache the regular expression patterns for performance
-	private static Map<String, Matcher> matchers = new HashMap<String, Matcher>();
-
-	private static Matcher getMatcher(final String r) {
-		if (!matchers.containsKey(r))
-			matchers.put(r, Pattern.compile(r).matcher(""));
-		return matchers.get(r);
+			return patternCache.getMatcher(Pattern.quote(lit)).reset(str).replaceFirst(rep);
 	}
 
 	/**
@@ -230,7 +260,7 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "match", returnType = "bool", formalParameters = { "string", "string" })
 	public static boolean match(final String r, final String s) {
-		final Matcher m = getMatcher(r).reset(s);
+		final Matcher m = patternCache.getMatcher(r).reset(s);
 		return m.find();
 	}
 
@@ -252,7 +282,7 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "matchposns", returnType = "array of int", formalParameters = { "string", "string" })
 	public static long[] matchPositions(final String r, final String s) {
-		final Matcher m = getMatcher(r).reset(s);
+		final Matcher m = patternCache.getMatcher(r).reset(s);
 
 		if (!m.find())
 			return new long[0];
@@ -288,7 +318,7 @@ public class BoaStringIntrinsics {
 	 */
 	@FunctionSpec(name = "matchstrs", returnType = "array of string", formalParameters = { "string", "string" })
 	public static String[] matchStrings(final String r, final String s) {
-		final Matcher m = getMatcher(r).reset(s);
+		final Matcher m = patternCache.getMatcher(r).reset(s);
 
 		if (!m.find())
 			return new String[0];
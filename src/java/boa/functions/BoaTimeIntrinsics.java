@@ -853,8 +853,10 @@ public class BoaTimeIntrinsics {
 				if (inEscape) {
 					if (BoaTimeIntrinsics.strftimeMap.containsKey(Character.valueOf(c))) {
 						final SimpleDateFormat simpleDateFormat = BoaTimeIntrinsics.strftimeMap.get(Character.valueOf(c));
-						simpleDateFormat.setTimeZone(tz);
-						sb.append(simpleDateFormat.format(calendar.getTime()));
+						synchronized (simpleDateFormat) {
+							simpleDateFormat.setTimeZone(tz);
+							sb.append(simpleDateFormat.format(calendar.getTime()));
+						}
 					} else {
 						throw new RuntimeException("invalid escape string: %" + c);
 					}
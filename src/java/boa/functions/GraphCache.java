@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import boa.graphs.cdg.CDG;
+import boa.graphs.cfg.CFG;
+import boa.graphs.ddg.DDG;
+import boa.graphs.pdg.PDG;
+import boa.graphs.trees.PDTree;
+import boa.types.Ast.Method;
+
+/**
+ * A least-recently-used cache of the graphs built for each method, bounded
+ * by the number of CFG nodes of the methods it holds.
+ *
+ * Methods are compared by identity, so a method is only found again if the
+ * same decoded AST is used, as it is when ASTs come from the AST cache.
+ *
+ * @author agent
+ */
+public class GraphCache {
+	/**
+	 * The graphs of one method.  The CFG is always built, and graphs derived
+	 * from it are filled in as they are asked for, while holding the lock on
+	 * this object.
+	 */
+	public static class Graphs {
+		final CFG cfg;
+		CDG cdg;
+		DDG ddg;
+		PDG pdg;
+		PDTree pdtree;
+
+		Graphs(final CFG cfg) {
+			this.cfg = cfg;
+		}
+	}
+
+	private static class Key {
+		private final Method method;
+		private final boolean paramAsStatement;
+
+		Key(final Method method, final boolean paramAsStatement) {
+			this.method = method;
+			this.paramAsStatement = paramAsStatement;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Key))
+				return false;
+			final Key k = (Key) o;
+			return this.method == k.method && this.paramAsStatement == k.paramAsStatement;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.method) * 31 + (this.paramAsStatement ? 1 : 0);
+		}
+	}
+
+	private final Map<Key, Graphs> entries = new LinkedHashMap<Key, Graphs>(16, 0.75f, true);
+	private long capacity;
+	private long size;
+
+	/**
+	 * Construct a {@link GraphCache}.
+	 *
+	 * @param capacity
+	 *            A long representing the maximum number of CFG nodes to hold
+	 */
+	public GraphCache(final long capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Change the capacity of the cache, evicting methods if needed.
+	 *
+	 * @param capacity
+	 *            A long representing the maximum number of CFG nodes to hold
+	 */
+	public synchronized void setCapacity(final long capacity) {
+		this.capacity = capacity;
+		this.evict(0);
+	}
+
+	/**
+	 * Look up the graphs of a method, marking them as recently used.
+	 *
+	 * @param method
+	 *            The {@link Method}
+	 *
+	 * @param paramAsStatement
+	 *            A boolean, true if the CFG treats parameters as statements
+	 *
+	 * @return The graphs, or null if they are not cached
+	 */
+	public synchronized Graphs get(final Method method, final boolean paramAsStatement) {
+		return this.entries.get(new Key(method, paramAsStatement));
+	}
+
+	/**
+	 * Add the CFG of a method, evicting the least recently used methods to
+	 * make room.  If the method was added meanwhile, its graphs are kept.
+	 *
+	 * @param method
+	 *            The {@link Method}
+	 *
+	 * @param paramAsStatement
+	 *            A boolean, true if the CFG treats parameters as statements
+	 *
+	 * @param cfg
+	 *            The {@link CFG} built for the method
+	 *
+	 * @return The graphs of the method
+	 */
+	public synchronized Graphs put(final Method method, final boolean paramAsStatement, final CFG cfg) {
+		final Key key = new Key(method, paramAsStatement);
+		final Graphs old = this.entries.get(key);
+		if (old != null)
+			return old;
+
+		final Graphs graphs = new Graphs(cfg);
+		final int size = weight(graphs);
+		if (size > this.capacity)
+			return graphs;
+
+		this.evict(size);
+		this.entries.put(key, graphs);
+		this.size += size;
+		return graphs;
+	}
+
+	/**
+	 * Forget a method's PDG, if it is the one given.
+	 *
+	 * @param pdg
+	 *            The {@link PDG} to forget
+	 */
+	public void removePdg(final PDG pdg) {
+		for (final boolean paramAsStatement : new boolean[] { false, true }) {
+			final Graphs graphs = this.get(pdg.getMethod(), paramAsStatement);
+			if (graphs != null)
+				synchronized (graphs) {
+					if (graphs.pdg == pdg)
+						graphs.pdg = null;
+				}
+		}
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.size = 0;
+	}
+
+	private static int weight(final Graphs graphs) {
+		return graphs.cfg.getNodes().size() + 1;
+	}
+
+	private void evict(final int needed) {
+		final Iterator<Graphs> i = this.entries.values().iterator();
+		while (this.size + needed > this.capacity && i.hasNext()) {
+			this.size -= weight(i.next());
+			i.remove();
+		}
+	}
+}
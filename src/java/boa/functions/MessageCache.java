@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.protobuf.Message;
+
+/**
+ * A least-recently-used cache of decoded protocol buffer messages, bounded
+ * by an estimate of the heap the messages use.
+ *
+ * A decoded message takes far more heap than its serialized form, as every
+ * message, repeated field and string in it is an object of its own.  Each
+ * message is charged {@link #DECODED_BYTES_PER_BYTE} times its serialized
+ * size.
+ *
+ * @author agent
+ */
+public class MessageCache<T extends Message> {
+	/**
+	 * The estimated bytes of heap a decoded message uses per byte of its
+	 * serialized form.  ASTs take about 19 on a 64-bit JVM.
+	 */
+	public static final int DECODED_BYTES_PER_BYTE = 20;
+
+	private static class Entry<T> {
+		private final T value;
+		private final long size;
+
+		Entry(final T value, final long size) {
+			this.value = value;
+			this.size = size;
+		}
+	}
+
+	private final Map<Long, Entry<T>> entries = new LinkedHashMap<Long, Entry<T>>(16, 0.75f, true);
+	private long capacity;
+	private long size;
+
+	/**
+	 * Construct a {@link MessageCache}.
+	 *
+	 * @param capacity
+	 *            A long representing the estimated bytes of heap the messages may use
+	 */
+	public MessageCache(final long capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Change the capacity of the cache, evicting messages if needed.
+	 *
+	 * @param capacity
+	 *            A long representing the estimated bytes of heap the messages may use
+	 */
+	public synchronized void setCapacity(final long capacity) {
+		this.capacity = capacity;
+		this.evict(0);
+	}
+
+	/**
+	 * Look up a message, marking it as recently used.
+	 *
+	 * @param key
+	 *            A long containing the key of the message
+	 *
+	 * @return The message, or null if it is not cached
+	 */
+	public synchronized T get(final long key) {
+		final Entry<T> e = this.entries.get(key);
+		return e == null ? null : e.value;
+	}
+
+	/**
+	 * Add a message to the cache, evicting the least recently used messages
+	 * to make room.  Messages estimated to be larger than the whole cache
+	 * are not kept.
+	 *
+	 * @param key
+	 *            A long containing the key of the message
+	 *
+	 * @param value
+	 *            The decoded message
+	 *
+	 * @param serializedSize
+	 *            An int representing the serialized size of the message
+	 */
+	public synchronized void put(final long key, final T value, final int serializedSize) {
+		final long size = (long) serializedSize * DECODED_BYTES_PER_BYTE;
+		if (size > this.capacity)
+			return;
+
+		final Entry<T> old = this.entries.remove(key);
+		if (old != null)
+			this.size -= old.size;
+
+		this.evict(size);
+		this.entries.put(key, new Entry<T>(value, size));
+		this.size += size;
+	}
+
+	/**
+	 * Remove all the messages, so they can be garbage collected once the
+	 * task is done with them.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.size = 0;
+	}
+
+	private void evict(final long needed) {
+		final Iterator<Entry<T>> i = this.entries.values().iterator();
+		while (this.size + needed > this.capacity && i.hasNext()) {
+			this.size -= i.next().size;
+			i.remove();
+		}
+	}
+}
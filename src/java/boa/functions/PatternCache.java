@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A least-recently-used cache of compiled regular expressions, bounded by
+ * the number of patterns it holds.
+ *
+ * Matchers can not be shared between threads, so each thread keeps its own
+ * smaller cache of matchers for the patterns it used last.
+ *
+ * @author agent
+ */
+public class PatternCache {
+	private static final int MATCHERS = 64;
+
+	private static class LRU<V> extends LinkedHashMap<String, V> {
+		private static final long serialVersionUID = 1L;
+
+		private int capacity;
+
+		LRU(final int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+			return this.size() > this.capacity;
+		}
+	}
+
+	private final LRU<Pattern> patterns;
+
+	private final ThreadLocal<LRU<Matcher>> matchers = new ThreadLocal<LRU<Matcher>>() {
+		@Override
+		protected LRU<Matcher> initialValue() {
+			return new LRU<Matcher>(MATCHERS);
+		}
+	};
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct a {@link PatternCache}.
+	 *
+	 * @param capacity
+	 *            An int representing the maximum number of patterns to hold
+	 */
+	public PatternCache(final int capacity) {
+		this.patterns = new LRU<Pattern>(capacity);
+	}
+
+	/**
+	 * Change the capacity of the cache, evicting patterns if needed.
+	 *
+	 * @param capacity
+	 *            An int representing the maximum number of patterns to hold
+	 */
+	public synchronized void setCapacity(final int capacity) {
+		this.patterns.capacity = capacity;
+		while (this.patterns.size() > capacity)
+			this.patterns.remove(this.patterns.keySet().iterator().next());
+	}
+
+	/**
+	 * Compile a regular expression, or find it already compiled.
+	 *
+	 * @param regex
+	 *            A {@link String} containing the regular expression
+	 *
+	 * @return The compiled {@link Pattern}
+	 */
+	public Pattern getPattern(final String regex) {
+		synchronized (this) {
+			final Pattern p = this.patterns.get(regex);
+			if (p != null) {
+				this.hits.incrementAndGet();
+				return p;
+			}
+		}
+
+		this.misses.incrementAndGet();
+		final Pattern p = Pattern.compile(regex);
+		synchronized (this) {
+			this.patterns.put(regex, p);
+		}
+		return p;
+	}
+
+	/**
+	 * Find a matcher of a regular expression that only the calling thread
+	 * uses.  The matcher must be reset before use.
+	 *
+	 * @param regex
+	 *            A {@link String} containing the regular expression
+	 *
+	 * @return A {@link Matcher} of the compiled regular expression
+	 */
+	public Matcher getMatcher(final String regex) {
+		final LRU<Matcher> matchers = this.matchers.get();
+		Matcher m = matchers.get(regex);
+		if (m != null) {
+			this.hits.incrementAndGet();
+			return m;
+		}
+
+		m = this.getPattern(regex).matcher("");
+		matchers.put(regex, m);
+		return m;
+	}
+
+	/**
+	 * Take the number of lookups that found a compiled pattern since last
+	 * asked.
+	 */
+	public long takeHits() {
+		return this.hits.getAndSet(0);
+	}
+
+	/**
+	 * Take the number of lookups that compiled a pattern since last asked.
+	 */
+	public long takeMisses() {
+		return this.misses.getAndSet(0);
+	}
+}
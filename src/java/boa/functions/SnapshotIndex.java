@@ -0,0 +1,201 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import boa.types.Code.CodeRepository;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+
+/**
+ * An index of the snapshots of a repository, so snapshots of older commits
+ * do not replay the whole first-parent history.
+ *
+ * Commits whose first-parent depth is a multiple of the checkpoint interval
+ * keep the snapshot at that commit, built from the checkpoint below it.  A
+ * snapshot replays the commits down to the nearest checkpoint and adds the
+ * files of the checkpoint that those commits did not change.  The files are
+ * in the same order as when replaying the whole history.
+ *
+ * The index is built the second time in a row a thread asks for a snapshot
+ * of the same repository, so single snapshots cost no more than before.
+ *
+ * @author agent
+ */
+final class SnapshotIndex {
+	// repositories with fewer commits than this are not indexed
+	private static final int MIN_INTERVAL = 64;
+	// longer histories space their checkpoints farther apart
+	private static final int MAX_CHECKPOINTS = 64;
+
+	private static final String[] ALL_KINDS = new String[0];
+
+	// the repository each thread asked for a snapshot of last
+	private static final ThreadLocal<SnapshotIndex> last = new ThreadLocal<SnapshotIndex>();
+
+	/**
+	 * Find the snapshot index of a repository.
+	 *
+	 * @param cr the repository
+	 * @return the index, or null if snapshots should replay the history
+	 */
+	static SnapshotIndex get(final CodeRepository cr) {
+		if (BoaIntrinsics.getRevisionsCount(cr) <= MIN_INTERVAL)
+			return null;
+
+		final SnapshotIndex index = last.get();
+		if (index == null || index.cr != cr) {
+			last.set(new SnapshotIndex(cr));
+			return null;
+		}
+
+		return index.build() ? index : null;
+	}
+
+	private final CodeRepository cr;
+	private final Map<Integer, List<ChangedFile>> checkpoints = new HashMap<Integer, List<ChangedFile>>();
+	private boolean built = false;
+	private boolean valid = false;
+
+	// the first parent and first-parent depth of each commit
+	private int[] parents;
+	private int[] depths;
+	private int interval;
+
+	private SnapshotIndex(final CodeRepository cr) {
+		this.cr = cr;
+	}
+
+	private boolean build() {
+		if (this.built)
+			return this.valid;
+		this.built = true;
+
+		final int n = BoaIntrinsics.getRevisionsCount(this.cr);
+		this.parents = new int[n];
+		for (int i = 0; i < n; i++) {
+			final Revision r = BoaIntrinsics.getRevision(this.cr, i);
+			this.parents[i] = r.getParentsCount() > 0 ? r.getParents(0) : -1;
+			if (this.parents[i] < -1 || this.parents[i] >= n)
+				return false;
+		}
+
+		// -1 is not known yet, -2 is being found
+		this.depths = new int[n];
+		Arrays.fill(this.depths, -1);
+		final int[] path = new int[n];
+		int maxDepth = 0;
+		for (int i = 0; i < n; i++) {
+			int size = 0;
+			int c = i;
+			while (c >= 0 && this.depths[c] == -1) {
+				this.depths[c] = -2;
+				path[size++] = c;
+				c = this.parents[c];
+			}
+			if (c >= 0 && this.depths[c] == -2)
+				return false; // the first parents form a cycle
+
+			int depth = c < 0 ? -1 : this.depths[c];
+			while (size > 0)
+				this.depths[path[--size]] = ++depth;
+			maxDepth = Math.max(maxDepth, depth);
+		}
+
+		this.interval = Math.max(MIN_INTERVAL, maxDepth / MAX_CHECKPOINTS + 1);
+		this.valid = true;
+		return true;
+	}
+
+	/**
+	 * Get a snapshot of the repository.
+	 *
+	 * @param commit a commit to replay first, or null
+	 * @param offset the index of the newest commit in the snapshot, or -1
+	 * @param kinds the kinds of files to keep, or none for all files
+	 * @return the files in the snapshot
+	 */
+	ChangedFile[] getSnapshot(final Revision commit, final int offset, final String... kinds) {
+		final List<ChangedFile> snapshot = new ArrayList<ChangedFile>();
+		final Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
+
+		if (commit != null)
+			BoaIntrinsics.update(snapshot, commit, adds, dels, kinds);
+
+		int c = offset;
+		while (c >= 0 && !this.isCheckpoint(c)) {
+			BoaIntrinsics.update(snapshot, BoaIntrinsics.getRevision(this.cr, c), adds, dels, kinds);
+			c = this.parents[c];
+		}
+		if (c >= 0)
+			merge(snapshot, this.checkpoint(c), adds, dels, kinds);
+
+		return snapshot.toArray(new ChangedFile[snapshot.size()]);
+	}
+
+	private boolean isCheckpoint(final int c) {
+		return this.depths[c] % this.interval == 0;
+	}
+
+	private List<ChangedFile> checkpoint(final int c) {
+		// the checkpoints from here down that are not built yet, lowest on top
+		final Deque<Integer> pending = new ArrayDeque<Integer>();
+		for (int p = c; p >= 0 && !this.checkpoints.containsKey(p); p = this.below(p))
+			pending.push(p);
+
+		while (!pending.isEmpty()) {
+			final int p = pending.pop();
+			final List<ChangedFile> files = new ArrayList<ChangedFile>();
+			final Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
+
+			int q = p;
+			do {
+				BoaIntrinsics.update(files, BoaIntrinsics.getRevision(this.cr, q), adds, dels, ALL_KINDS);
+				q = this.parents[q];
+			} while (q >= 0 && !this.isCheckpoint(q));
+			if (q >= 0)
+				merge(files, this.checkpoints.get(q), adds, dels, ALL_KINDS);
+
+			this.checkpoints.put(p, files);
+		}
+
+		return this.checkpoints.get(c);
+	}
+
+	// the next checkpoint down the first parents of a commit
+	private int below(int c) {
+		do {
+			c = this.parents[c];
+		} while (c >= 0 && !this.isCheckpoint(c));
+		return c;
+	}
+
+	// add the files of a checkpoint not already decided by newer commits
+	private static void merge(final List<ChangedFile> snapshot, final List<ChangedFile> checkpoint, final Set<String> adds, final Set<String> dels, final String... kinds) {
+		for (final ChangedFile cf : checkpoint)
+			if (!adds.contains(cf.getName()) && !dels.contains(cf.getName()) && BoaIntrinsics.isIncluded(cf, kinds))
+				snapshot.add(cf);
+	}
+}
@@ -57,12 +57,13 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
 
 	@SuppressWarnings("unchecked")
 	public void setSrc(final N node) {
-		if (this.dest.getPredecessors().contains(node)) {
+		if (this.dest.getPredecessorsList().contains(node)) {
 			delete();
 			this.dest.getInEdge(node).setLabel(".");
 		} else {
 			this.src = node;
 			node.addOutEdge(this);
+			this.dest.resetAdjacency();
 		}
 	}
 
@@ -72,12 +73,13 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
 
 	@SuppressWarnings("unchecked")
 	public void setDest(final N node) {
-		if (this.src.getSuccessors().contains(node)) {
+		if (this.src.getSuccessorsList().contains(node)) {
 			delete();
 			this.src.getOutEdge(node).setLabel(".");
 		} else {
 			this.dest = node;
 			node.addInEdge(this);
+			this.src.resetAdjacency();
 		}
 	}
 
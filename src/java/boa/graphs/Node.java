@@ -17,6 +17,8 @@
 package boa.graphs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -32,9 +34,8 @@ import boa.types.Control.Node.NodeType;
  * @author rdyer
  */
 public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implements Comparable<N> {
-	public static int numOfNodes = -1;
-
-	protected int id;
+	// ids are assigned by the graph that owns the node
+	protected int id = -1;
 	protected NodeType kind = NodeType.OTHER;
 	protected String pid;
 	protected Statement stmt;
@@ -43,17 +44,21 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	protected final Set<E> inEdges = new HashSet<E>();
 	protected final Set<E> outEdges = new HashSet<E>();
 
+	// adjacent nodes, computed on first use and dropped whenever an edge changes
+	private Node[] predecessors;
+	private Node[] successors;
+	private List<N> predecessorsList;
+	private List<N> successorsList;
+
 	@Override
 	public int compareTo(final N node) {
 		return node.id - this.id;
 	}
 
 	public Node() {
-		this.id = ++numOfNodes;
 	}
 
 	public Node(final NodeType kind) {
-		this.id = ++numOfNodes;
 		this.kind = kind;
 	}
 
@@ -101,26 +106,81 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 		return this.outEdges;
 	}
 
+	/**
+	 * Returns the predecessors as a read-only list, which is shared between
+	 * calls until an edge changes.
+	 */
+	@SuppressWarnings("unchecked")
 	public List<N> getPredecessorsList() {
-		return getPredecessors();
+		if (this.predecessorsList == null)
+			this.predecessorsList = Collections.unmodifiableList(Arrays.asList((N[]) predecessorArray()));
+		return this.predecessorsList;
 	}
 
+	/**
+	 * Returns the successors as a read-only list, which is shared between
+	 * calls until an edge changes.
+	 */
+	@SuppressWarnings("unchecked")
 	public List<N> getSuccessorsList() {
-		return getSuccessors();
+		if (this.successorsList == null)
+			this.successorsList = Collections.unmodifiableList(Arrays.asList((N[]) successorArray()));
+		return this.successorsList;
 	}
 
 	public List<N> getPredecessors() {
-		final Set<N> nodes = new HashSet<N>();
-		for (final E e : this.inEdges)
-			nodes.add(e.getSrc());
-		return new ArrayList<N>(nodes);
+		return new ArrayList<N>(getPredecessorsList());
 	}
 
 	public List<N> getSuccessors() {
-		final Set<N> nodes = new HashSet<N>();
-		for (final E e : this.outEdges)
-			nodes.add(e.getDest());
-		return new ArrayList<N>(nodes);
+		return new ArrayList<N>(getSuccessorsList());
+	}
+
+	public int getPredecessorCount() {
+		return predecessorArray().length;
+	}
+
+	public int getSuccessorCount() {
+		return successorArray().length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public N getPredecessor(final int i) {
+		return (N) predecessorArray()[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public N getSuccessor(final int i) {
+		return (N) successorArray()[i];
+	}
+
+	private Node[] predecessorArray() {
+		if (this.predecessors == null) {
+			final Set<N> nodes = new HashSet<N>();
+			for (final E e : this.inEdges)
+				nodes.add(e.getSrc());
+			this.predecessors = nodes.toArray(new Node[nodes.size()]);
+		}
+		return this.predecessors;
+	}
+
+	private Node[] successorArray() {
+		if (this.successors == null) {
+			final Set<N> nodes = new HashSet<N>();
+			for (final E e : this.outEdges)
+				nodes.add(e.getDest());
+			this.successors = nodes.toArray(new Node[nodes.size()]);
+		}
+		return this.successors;
+	}
+
+	/**
+	 * Drops the cached predecessors and successors, for use when an edge
+	 * touching this node changes.
+	 */
+	protected void resetAdjacency() {
+		this.predecessors = this.successors = null;
+		this.predecessorsList = this.successorsList = null;
 	}
 
 	public E getOutEdge(final N node) {
@@ -140,21 +200,27 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void addInEdge(final E edge) {
-		if (getInEdge(edge.getSrc()) == null)
+		if (getInEdge(edge.getSrc()) == null) {
 			this.inEdges.add(edge);
+			resetAdjacency();
+		}
 	}
 
 	public void addOutEdge(final E edge) {
-		if (getOutEdge(edge.getDest()) == null)
+		if (getOutEdge(edge.getDest()) == null) {
 			this.outEdges.add(edge);
+			resetAdjacency();
+		}
 	}
 
 	public void removeOutEdge(final E edge) {
-		this.outEdges.remove(edge);
+		if (this.outEdges.remove(edge))
+			resetAdjacency();
 	}
 
 	public void removeInEdge(final E edge) {
-		this.inEdges.remove(edge);
+		if (this.inEdges.remove(edge))
+			resetAdjacency();
 	}
 
 	public void delete() {
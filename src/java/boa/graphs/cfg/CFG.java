@@ -57,6 +57,9 @@ public class CFG {
 	protected boolean isBranchPresent = false;
 	protected boolean paramAsStatement = false;
 
+	// the id of the last node built by this graph, so ids are dense from 0
+	private int numOfNodes = -1;
+
 	public CFG(final Method method) {
 		this(method, "this");
 	}
@@ -181,7 +184,7 @@ public class CFG {
 	}
 
 	protected void createNewEdge(final CFGNode src, final CFGNode dest, final String label) {
-		if (src.getSuccessors().contains(dest))
+		if (src.getSuccessorsList().contains(dest))
 			return;
 
 		if (label == null)
@@ -259,8 +262,20 @@ public class CFG {
 		}
 	}
 
+	/**
+	 * Gives a new node the next id of this graph.  Ids are per graph, so
+	 * graphs for different methods can be built at the same time.
+	 *
+	 * @param node the new node
+	 * @return the node
+	 */
+	protected CFGNode newNode(final CFGNode node) {
+		node.setId(++this.numOfNodes);
+		return node;
+	}
+
 	protected void addBreakNode(final String identifier) {
-		addBreakNode(new CFGNode(identifier, NodeType.OTHER, "<GOTO>", identifier));
+		addBreakNode(newNode(new CFGNode(identifier, NodeType.OTHER, "<GOTO>", identifier)));
 	}
 
 	protected void addBreakNode(final CFGNode node) {
@@ -270,7 +285,7 @@ public class CFG {
 	}
 
 	protected void addReturnNode() {
-		addReturnNode(new CFGNode("END[return]", NodeType.OTHER, "END[return]", "END[return]"));
+		addReturnNode(newNode(new CFGNode("END[return]", NodeType.OTHER, "END[return]", "END[return]")));
 	}
 
 	protected void addReturnNode(final CFGNode node) {
@@ -315,8 +330,7 @@ public class CFG {
 
 	public CFG get() {
 		if (md.getStatementsCount() > 0) {
-			CFGNode.numOfNodes = -1;
-			final CFGNode startNode = new CFGNode("ENTRY", NodeType.ENTRY, "ENTRY", "ENTRY");
+			final CFGNode startNode = newNode(new CFGNode("ENTRY", NodeType.ENTRY, "ENTRY", "ENTRY"));
 			mergeSeq(startNode);
 			if (paramAsStatement)
 				mergeSeq(traverse(startNode, getStatement()));
@@ -324,7 +338,7 @@ public class CFG {
 				mergeSeq(traverse(startNode, md.getStatements(0)));
 
 			adjustReturnNodes();
-			final CFGNode endNode = new CFGNode("EXIT", NodeType.ENTRY, "EXIT", "EXIT");
+			final CFGNode endNode = newNode(new CFGNode("EXIT", NodeType.ENTRY, "EXIT", "EXIT"));
 			mergeSeq(endNode);
 			this.exitNode = endNode;
 
@@ -360,7 +374,7 @@ public class CFG {
 			 * expressionsList.size(); for (int i = 0; i < expressionsSize; i++)
 			 * { graph.mergeSeq(traverse(cfgNode, expressionsList.get(i))); }
 			 */
-			final CFGNode bNode = new CFGNode(root.getKind().name(), NodeType.OTHER, "", root.getKind().name());
+			final CFGNode bNode = newNode(new CFGNode(root.getKind().name(), NodeType.OTHER, "", root.getKind().name()));
 			bNode.setAstNode(root);
 			graph.mergeSeq(bNode);
 			return graph;
@@ -411,7 +425,7 @@ public class CFG {
 		case ASSERT:
 		case TYPEDECL:
 		case OTHER:
-			final CFGNode aNode = new CFGNode(root.getKind().name(), NodeType.OTHER, "", root.getKind().name());
+			final CFGNode aNode = newNode(new CFGNode(root.getKind().name(), NodeType.OTHER, "", root.getKind().name()));
 			aNode.setAstNode(root);
 			graph.mergeSeq(aNode);
 			return graph;
@@ -446,7 +460,7 @@ public class CFG {
 			type_str = "";
 		}
 
-		final CFGNode aNode = new CFGNode("$new$", NodeType.METHOD, type_str, nObjectname, root.getExpressionsCount());
+		final CFGNode aNode = newNode(new CFGNode("$new$", NodeType.METHOD, type_str, nObjectname, root.getExpressionsCount()));
 		aNode.setAstNode(root);
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -455,7 +469,7 @@ public class CFG {
 
 	private CFG traverse_clinit(final CFGNode cfgNode, final Expression root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode("<init>", NodeType.METHOD, class_name, "super", root.getExpressionsCount());
+		final CFGNode aNode = newNode(new CFGNode("<init>", NodeType.METHOD, class_name, "super", root.getExpressionsCount()));
 		aNode.setAstNode(root);
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -464,7 +478,7 @@ public class CFG {
 
 	private CFG traverse_init(final CFGNode cfgNode, final Expression root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode("<init>", NodeType.METHOD, class_name, "this", root.getExpressionsCount());
+		final CFGNode aNode = newNode(new CFGNode("<init>", NodeType.METHOD, class_name, "this", root.getExpressionsCount()));
 		aNode.setAstNode(root);
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -473,7 +487,7 @@ public class CFG {
 
 	private CFG traverse_call(final CFGNode cfgNode, final Expression root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode(root.getMethod(), NodeType.METHOD, class_name, "this", root.getExpressionsCount());
+		final CFGNode aNode = newNode(new CFGNode(root.getMethod(), NodeType.METHOD, class_name, "this", root.getExpressionsCount()));
 		aNode.setAstNode(root);
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -482,7 +496,7 @@ public class CFG {
 
 	private CFG traverse_super(final CFGNode cfgNode, final Expression root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode(root.getMethod(), NodeType.METHOD, class_name, "super", root.getExpressionsCount());
+		final CFGNode aNode = newNode(new CFGNode(root.getMethod(), NodeType.METHOD, class_name, "super", root.getExpressionsCount()));
 		aNode.setAstNode(root);
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -493,7 +507,7 @@ public class CFG {
 		this.isBranchPresent = true;
 		final CFG graph = new CFG();
 
-		final CFGNode branch = new CFGNode("IF", NodeType.CONTROL, "IF", "IF");
+		final CFGNode branch = newNode(new CFGNode("IF", NodeType.CONTROL, "IF", "IF"));
 		branch.setAstNode(root.getConditions(0));
 		branch.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(branch);
@@ -522,7 +536,7 @@ public class CFG {
 		this.isBranchPresent = true;
 		final CFG graph = new CFG();
 
-		final CFGNode branch = new CFGNode("IF", NodeType.CONTROL, "IF", "IF");
+		final CFGNode branch = newNode(new CFGNode("IF", NodeType.CONTROL, "IF", "IF"));
 		branch.setAstNode(root);
 		branch.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(branch);
@@ -550,7 +564,7 @@ public class CFG {
 	private CFG traverse_switch(final CFGNode cfgNode, final Statement root) {
 		this.isBranchPresent = true;
 		final CFG graph = new CFG();
-		final CFGNode node = new CFGNode(root.getExpressions(0).toString(), NodeType.CONTROL, "SWITCH", "SWITCH");
+		final CFGNode node = newNode(new CFGNode(root.getExpressions(0).toString(), NodeType.CONTROL, "SWITCH", "SWITCH"));
 		node.setAstNode(root.getExpressions(0));
 		node.setPid((cfgNode == null) ? "." : cfgNode.getPid()+ cfgNode.getNodeId() + ".");
 		graph.mergeSeq(node);
@@ -600,7 +614,7 @@ public class CFG {
 		// initializations
 		if (root.hasVariableDeclaration()) {
 			// enhanced for
-			final CFGNode bNode = new CFGNode("VARDECL", NodeType.OTHER, "", "VARDECL");
+			final CFGNode bNode = newNode(new CFGNode("VARDECL", NodeType.OTHER, "", "VARDECL"));
 			final boa.types.Ast.Expression.Builder eb = boa.types.Ast.Expression.newBuilder();
 			eb.setKind(boa.types.Ast.Expression.ExpressionKind.VARDECL);
 			eb.addVariableDecls(root.getVariableDeclaration());
@@ -614,7 +628,7 @@ public class CFG {
 		}
 
 		// condition
-		final CFGNode control = new CFGNode("FOR", NodeType.CONTROL, "FOR", "FOR");
+		final CFGNode control = newNode(new CFGNode("FOR", NodeType.CONTROL, "FOR", "FOR"));
 		control.setAstNode(root.getConditions(0));
 		control.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(control);
@@ -643,7 +657,7 @@ public class CFG {
 	private CFG traverse_while(final CFGNode cfgNode, final Statement root) {
 		this.isLoopPresent = true;
 		final CFG graph = new CFG();
-		final CFGNode control = new CFGNode("WHILE", NodeType.CONTROL, "WHILE", "WHILE");
+		final CFGNode control = newNode(new CFGNode("WHILE", NodeType.CONTROL, "WHILE", "WHILE"));
 		control.setAstNode(root.getConditions(0));
 		control.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(control);
@@ -664,7 +678,7 @@ public class CFG {
 		this.isLoopPresent = true;
 		final CFG graph = new CFG();
 
-		final CFGNode control = new CFGNode("DO", NodeType.CONTROL, "DO", "DO");
+		final CFGNode control = newNode(new CFGNode("DO", NodeType.CONTROL, "DO", "DO"));
 		control.setAstNode(root.getConditions(0));
 		control.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(control);
@@ -697,7 +711,7 @@ public class CFG {
 		} else {
 			label = root.getExpressions(0).getVariable();
 		}
-		final CFGNode node = new CFGNode(label, NodeType.OTHER, "Case", label);
+		final CFGNode node = newNode(new CFGNode(label, NodeType.OTHER, "Case", label));
 		node.setAstNode(root);
 		graph.mergeSeq(node);
 		graph.getOuts().add(node);
@@ -712,7 +726,7 @@ public class CFG {
 		} else {
 			label = "[BREAK]";
 		}
-		final CFGNode node = new CFGNode(label, NodeType.OTHER, "<GOTO>", label);
+		final CFGNode node = newNode(new CFGNode(label, NodeType.OTHER, "<GOTO>", label));
 		node.setAstNode(root);
 		graph.addBreakNode(node);
 		return graph;
@@ -726,7 +740,7 @@ public class CFG {
 		} else {
 			label = "[CONTINUE]";
 		}
-		final CFGNode node = new CFGNode(label, NodeType.OTHER, "<GOTO>", label);
+		final CFGNode node = newNode(new CFGNode(label, NodeType.OTHER, "<GOTO>", label));
 		node.setAstNode(root);
 		graph.addBreakNode(node);
 		return graph;
@@ -739,7 +753,7 @@ public class CFG {
 		/*if (root.hasExpression())
 			graph.mergeSeq(traverse(cfgNode, root.getExpression()));
 		*/
-		final CFGNode node = new CFGNode("END[throw]", NodeType.OTHER, "END[throw]", "END[throw]");
+		final CFGNode node = newNode(new CFGNode("END[throw]", NodeType.OTHER, "END[throw]", "END[throw]"));
 		node.setAstNode(root);
 		graph.addReturnNode(node);
 		return graph;
@@ -751,7 +765,7 @@ public class CFG {
 		/*if (root.hasExpression())
 			graph.mergeSeq(traverse(cfgNode, root.getExpression()));
 		*/
-		final CFGNode node = new CFGNode("END[return]", NodeType.OTHER, "END[return]", "END[return]");
+		final CFGNode node = newNode(new CFGNode("END[return]", NodeType.OTHER, "END[return]", "END[return]"));
 		node.setAstNode(root);
 		if (root.getExpressionsCount() > 0)
 			node.setAstNode(root.getExpressions(0));
@@ -761,7 +775,7 @@ public class CFG {
 
 	private CFG traverse_try(final CFGNode cfgNode, final Statement root) {
 		final CFG graph = new CFG();
-		final CFGNode branch = new CFGNode("TRY", NodeType.CONTROL, "TRY", "TRY");
+		final CFGNode branch = newNode(new CFGNode("TRY", NodeType.CONTROL, "TRY", "TRY"));
 		branch.setAstNode(root);
 		branch.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(branch);
@@ -800,7 +814,7 @@ public class CFG {
 
 	private CFG traverse_catch(final CFGNode cfgNode, final Statement root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode("CATCH", NodeType.OTHER, "CATCH", "CATCH");
+		final CFGNode aNode = newNode(new CFGNode("CATCH", NodeType.OTHER, "CATCH", "CATCH"));
 		aNode.setAstNode(root);
 		graph.mergeSeq(aNode);
 		for (final Statement stmt : root.getStatementsList())
@@ -810,7 +824,7 @@ public class CFG {
 
 	private CFG traverse_finally(final CFGNode cfgNode, final Statement root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode("FINALLY", NodeType.OTHER, "FINALLY", "FINALLY");
+		final CFGNode aNode = newNode(new CFGNode("FINALLY", NodeType.OTHER, "FINALLY", "FINALLY"));
 		aNode.setAstNode(root);
 		graph.mergeSeq(aNode);
 		for (final Statement stmt : root.getStatementsList())
@@ -820,7 +834,7 @@ public class CFG {
 
 	private CFG traverse_sync(final CFGNode cfgNode, final Statement root) {
 		final CFG graph = new CFG();
-		final CFGNode aNode = new CFGNode();
+		final CFGNode aNode = newNode(new CFGNode());
 		aNode.setAstNode(root.getExpressions(0));
 		aNode.setPid((cfgNode == null) ? "." : cfgNode.getPid() + cfgNode.getNodeId() + ".");
 		graph.mergeSeq(aNode);
@@ -832,7 +846,7 @@ public class CFG {
 	protected final void postorder(final CFGNode node, final java.util.Set<Integer> visitedNodes, final CFGNode[] results) throws Exception {
 		results[visitedNodes.size()] = node;
 		visitedNodes.add(node.getNodeId());
-		for (final CFGNode succ : node.getSuccessors()) {
+		for (final CFGNode succ : node.getSuccessorsList()) {
 			if (!visitedNodes.contains(succ.getNodeId())) {
 				postorder(succ, visitedNodes, results);
 			}
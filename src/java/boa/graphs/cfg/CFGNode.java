@@ -17,7 +17,6 @@
  */
 package boa.graphs.cfg;
 
-import java.util.HashMap;
 import java.util.HashSet;
 
 import boa.graphs.Node;
@@ -31,15 +30,12 @@ import boa.types.Control.Node.NodeType;
  * @author rdyer
  */
 public class CFGNode extends Node<CFGNode, CFGEdge> {
-	private int methodId;
-	private int objectNameId;
-	private int classNameId;
+	private String methodName;
+	private String objectName;
+	private String className;
 	private int numOfParameters = 0;
 	private HashSet<Integer> parameters;
 
-	private static final HashMap<String, Integer> idOfLabel = new HashMap<String, Integer>();
-	private static final HashMap<Integer, String> labelOfID = new HashMap<Integer, String>();
-
 	private HashSet<String> useVariables;
 	private String defVariables;
 
@@ -49,21 +45,17 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 
 	public CFGNode(final String methodName, final NodeType kind, final String className, final String objectName) {
 		super(kind);
-		this.methodId = convertLabel(methodName);
-		this.classNameId = convertLabel(className);
-		this.objectNameId = convertLabel(objectName);
+		this.methodName = LabelInterner.intern(methodName);
+		this.className = LabelInterner.intern(className);
+		this.objectName = LabelInterner.intern(objectName);
 	}
 
 	public CFGNode(final String methodName, final NodeType kind, final String className,
 			final String objectName, final int numOfParameters, final HashSet<Integer> datas) {
 		super(kind);
-		this.methodId = convertLabel(methodName);
-		if (className == null) {
-			this.classNameId = -1;
-		} else {
-			this.classNameId = convertLabel(className);
-		}
-		this.objectNameId = convertLabel(objectName);
+		this.methodName = LabelInterner.intern(methodName);
+		this.className = LabelInterner.intern(className);
+		this.objectName = LabelInterner.intern(objectName);
 		this.parameters = new HashSet<Integer>(datas);
 		this.numOfParameters = numOfParameters;
 	}
@@ -71,22 +63,12 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 	public CFGNode(final String methodName, final NodeType kind, final String className,
 			final String objectName, final int numOfParameters) {
 		super(kind);
-		this.methodId = convertLabel(methodName);
-		this.classNameId = convertLabel(className);
-		this.objectNameId = convertLabel(objectName);
+		this.methodName = LabelInterner.intern(methodName);
+		this.className = LabelInterner.intern(className);
+		this.objectName = LabelInterner.intern(objectName);
 		this.numOfParameters = numOfParameters;
 	}
 
-	public static int convertLabel(final String label) {
-		if (!CFGNode.idOfLabel.containsKey(label)) {
-			final int index = CFGNode.idOfLabel.size() + 1;
-			CFGNode.idOfLabel.put(label, index);
-			CFGNode.labelOfID.put(index, label);
-			return index;
-		}
-		return CFGNode.idOfLabel.get(label);
-	}
-
 	public int getNumOfParameters() {
 		return this.numOfParameters;
 	}
@@ -99,20 +81,12 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 		return this.parameters;
 	}
 
-	public int getClassNameId() {
-		return this.classNameId;
-	}
-
-	public int getObjectNameId() {
-		return this.objectNameId;
-	}
-
 	public String getObjectName() {
-		return labelOfID.get(this.objectNameId);
+		return this.objectName;
 	}
 
 	public String getClassName() {
-		return labelOfID.get(this.classNameId);
+		return this.className;
 	}
 
 	public HashSet<String> getUseVariables() {
@@ -140,7 +114,7 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 	}
 
 	public String getMethod() {
-		return CFGNode.labelOfID.get(this.methodId);
+		return this.methodName;
 	}
 
 	public String getName() {
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.cfg;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one copy of each CFG node label.  Once the table is full, new
+ * labels are used as given, so the table stays bounded however many
+ * methods a task sees.  Safe to use from several threads.
+ *
+ * @author agent
+ */
+public final class LabelInterner {
+	// the most labels the table holds
+	public static final int CAPACITY = 1 << 16;
+
+	private static final ConcurrentHashMap<String, String> labels = new ConcurrentHashMap<String, String>();
+
+	private LabelInterner() {
+	}
+
+	/**
+	 * Intern a label.
+	 *
+	 * @param label the label, may be null
+	 * @return the shared copy of the label, or the label itself
+	 */
+	public static String intern(final String label) {
+		if (label == null)
+			return null;
+
+		final String s = labels.get(label);
+		if (s != null)
+			return s;
+		if (labels.size() >= CAPACITY)
+			return label;
+
+		final String old = labels.putIfAbsent(label, label);
+		return old == null ? label : old;
+	}
+}
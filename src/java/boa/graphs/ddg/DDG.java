@@ -277,8 +277,8 @@ public class DDG {
         for (final int i : nodeids) {
             if (i != 0) {
                 final DDGNode dest = getNode(i);
-                if (dest.getPredecessors().size() == 0 ||
-                        (dest.getPredecessors().size() == 1 && dest.getPredecessors().get(0).equals(dest))) {
+                if (dest.getPredecessorCount() == 0 ||
+                        (dest.getPredecessorCount() == 1 && dest.getPredecessor(0).equals(dest))) {
                     new DDGEdge(entryNode, dest);
                 }
             }
@@ -66,7 +66,10 @@ public class CFGSlicer {
     }
 
     public CFGSlicer(final Method m, final int nid) throws Exception {
-        final CFG cfg = new CFG(m, true).get();
+        this(new CFG(m, true).get(), nid);
+    }
+
+    public CFGSlicer(final CFG cfg, final int nid) throws Exception {
         if (cfg == null) return;
 
         final List<CFGNode> entrynodes = new ArrayList<CFGNode>();
@@ -116,7 +119,7 @@ public class CFGSlicer {
             protected Set<String> preTraverse(final CFGNode node) throws Exception {
                 // in(n) = \/(pred) out(pred)
                 final Set<String> in = new HashSet<String>();
-                for (final CFGNode p : node.getPredecessors()) {
+                for (final CFGNode p : node.getPredecessorsList()) {
                     final Set<String> pred = getValue(p);
                     if (pred != null)
                         in.addAll(pred);
@@ -347,9 +347,9 @@ public class PDGSlicer {
             visited1.add(node1);
             visited2.add(node2);
 
-            for (int i = 0; i < node1.getSuccessors().size(); i++) {
-                final List<PDGEdge> outEdges1 = node1.getOutEdges(node1.getSuccessors().get(i));
-                final List<PDGEdge> outEdges2 = node2.getOutEdges(node2.getSuccessors().get(i));
+            for (int i = 0; i < node1.getSuccessorCount(); i++) {
+                final List<PDGEdge> outEdges1 = node1.getOutEdges(node1.getSuccessor(i));
+                final List<PDGEdge> outEdges2 = node2.getOutEdges(node2.getSuccessor(i));
                 if (outEdges1.size() != outEdges2.size())
                     return false;
                 for (int j = 0; j < outEdges1.size(); j++) {
@@ -358,10 +358,10 @@ public class PDGSlicer {
                         return false;
                 }
 
-                if (!visited1.contains(node1.getSuccessors().get(i)))
-                    nodes1.push(node1.getSuccessors().get(i));
-                if (!visited2.contains(node2.getSuccessors().get(i)))
-                    nodes2.push(node2.getSuccessors().get(i));
+                if (!visited1.contains(node1.getSuccessor(i)))
+                    nodes1.push(node1.getSuccessor(i));
+                if (!visited2.contains(node2.getSuccessor(i)))
+                    nodes2.push(node2.getSuccessor(i));
             }
         }
 
@@ -33,6 +33,7 @@ public class DTree {
     private Method md;
     private TreeNode rootNode;
     private final HashSet<TreeNode> nodes = new HashSet<TreeNode>();
+    private final Map<Integer, TreeNode> nodesById = new HashMap<Integer, TreeNode>();
     private boolean isEntryNode = false; // as specified in ferrante-1987 paper on PDG
 
     /**
@@ -42,10 +43,27 @@ public class DTree {
      * @throws Exception if tree construction fails
      */
     public DTree(final CFG cfg) throws Exception {
+        this(cfg, false);
+    }
+
+    /**
+     * Constructs a dominator tree
+     *
+     * @param cfg control flow graph
+     * @param iterative if true, computes dominators with the iterative data-flow
+     *                  formulation instead of the Cooper-Harvey-Kennedy algorithm
+     * @throws Exception if tree construction fails
+     */
+    public DTree(final CFG cfg, final boolean iterative) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.md = cfg.getMd();
-            final Map<CFGNode, Set<CFGNode>> dom = computeDominators(cfg);
-            final Map<CFGNode, CFGNode> idom = computeImmediateDominator(dom, cfg);
+            Map<CFGNode, CFGNode> idom = null;
+            if (!iterative)
+                idom = computeImmediateDominator(cfg);
+            if (idom == null) {
+                final Map<CFGNode, Set<CFGNode>> dom = computeDominators(cfg);
+                idom = computeImmediateDominator(dom, cfg);
+            }
             buildDomTree(idom);
         }
     }
@@ -81,6 +99,7 @@ public class DTree {
             entry.setParent(rootNode);
             rootNode.addChild(entry);
             nodes.add(entry);
+            nodesById.put(entry.getNodeId(), entry);
             isEntryNode = true;
         }
     }
@@ -143,11 +162,7 @@ public class DTree {
      * @return the tree node for the given node id. If not found then returns null
      */
     public TreeNode getNode(final int id) {
-        for (final TreeNode node : nodes) {
-            if (node.getNodeId() == id)
-                return node;
-        }
-        return null;
+        return nodesById.get(id);
     }
 
     /**
@@ -183,7 +198,7 @@ public class DTree {
 
                 // Intersection[pred(node)]
                 boolean first = true;
-                for (final CFGNode pred : n.getPredecessors()) {
+                for (final CFGNode pred : n.getPredecessorsList()) {
                     if (first) {
                         currentPDom.addAll(pDomMap.get(pred));
                         first = false;
@@ -249,6 +264,33 @@ public class DTree {
         return idom;
     }
 
+    /**
+     * Computes and returns map of nodes and corresponding immediate dominators,
+     * without building the dominator sets
+     *
+     * @param cfg control flow graph
+     * @return map of nodes and corresponding immediate dominators, or null if
+     *         some node can not be reached from the entry node
+     */
+    private Map<CFGNode, CFGNode> computeImmediateDominator(final CFG cfg) {
+        final CFGNode[] cfgNodes = cfg.sortNodes();
+        if (cfgNodes == null || cfgNodes.length < 2)
+            return null;
+        for (final CFGNode n : cfgNodes)
+            if (n == null)
+                return null;
+
+        final int[] idom = Dominators.immediateDominators(cfgNodes, 0, true);
+        if (idom == null)
+            return null;
+
+        final Map<CFGNode, CFGNode> idoms = new HashMap<CFGNode, CFGNode>();
+        for (final CFGNode n : cfgNodes)
+            if (n.getNodeId() != 0)
+                idoms.put(n, cfgNodes[idom[n.getNodeId()]]);
+        return idoms;
+    }
+
     /**
      * Builds a dominator tree using nodes and their immediate dominators
      *
@@ -289,6 +331,7 @@ public class DTree {
 
         final TreeNode newNode = new TreeNode(cfgNode);
         nodes.add(newNode);
+        nodesById.put(newNode.getNodeId(), newNode);
         return newNode;
     }
 }
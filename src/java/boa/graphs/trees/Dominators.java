@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.trees;
+
+import java.util.Arrays;
+
+import boa.graphs.cfg.CFGNode;
+
+/**
+ * Computes immediate dominators as described in K. D. Cooper, T. J. Harvey,
+ * and K. Kennedy, A simple, fast dominance algorithm, 2001.
+ *
+ * Nodes are numbered in reverse postorder from the root, and each node's
+ * immediate dominator is found by walking up the partial dominator tree
+ * from its predecessors until the walks meet.  On reducible graphs this
+ * settles in two passes, so it runs in near linear time and space.
+ *
+ * @author agent
+ */
+final class Dominators {
+	private Dominators() {
+	}
+
+	/**
+	 * Computes the immediate dominator of every node.
+	 *
+	 * @param nodes the CFG nodes, indexed by node id
+	 * @param root the id of the root node
+	 * @param forward if true, computes dominators from the root following
+	 *                successors, otherwise computes post-dominators from the
+	 *                root following predecessors
+	 * @return the id of each node's immediate dominator, -1 for the root, or
+	 *         null if some node can not be reached from the root
+	 */
+	static int[] immediateDominators(final CFGNode[] nodes, final int root, final boolean forward) {
+		final int n = nodes.length;
+
+		// number the nodes in postorder
+		final int[] order = new int[n];
+		final int[] number = new int[n];
+		Arrays.fill(number, -1);
+		if (postorder(nodes, root, forward, order, number) != n)
+			return null;
+
+		final int[] idom = new int[n];
+		Arrays.fill(idom, -1);
+		idom[root] = root;
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+
+			// visit in reverse postorder, skipping the root
+			for (int i = n - 2; i >= 0; i--) {
+				final CFGNode node = nodes[order[i]];
+				final int count = forward ? node.getPredecessorCount() : node.getSuccessorCount();
+
+				int newIdom = -1;
+				for (int j = 0; j < count; j++) {
+					final int pred = (forward ? node.getPredecessor(j) : node.getSuccessor(j)).getNodeId();
+					if (idom[pred] == -1)
+						continue;
+					newIdom = newIdom == -1 ? pred : intersect(idom, number, pred, newIdom);
+				}
+
+				if (idom[order[i]] != newIdom) {
+					idom[order[i]] = newIdom;
+					changed = true;
+				}
+			}
+		}
+
+		idom[root] = -1;
+		return idom;
+	}
+
+	private static int intersect(final int[] idom, final int[] number, int a, int b) {
+		while (a != b) {
+			while (number[a] < number[b])
+				a = idom[a];
+			while (number[b] < number[a])
+				b = idom[b];
+		}
+		return a;
+	}
+
+	private static int postorder(final CFGNode[] nodes, final int root, final boolean forward, final int[] order, final int[] number) {
+		final int[] stack = new int[nodes.length];
+		final int[] next = new int[nodes.length];
+		final boolean[] visited = new boolean[nodes.length];
+
+		int count = 0;
+		int top = 0;
+		stack[0] = root;
+		visited[root] = true;
+
+		while (top >= 0) {
+			final CFGNode node = nodes[stack[top]];
+			final int i = next[top]++;
+
+			if (i < (forward ? node.getSuccessorCount() : node.getPredecessorCount())) {
+				final int id = (forward ? node.getSuccessor(i) : node.getPredecessor(i)).getNodeId();
+				if (!visited[id]) {
+					visited[id] = true;
+					stack[++top] = id;
+					next[top] = 0;
+				}
+			} else {
+				number[stack[top]] = count;
+				order[count++] = stack[top];
+				top--;
+			}
+		}
+
+		return count;
+	}
+}
@@ -33,6 +33,7 @@ public class PDTree {
     private Method md;
     private TreeNode rootNode;
     private final HashSet<TreeNode> nodes = new HashSet<TreeNode>();
+    private final Map<Integer, TreeNode> nodesById = new HashMap<Integer, TreeNode>();
     private boolean hasEntryNode = false; // as specified in ferrante-1987 paper on PDG
 
     /**
@@ -42,10 +43,27 @@ public class PDTree {
      * @throws Exception if tree construction fails
      */
     public PDTree(final CFG cfg) throws Exception {
+        this(cfg, false);
+    }
+
+    /**
+     * Constructs a post-dominator tree
+     *
+     * @param cfg control flow graph
+     * @param iterative if true, computes post-dominators with the iterative data-flow
+     *                  formulation instead of the Cooper-Harvey-Kennedy algorithm
+     * @throws Exception if tree construction fails
+     */
+    public PDTree(final CFG cfg, final boolean iterative) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.md = cfg.getMd();
-            final Map<CFGNode, BitSet> pdom = computePostDomonitors(cfg);
-            final Map<CFGNode, CFGNode> ipdom = computeImmediatePostDominator(pdom, cfg);
+            Map<CFGNode, CFGNode> ipdom = null;
+            if (!iterative)
+                ipdom = computeImmediatePostDominator(cfg);
+            if (ipdom == null) {
+                final Map<CFGNode, BitSet> pdom = computePostDomonitors(cfg);
+                ipdom = computeImmediatePostDominator(pdom, cfg);
+            }
             buildPDomTree(ipdom);
         }
     }
@@ -81,6 +99,7 @@ public class PDTree {
             entry.setParent(rootNode);
             rootNode.addChild(entry);
             nodes.add(entry);
+            nodesById.put(entry.getNodeId(), entry);
             hasEntryNode = true;
         }
     }
@@ -158,11 +177,7 @@ public class PDTree {
      * @return the tree node for the given node id. If not found then returns null
      */
     public TreeNode getNode(final int id) {
-        for (final TreeNode node : nodes) {
-            if (node.getNodeId() == id)
-                return node;
-        }
-        return null;
+        return nodesById.get(id);
     }
 
     /**
@@ -283,6 +298,61 @@ public class PDTree {
         return ipdom;
     }
 
+    /**
+     * Computes and returns a map of nodes and corresponding immediate post-dominators,
+     * without building the post-dominator sets
+     *
+     * Like {@link #computeImmediatePostDominator(Map, CFG)}, this maps each node to its
+     * lowest numbered strict post-dominator, so both build the same tree.
+     *
+     * @param cfg control flow graph
+     * @return map of nodes and corresponding immediate post-dominators, or null if
+     *         some node can not reach the stop node
+     */
+    private Map<CFGNode, CFGNode> computeImmediatePostDominator(final CFG cfg) {
+        final CFGNode[] cfgNodes = cfg.sortNodes();
+        if (cfgNodes == null || cfgNodes.length < 2)
+            return null;
+        for (final CFGNode n : cfgNodes)
+            if (n == null)
+                return null;
+
+        final int stopid = cfgNodes.length - 1;
+        final int[] idom = Dominators.immediateDominators(cfgNodes, stopid, false);
+        if (idom == null)
+            return null;
+
+        // the lowest id among each node's strict post-dominators, which are its
+        // ancestors in the tree, filled in from the stop node down
+        final int[] lowest = new int[cfgNodes.length];
+        Arrays.fill(lowest, -1);
+        lowest[stopid] = Integer.MAX_VALUE;
+        for (int i = 0; i < cfgNodes.length; i++)
+            lowestAncestor(idom, lowest, i);
+
+        final Map<CFGNode, CFGNode> ipdom = new HashMap<CFGNode, CFGNode>();
+        for (final CFGNode n : cfgNodes)
+            if (n.getNodeId() != stopid)
+                ipdom.put(n, cfgNodes[lowest[n.getNodeId()]]);
+        return ipdom;
+    }
+
+    private static void lowestAncestor(final int[] idom, final int[] lowest, final int id) {
+        if (lowest[id] == -1) {
+            // walk up to the nearest node already filled in, then back down
+            int top = id;
+            final Deque<Integer> path = new ArrayDeque<Integer>();
+            while (lowest[top] == -1) {
+                path.push(top);
+                top = idom[top];
+            }
+            while (!path.isEmpty()) {
+                final int n = path.pop();
+                lowest[n] = Math.min(idom[n], lowest[idom[n]]);
+            }
+        }
+    }
+
     /**
      * Builds a post dominator tree using nodes and their immediate post-dominators
      *
@@ -322,6 +392,7 @@ public class PDTree {
 
         final TreeNode newNode = new TreeNode(cfgNode);
         nodes.add(newNode);
+        nodesById.put(newNode.getNodeId(), newNode);
         return newNode;
     }
 }
@@ -17,9 +17,19 @@
  */
 package boa.io;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -33,6 +43,9 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.JobStatus;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.util.Progressable;
+
+import boa.runtime.BoaPartitioner;
 
 /**
  * A {@link FileOutputCommitter} that stores the job results into a database.
@@ -150,23 +163,37 @@ public class BoaOutputCommitter extends FileOutputCommitter {
 				context.getReducerClass().getConstructor().newInstance();
 			} catch (final ReflectiveOperationException e) { }
 
+			final int reducersPerVariable = BoaPartitioner.getReducersPerVariable(context.getConfiguration());
+
+			// group the reducer outputs by the variable they hold
+			final Map<String, List<Path>> parts = new LinkedHashMap<String, List<Path>>();
 			while (true) {
 				final Path path = new Path(outputPath, "part-r-" + String.format("%05d", partNum));
 				if (!fileSystem.exists(path))
 					break;
 
-				final Path newpath = new Path("/boa", new Path("" + jobId, new Path(boa.runtime.BoaPartitioner.getVariableFromPartition(partNum++) + ".txt")));
+				final String var = BoaPartitioner.getVariableFromPartition(partNum++, reducersPerVariable);
+				if (!parts.containsKey(var))
+					parts.put(var, new ArrayList<Path>());
+				parts.get(var).add(path);
+			}
+
+			for (final Map.Entry<String, List<Path>> e : parts.entrySet()) {
+				final Path newpath = new Path("/boa", new Path("" + jobId, new Path(e.getKey() + ".txt")));
 				if (fileSystem.exists(newpath))
 					try {
 						fileSystem.delete(newpath, false);
-					} catch (final Exception e) {
+					} catch (final Exception ex) {
 						// do nothing
 					}
 
-				fileSystem.rename(path, newpath);
+				if (e.getValue().size() == 1)
+					fileSystem.rename(e.getValue().get(0), newpath);
+				else
+					mergeParts(fileSystem, e.getValue(), newpath);
 
 				if (in != null)
-					try { in.close(); } catch (final Exception e) { e.printStackTrace(); }
+					try { in.close(); } catch (final Exception ex) { ex.printStackTrace(); }
 				in = fileSystem.open(newpath);
 
 				int numBytes = 0;
@@ -197,6 +224,68 @@ public class BoaOutputCommitter extends FileOutputCommitter {
 		}
 	}
 
+	/**
+	 * Merges the outputs of several reducers holding the same output variable
+	 * into a single file.
+	 *
+	 * @param fileSystem the file system holding the outputs
+	 * @param parts the reducer outputs to merge, which are deleted afterwards
+	 * @param out the merged output file
+	 * @throws IOException
+	 */
+	private void mergeParts(final FileSystem fileSystem, final List<Path> parts, final Path out) throws IOException {
+		final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fileSystem.create(out), "UTF-8"));
+		try {
+			mergeParts(fileSystem, parts, writer, this.context);
+		} finally {
+			try { writer.close(); } catch (final Exception e) { e.printStackTrace(); }
+		}
+
+		for (final Path p : parts)
+			fileSystem.delete(p, false);
+	}
+
+	/**
+	 * Merges the outputs of several reducers holding the same output variable.
+	 * Each reducer's output is sorted by key, so the lines are merged to keep
+	 * the variable's output sorted.
+	 *
+	 * @param fileSystem the file system holding the outputs
+	 * @param parts the reducer outputs to merge
+	 * @param writer where to write the merged output
+	 * @param progress reports progress while merging
+	 * @throws IOException
+	 */
+	public static void mergeParts(final FileSystem fileSystem, final List<Path> parts, final Writer writer, final Progressable progress) throws IOException {
+		final BufferedReader[] readers = new BufferedReader[parts.size()];
+		final String[] lines = new String[parts.size()];
+
+		try {
+			for (int i = 0; i < readers.length; i++) {
+				readers[i] = new BufferedReader(new InputStreamReader(fileSystem.open(parts.get(i)), "UTF-8"));
+				lines[i] = readers[i].readLine();
+			}
+
+			while (true) {
+				int min = -1;
+				for (int i = 0; i < lines.length; i++)
+					if (lines[i] != null && (min == -1 || lines[i].compareTo(lines[min]) < 0))
+						min = i;
+				if (min == -1)
+					break;
+
+				writer.write(lines[min]);
+				writer.write('\n');
+				lines[min] = readers[min].readLine();
+
+				progress.progress();
+			}
+		} finally {
+			for (final BufferedReader r : readers)
+				try { if (r != null) r.close(); } catch (final Exception e) { e.printStackTrace(); }
+		}
+	}
+
 	public static void setJobID(final String id, final int jobId) {
 		if (jobId == 0)
 			return;
@@ -17,15 +17,17 @@
  */
 package boa.io;
 
-import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.lang.reflect.Constructor;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 import boa.functions.BoaCasts;
 import boa.runtime.Tuple;
@@ -34,14 +36,37 @@ import boa.runtime.Tuple;
  * A {@link Writable} that contains a datum and an optional metadatum to be
  * emitted to a Boa table.
  * 
+ * Single long and double data and metadata are kept in their native form and
+ * written as a variable-length long or a raw double, so aggregators can
+ * consume them without going through a {@link String}.  Combiners may also
+ * emit raw bytes, such as a serialized sketch.
+ * 
  * @author anthonyu
  * @author rdyer
  */
 public class EmitValue implements Writable {
+	private static final byte NONE = 'N';
+	private static final byte STRING = 'S';
+	private static final byte LONG = 'L';
+	private static final byte DOUBLE = 'D';
+	private static final byte TUPLE = 'T';
+	private static final byte BYTES = 'B';
+
+	// tuples name their class, which is looked up once per reducer
+	private static final Map<String, Constructor<? extends Tuple>> tupleConstructors = new ConcurrentHashMap<String, Constructor<? extends Tuple>>();
+
+	private byte type = NONE;
 	private String[] data;
-	private String metadata;
+	private long ldata;
+	private double ddata;
+	private byte[] bdata;
 	private Tuple tdata;
 
+	private byte mtype = NONE;
+	private String metadata;
+	private long lmetadata;
+	private double dmetadata;
+
 	/**
 	 * Construct an EmitValue.
 	 */
@@ -56,8 +81,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final String[] data, final String metadata) {
-		this.data = data;
-		this.metadata = metadata;
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -81,8 +106,8 @@ public class EmitValue implements Writable {
 		for (int i = 0; i < data.length; i++)
 			strings[i] = data[i].toString();
 
-		this.data = strings;
-		this.metadata = metadata;
+		this.setData(strings);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -120,7 +145,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A long representing the metadata to be emitted
 	 */
 	public EmitValue(final String data, final long metadata) {
-		this(new String[] { data }, BoaCasts.longToString(metadata));
+		this(new String[] { data }, null);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -130,7 +156,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A double representing the metadata to be emitted
 	 */
 	public EmitValue(final String data, final double metadata) {
-		this(new String[] { data }, BoaCasts.doubleToString(metadata));
+		this(new String[] { data }, null);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -139,7 +166,7 @@ public class EmitValue implements Writable {
 	 * @param data A long representing the data to be emitted
 	 */
 	public EmitValue(final long data) {
-		this(new String[] { BoaCasts.longToString(data) }, null);
+		this.setData(data);
 	}
 
 	/**
@@ -149,7 +176,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final String metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, metadata);
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -159,7 +187,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A long representing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final long metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, BoaCasts.longToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -169,7 +198,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A double representing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final double metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, BoaCasts.doubleToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -178,7 +208,7 @@ public class EmitValue implements Writable {
 	 * @param data A double representing the data to be emitted
 	 */
 	public EmitValue(final double data) {
-		this(new String[] { BoaCasts.doubleToString(data) }, null);
+		this.setData(data);
 	}
 
 	/**
@@ -188,7 +218,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final String metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, metadata);
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -198,7 +229,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A long representing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final long metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, BoaCasts.longToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -208,7 +240,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A double representing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final double metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, BoaCasts.doubleToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -237,7 +270,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A long representing the metadata to be emitted
 	 */
 	public EmitValue(final boolean data, final long metadata) {
-		this(new String[] { BoaCasts.booleanToString(data) }, BoaCasts.longToString(metadata));
+		this(new String[] { BoaCasts.booleanToString(data) }, null);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -247,7 +281,8 @@ public class EmitValue implements Writable {
 	 * @param metadata A double representing the metadata to be emitted
 	 */
 	public EmitValue(final boolean data, final double metadata) {
-		this(new String[] { BoaCasts.booleanToString(data) }, BoaCasts.doubleToString(metadata));
+		this(new String[] { BoaCasts.booleanToString(data) }, null);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -257,6 +292,7 @@ public class EmitValue implements Writable {
 	 * @param metadata A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final Tuple data, final String metadata) {
+		this.type = TUPLE;
 		this.tdata = data;
 	}
 
@@ -269,6 +305,15 @@ public class EmitValue implements Writable {
 		this(data, null);
 	}
 
+	/**
+	 * Construct an EmitValue.
+	 * 
+	 * @param data An array of bytes containing the serialized data to be emitted
+	 */
+	public EmitValue(final byte[] data) {
+		this.setData(data);
+	}
+
 	/**
 	 * Construct an EmitValue.
 	 * 
@@ -281,8 +326,8 @@ public class EmitValue implements Writable {
 		for (int i = 0; i < data.length; i++)
 			strings[i] = String.valueOf(data[i]);
 
-		this.data = strings;
-		this.metadata = metadata;
+		this.setData(strings);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -304,8 +349,8 @@ public class EmitValue implements Writable {
 		final String[] strings = new String[data.length];
 		for (int i = 0; i < data.length; i++)
 			strings[i] = String.valueOf(data[i]);
-		this.data = strings;
-		this.metadata = metadata;
+		this.setData(strings);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -320,92 +365,279 @@ public class EmitValue implements Writable {
 	/** {@inheritDoc} */
 	@Override
 	public void readFields(final DataInput in) throws IOException {
-
-		final char type = in.readChar();
-		if (type == 'S') {
-			final int count = in.readInt();
+		this.type = in.readByte();
+		this.data = null;
+		this.bdata = null;
+		this.tdata = null;
+
+		switch (this.type) {
+		case STRING:
+			final int count = WritableUtils.readVInt(in);
 			this.data = new String[count];
 			for (int i = 0; i < count; i++)
 				this.data[i] = Text.readString(in);
-		} else {
-			final int length = in.readInt();
-			if (length > 0) {
-				byte[] bytes = new byte[length];
-				in.readFully(bytes, 0, length);
-				ByteArrayInputStream bin = new ByteArrayInputStream(bytes);
-				ObjectInputStream dataIn = new ObjectInputStream(bin);
-				Object o = null;
-				try {
-					o = dataIn.readObject();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-				this.tdata = (Tuple) o;
-			}
+			break;
+		case LONG:
+			this.ldata = WritableUtils.readVLong(in);
+			break;
+		case DOUBLE:
+			this.ddata = in.readDouble();
+			break;
+		case BYTES:
+			this.bdata = new byte[WritableUtils.readVInt(in)];
+			in.readFully(this.bdata);
+			break;
+		case TUPLE:
+			this.tdata = newTuple(Text.readString(in));
+			this.tdata.readFields(in);
+			break;
+		default:
+			break;
 		}
 
 		// read metadata
-		final String metadata = Text.readString(in);
-		if (metadata.equals(""))
-			this.metadata = null;
-		else
-			this.metadata = metadata;
+		this.mtype = in.readByte();
+		this.metadata = null;
+
+		switch (this.mtype) {
+		case STRING:
+			this.metadata = Text.readString(in);
+			break;
+		case LONG:
+			this.lmetadata = WritableUtils.readVLong(in);
+			break;
+		case DOUBLE:
+			this.dmetadata = in.readDouble();
+			break;
+		default:
+			break;
+		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void write(final DataOutput out) throws IOException {
-		// write string[] data
-		if (this.data != null) {
-			out.writeChar('S'); // set date type S
-			out.writeInt(this.data.length);
+		out.writeByte(this.type);
+
+		switch (this.type) {
+		case STRING:
+			WritableUtils.writeVInt(out, this.data.length);
 			for (final String d : this.data)
 				Text.writeString(out, d);
+			break;
+		case LONG:
+			WritableUtils.writeVLong(out, this.ldata);
+			break;
+		case DOUBLE:
+			out.writeDouble(this.ddata);
+			break;
+		case BYTES:
+			WritableUtils.writeVInt(out, this.bdata.length);
+			out.write(this.bdata);
+			break;
+		case TUPLE:
+			Text.writeString(out, this.tdata.getClass().getName());
+			this.tdata.write(out);
+			break;
+		default:
+			break;
 		}
 
-		// write tuple data
-		if (this.tdata != null) {
-			out.writeChar('T'); // set date type T
-			byte[] serializedObject = this.tdata.serialize(this.tdata);
-			out.writeInt(serializedObject.length);
-			out.write(serializedObject);
-		}
+		// write metadata, an empty string reads back as no metadata
+		final byte mtype = this.mtype == STRING && this.metadata.isEmpty() ? NONE : this.mtype;
+		out.writeByte(mtype);
 
-		// write metadata
-		if (this.metadata == null)
-			Text.writeString(out, "");
-		else
+		switch (mtype) {
+		case STRING:
 			Text.writeString(out, this.metadata);
+			break;
+		case LONG:
+			WritableUtils.writeVLong(out, this.lmetadata);
+			break;
+		case DOUBLE:
+			out.writeDouble(this.dmetadata);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private static Tuple newTuple(final String name) throws IOException {
+		try {
+			Constructor<? extends Tuple> c = tupleConstructors.get(name);
+			if (c == null) {
+				ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				if (loader == null)
+					loader = EmitValue.class.getClassLoader();
+				c = Class.forName(name, true, loader).asSubclass(Tuple.class).getDeclaredConstructor();
+				c.setAccessible(true);
+				tupleConstructors.put(name, c);
+			}
+			return c.newInstance();
+		} catch (final ReflectiveOperationException e) {
+			throw new IOException("can not create tuple " + name, e);
+		}
 	}
 
 	/**
-	 * @return the data
+	 * @return the data, converting a long or double datum to its {@link String} form
 	 */
 	public String[] getData() {
-		return this.data;
+		switch (this.type) {
+		case LONG:
+			return new String[] { BoaCasts.longToString(this.ldata) };
+		case DOUBLE:
+			return new String[] { BoaCasts.doubleToString(this.ddata) };
+		default:
+			return this.data;
+		}
 	}
 
 	/**
 	 * @param data the data to set
 	 */
 	public void setData(final String[] data) {
+		this.type = data == null ? NONE : STRING;
 		this.data = data;
 	}
 
 	/**
-	 * @return the metadata
+	 * @param data the long datum to set
+	 */
+	public void setData(final long data) {
+		this.type = LONG;
+		this.data = null;
+		this.ldata = data;
+	}
+
+	/**
+	 * @param data the double datum to set
+	 */
+	public void setData(final double data) {
+		this.type = DOUBLE;
+		this.data = null;
+		this.ddata = data;
+	}
+
+	/**
+	 * @param data the serialized datum to set
+	 */
+	public void setData(final byte[] data) {
+		this.type = BYTES;
+		this.data = null;
+		this.bdata = data;
+	}
+
+	/**
+	 * @return true if the datum is a single long
+	 */
+	public boolean isLongData() {
+		return this.type == LONG;
+	}
+
+	/**
+	 * @return true if the datum is a single double
+	 */
+	public boolean isDoubleData() {
+		return this.type == DOUBLE;
+	}
+
+	/**
+	 * @return true if the datum is serialized bytes
+	 */
+	public boolean isBytesData() {
+		return this.type == BYTES;
+	}
+
+	/**
+	 * @return the long datum
+	 */
+	public long getLongData() {
+		return this.ldata;
+	}
+
+	/**
+	 * @return the double datum
+	 */
+	public double getDoubleData() {
+		return this.ddata;
+	}
+
+	/**
+	 * @return the serialized datum
+	 */
+	public byte[] getBytesData() {
+		return this.bdata;
+	}
+
+	/**
+	 * @return the metadata, converting a long or double metadatum to its {@link String} form
 	 */
 	public String getMetadata() {
-		return this.metadata;
+		switch (this.mtype) {
+		case LONG:
+			return BoaCasts.longToString(this.lmetadata);
+		case DOUBLE:
+			return BoaCasts.doubleToString(this.dmetadata);
+		default:
+			return this.metadata;
+		}
 	}
 
 	/**
 	 * @param metadata the metadatum to set
 	 */
 	public void setMetadata(final String metadata) {
+		this.mtype = metadata == null ? NONE : STRING;
 		this.metadata = metadata;
 	}
 
+	/**
+	 * @param metadata the long metadatum to set
+	 */
+	public void setMetadata(final long metadata) {
+		this.mtype = LONG;
+		this.metadata = null;
+		this.lmetadata = metadata;
+	}
+
+	/**
+	 * @param metadata the double metadatum to set
+	 */
+	public void setMetadata(final double metadata) {
+		this.mtype = DOUBLE;
+		this.metadata = null;
+		this.dmetadata = metadata;
+	}
+
+	/**
+	 * @return true if the metadatum is a long
+	 */
+	public boolean isLongMetadata() {
+		return this.mtype == LONG;
+	}
+
+	/**
+	 * @return true if the metadatum is a double
+	 */
+	public boolean isDoubleMetadata() {
+		return this.mtype == DOUBLE;
+	}
+
+	/**
+	 * @return the long metadatum
+	 */
+	public long getLongMetadata() {
+		return this.lmetadata;
+	}
+
+	/**
+	 * @return the double metadatum
+	 */
+	public double getDoubleMetadata() {
+		return this.dmetadata;
+	}
+
 	public Tuple getTuple() {
 		return this.tdata;
 	}
@@ -414,8 +646,10 @@ public class EmitValue implements Writable {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(this.data);
-		result = prime * result + (this.metadata == null ? 0 : this.metadata.hashCode());
+		result = prime * result + Arrays.hashCode(this.getData());
+		result = prime * result + Arrays.hashCode(this.bdata);
+		final String metadata = this.getMetadata();
+		result = prime * result + (metadata == null ? 0 : metadata.hashCode());
 		return result;
 	}
 
@@ -428,12 +662,15 @@ public class EmitValue implements Writable {
 		if (this.getClass() != obj.getClass())
 			return false;
 		final EmitValue other = (EmitValue) obj;
-		if (!Arrays.equals(this.data, other.data))
+		if (!Arrays.equals(this.getData(), other.getData()))
+			return false;
+		if (!Arrays.equals(this.bdata, other.bdata))
 			return false;
-		if (this.metadata == null) {
-			if (other.metadata != null)
+		final String metadata = this.getMetadata();
+		if (metadata == null) {
+			if (other.getMetadata() != null)
 				return false;
-		} else if (!this.metadata.equals(other.metadata))
+		} else if (!metadata.equals(other.getMetadata()))
 			return false;
 		return true;
 	}
@@ -441,6 +678,6 @@ public class EmitValue implements Writable {
 	/** {@inheritDoc} */
 	@Override
 	public String toString() {
-		return Arrays.toString(this.data) + ":" + this.metadata;
+		return Arrays.toString(this.getData()) + ":" + this.getMetadata();
 	}
 }
\ No newline at end of file
@@ -16,12 +16,17 @@
  */
 package boa.runtime;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Stack;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
 import boa.graphs.ddg.DDG;
 import boa.graphs.ddg.DDGNode;
 import boa.graphs.pdg.PDG;
@@ -39,6 +44,71 @@ import boa.graphs.cdg.*;
  * @author rramu
  */
 public abstract class BoaAbstractTraversal<T1> {
+	/**
+	 * The configuration key for the most nodes a forward worklist traversal
+	 * visits before it stops short of a fixpoint.
+	 */
+	public static final String WORKLIST_BUDGET = "boa.traversal.worklist.budget";
+
+	private static final int DEFAULT_WORKLIST_BUDGET = 3500;
+
+	/**
+	 * The configuration key for the most milliseconds a CFG traversal that
+	 * repeats until a fixpoint may take, or 0 for no limit.
+	 */
+	public static final String TIME_BUDGET = "boa.traversal.time.budget";
+
+	/**
+	 * The configuration key for what a traversal does once it is over its
+	 * visit or time budget, one of {@link BudgetFallback}.
+	 */
+	public static final String BUDGET_FALLBACK = "boa.traversal.budget.fallback";
+
+	public static enum BudgetFallback {
+		/** stop short of the fixpoint, keeping the results so far */
+		TRUNCATE,
+		/** keep going to the fixpoint, so results are exact */
+		EXACT,
+		/** fail the traversal with an exception */
+		FAIL,
+	};
+
+	public static enum TRAVERSALCOUNTER {
+		WORKLIST_BUDGET_EXHAUSTED,
+		TIME_BUDGET_EXHAUSTED,
+	};
+
+	@SuppressWarnings("rawtypes")
+	private static Context context;
+	private static int worklistBudget = DEFAULT_WORKLIST_BUDGET;
+	private static long timeBudget = 0;
+	private static BudgetFallback budgetFallback = BudgetFallback.TRUNCATE;
+
+	@SuppressWarnings("rawtypes")
+	public static void setup(final Context context) {
+		BoaAbstractTraversal.context = context;
+
+		final Configuration conf = context.getConfiguration();
+		worklistBudget = conf.getInt(WORKLIST_BUDGET, DEFAULT_WORKLIST_BUDGET);
+		if (worklistBudget <= 0)
+			worklistBudget = Integer.MAX_VALUE;
+		timeBudget = conf.getLong(TIME_BUDGET, 0);
+		budgetFallback = BudgetFallback.valueOf(conf.get(BUDGET_FALLBACK, BudgetFallback.TRUNCATE.name()).toUpperCase());
+	}
+
+	/**
+	 * Summarize the work done by a job's CFG traversals, per traversal kind.
+	 *
+	 * @param counters the job's counters
+	 * @return a table of the traversal counters, or an empty string if the job did no traversals
+	 */
+	public static String summary(final org.apache.hadoop.mapreduce.Counters counters) {
+		return TraversalProfile.summary(counters);
+	}
+
+	// the profile of the CFG traversal in progress
+	private TraversalProfile profile;
+
 	public java.util.HashMap<Long, T1> outputMapObj;
 	public java.util.HashMap<Long, T1> prevOutputMapObj;
 	public T1 currentResult;
@@ -120,6 +190,52 @@ public abstract class BoaAbstractTraversal<T1> {
 		traverse(cfg, direction, kind);
 	}
 
+	// start profiling a CFG traversal, unless it is part of one already
+	private TraversalProfile begin(final Traversal.TraversalKind kind) {
+		if (this.profile != null)
+			return null;
+		this.profile = new TraversalProfile(kind, timeBudget);
+		return this.profile;
+	}
+
+	private void end(final TraversalProfile profile) {
+		if (profile == null)
+			return;
+		profile.finish(context);
+		this.profile = null;
+	}
+
+	private void visit(final CFGNode node, final boolean flag) throws Exception {
+		if (this.profile != null)
+			this.profile.visits++;
+		traverse(node, flag);
+	}
+
+	/**
+	 * Handle a traversal going over its budget.
+	 *
+	 * @param cause the counter of the budget that ran out
+	 * @return true if the traversal should stop
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean overBudget(final TRAVERSALCOUNTER cause) {
+		if (this.profile != null)
+			this.profile.overBudget = true;
+
+		switch (budgetFallback) {
+			case EXACT:
+				return false;
+			case FAIL:
+				throw new IllegalStateException("traversal over budget, see " + WORKLIST_BUDGET + " and " + TIME_BUDGET);
+			default:
+				if (this.profile != null)
+					this.profile.truncated = true;
+				if (context != null)
+					context.getCounter(cause).increment(1);
+				return true;
+		}
+	}
+
 	public final void dfsForward(final TreeNode node, java.util.Set<Long> visitedNodes) throws Exception {
 		final Stack<TreeNode> s = new Stack<TreeNode>();
 		s.push(node);
@@ -143,8 +259,8 @@ public abstract class BoaAbstractTraversal<T1> {
 			if (!visitedNodes.contains(n.getId())) {
 				traverse(n, false);
 				visitedNodes.add(n.getId());
-				for (int i = n.getSuccessors().size() - 1; i >= 0; i--) {
-					s.push(n.getSuccessors().get(i));
+				for (int i = n.getSuccessorCount() - 1; i >= 0; i--) {
+					s.push(n.getSuccessor(i));
 				}
 			}
 		}
@@ -158,8 +274,8 @@ public abstract class BoaAbstractTraversal<T1> {
 			if (!visitedNodes.contains(n.getId())) {
 				traverse(n, false);
 				visitedNodes.add(n.getId());
-				for (int i = n.getSuccessors().size() - 1; i >= 0; i--) {
-					s.push(n.getSuccessors().get(i));
+				for (int i = n.getSuccessorCount() - 1; i >= 0; i--) {
+					s.push(n.getSuccessor(i));
 				}
 			}
 		}
@@ -173,8 +289,8 @@ public abstract class BoaAbstractTraversal<T1> {
 			if (!visitedNodes.contains(n.getId())) {
 				traverse(n, false);
 				visitedNodes.add(n.getId());
-				for (int i = n.getSuccessors().size() - 1; i >= 0; i--) {
-					s.push(n.getSuccessors().get(i));
+				for (int i = n.getSuccessorCount() - 1; i >= 0; i--) {
+					s.push(n.getSuccessor(i));
 				}
 			}
 		}
@@ -188,8 +304,8 @@ public abstract class BoaAbstractTraversal<T1> {
 			if (!visitedNodes.contains(n.getId())) {
 				traverse(n, false);
 				visitedNodes.add(n.getId());
-				for (int i = n.getSuccessors().size() - 1; i >= 0; i--) {
-					s.push(n.getSuccessors().get(i));
+				for (int i = n.getSuccessorCount() - 1; i >= 0; i--) {
+					s.push(n.getSuccessor(i));
 				}
 			}
 		}
@@ -201,7 +317,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		while (!s.isEmpty()) {
 			final CFGNode n = s.pop();
 			if (!visitedNodes.contains(n.getId())) {
-				traverse(n, false);
+				visit(n, false);
 				visitedNodes.add(n.getId());
                 List<CFGNode> succ = n.getSuccessors();
                 Collections.sort(succ);
@@ -218,7 +334,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		while (!s.isEmpty()) {
 			final CFGNode n = s.pop();
 			if (!visitedNodes.contains(n.getId())) {
-				traverse(n, false);
+				visit(n, false);
 				visitedNodes.add(n.getId());
                 List<CFGNode> preds = n.getPredecessors();
                 Collections.sort(preds);
@@ -232,29 +348,32 @@ public abstract class BoaAbstractTraversal<T1> {
 	public final void postorderBackward(final CFGNode node, java.util.Set<Long> visitedNodes) throws Exception {
 		// FIXME remove recursion
 		visitedNodes.add(node.getId());
-		for (final CFGNode succ : node.getSuccessors()) {
+		for (int i = 0; i < node.getSuccessorCount(); i++) {
+			final CFGNode succ = node.getSuccessor(i);
 			if (!visitedNodes.contains(succ.getId())) {
 				postorderBackward(succ, visitedNodes);
 			}
 		}
-		traverse(node, false);
+		visit(node, false);
 	}
 
 	public final void postorderForward(final CFGNode node, java.util.Set<Long> visitedNodes) throws Exception {
 		// FIXME remove recursion
 		visitedNodes.add(node.getId());
-		for (final CFGNode pred : node.getPredecessors()) {
+		for (int i = 0; i < node.getPredecessorCount(); i++) {
+			final CFGNode pred = node.getPredecessor(i);
 			if (!visitedNodes.contains(pred.getId())) {
 				postorderForward(pred, visitedNodes);
 			}
 		}
-		traverse(node, false);
+		visit(node, false);
 	}
 
 	public final void populateWithPostorder(final CFGNode node, java.util.Set<Long> visitedNodes, Queue<CFGNode> queue) throws Exception {
 		// FIXME remove recursion
 		visitedNodes.add(node.getId());
-		for (final CFGNode succ : node.getSuccessors()) {
+		for (int i = 0; i < node.getSuccessorCount(); i++) {
+			final CFGNode succ = node.getSuccessor(i);
 			if (!visitedNodes.contains(succ.getId())) {
 				populateWithPostorder(succ, visitedNodes, queue);
 			}
@@ -265,7 +384,8 @@ public abstract class BoaAbstractTraversal<T1> {
 	public final void populateWithReversePostorder(final CFGNode node, java.util.Set<Long> visitedNodes, Stack<CFGNode> stack) throws Exception {
 		// FIXME remove recursion
 		visitedNodes.add(node.getId());
-		for (final CFGNode succ : node.getSuccessors()) {
+		for (int i = 0; i < node.getSuccessorCount(); i++) {
+			final CFGNode succ = node.getSuccessor(i);
 			if (!visitedNodes.contains(succ.getId())) {
 				populateWithReversePostorder(succ, visitedNodes, stack);
 			}
@@ -274,62 +394,21 @@ public abstract class BoaAbstractTraversal<T1> {
 	}
 
 	public final void worklistReversePostorderForward(final Stack<CFGNode> stack, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		int nodeCount = 0;
-		while (!stack.isEmpty()) {
-			final CFGNode node = stack.pop();
-			traverse(node, true);
-			nodeCount++;
-			// FIXME why is this here?
-			if (nodeCount > 3500) {
-				return;
-			}
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode succ : node.getSuccessors()) {
-					if (!stack.contains(succ))
-						stack.push(succ);
-				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
-		}
+		worklist(seed(stack), true, fixp, worklistBudget);
 	}
 
 	public final void worklistReversePostorderBackward(final Stack<CFGNode> stack, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!stack.isEmpty()) {
-			final CFGNode node = stack.pop();
-			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode succ : node.getPredecessors()) {
-					if (!stack.contains(succ))
-						stack.push(succ);
-				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
-		}
+		worklist(seed(stack), false, fixp, Integer.MAX_VALUE);
 	}
 
 	public final void worklistReversePostorderWithoutFixp(final Stack<CFGNode> stack, final Traversal.TraversalKind kind) throws Exception {
 		while (!stack.isEmpty()) {
 			final CFGNode node = stack.pop();
-			traverse(node, true);
+			visit(node, true);
 			final boolean fixpFlag = true;
 			if (!fixpFlag) {
-				for (final CFGNode succ : node.getSuccessors()) {
+				for (int i = 0; i < node.getSuccessorCount(); i++) {
+					final CFGNode succ = node.getSuccessor(i);
 					if (!stack.contains(succ))
 						stack.push(succ);
 				}
@@ -340,10 +419,11 @@ public abstract class BoaAbstractTraversal<T1> {
 	public final void worklistPostorderWithoutFixp(final Queue<CFGNode> queue, final Traversal.TraversalKind kind) throws Exception {
 		while (!queue.isEmpty()) {
 			final CFGNode node = queue.remove();
-			traverse(node, true);
+			visit(node, true);
 			final boolean fixpFlag = true;
 			if (!fixpFlag) {
-				for (final CFGNode pred : node.getPredecessors()) {
+				for (int i = 0; i < node.getPredecessorCount(); i++) {
+					final CFGNode pred = node.getPredecessor(i);
 					if (!queue.contains(pred))
 						queue.add(pred);
 				}
@@ -352,51 +432,80 @@ public abstract class BoaAbstractTraversal<T1> {
 	}
 
 	public final void worklistPostorderBackward(final Queue<CFGNode> queue, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!queue.isEmpty()) {
-			final CFGNode node = queue.remove();
-			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode pred : node.getPredecessors()) {
-					if (!queue.contains(pred))
-						queue.add(pred);
-				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
-		}
+		worklist(seed(queue), false, fixp, Integer.MAX_VALUE);
 	}
 
 	public final void worklistPostorderForward(final Queue<CFGNode> queue, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!queue.isEmpty()) {
-			final CFGNode node = queue.remove();
-			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
+		worklist(seed(queue), true, fixp, Integer.MAX_VALUE);
+	}
+
+	private static Worklist seed(final Stack<CFGNode> stack) {
+		final Worklist worklist = new Worklist();
+		for (int i = stack.size() - 1; i >= 0; i--)
+			worklist.add(stack.get(i));
+		stack.clear();
+		return worklist;
+	}
+
+	private static Worklist seed(final Queue<CFGNode> queue) {
+		final Worklist worklist = new Worklist();
+		while (!queue.isEmpty())
+			worklist.add(queue.remove());
+		return worklist;
+	}
+
+	/**
+	 * Visit nodes until the analysis reaches a fixpoint.  A node whose result
+	 * changed since its last visit puts its successors (or predecessors,
+	 * going backward) back on the worklist.
+	 *
+	 * @param worklist the nodes to visit, seeded in the order to visit them
+	 * @param forward whether results flow to successors rather than predecessors
+	 * @param fixp decides if a node's result is unchanged from its last visit
+	 * @param budget the most nodes to visit before going over budget
+	 */
+	private void worklist(final Worklist worklist, final boolean forward, final BoaAbstractFixP fixp, final int budget) throws Exception {
+		// the result of each node's last visit, by node id
+		@SuppressWarnings("unchecked")
+		T1[] prevResults = (T1[]) new Object[16];
+		final BitSet visited = new BitSet();
+
+		int nodeCount = 0;
+		while (!worklist.isEmpty()) {
+			if (++nodeCount > budget && overBudget(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXHAUSTED))
+				return;
+
+			final CFGNode node = worklist.remove();
+			visit(node, true);
+			if (this.profile != null && this.profile.isOverTime() && overBudget(TRAVERSALCOUNTER.TIME_BUDGET_EXHAUSTED))
+				return;
+
+			final int id = node.getNodeId();
 			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
+			if (visited.get(id) && this.profile != null)
+				this.profile.iterations++;
+			if (visited.get(id) && outputMapObj.containsKey(node.getId()))
+				fixpFlag = fixp.invoke(outputMapObj.get(node.getId()), prevResults[id]);
 			if (!fixpFlag) {
-				for (final CFGNode pred : node.getSuccessors()) {
-					if (!queue.contains(pred))
-						queue.add(pred);
+				if (forward) {
+					for (int i = 0; i < node.getSuccessorCount(); i++)
+						worklist.add(node.getSuccessor(i));
+				} else {
+					for (int i = 0; i < node.getPredecessorCount(); i++)
+						worklist.add(node.getPredecessor(i));
 				}
 			}
-			prevOutputMapObj.put(node.getId(), currentResult);
+
+			if (id >= prevResults.length)
+				prevResults = Arrays.copyOf(prevResults, Math.max(id + 1, prevResults.length * 2));
+			prevResults[id] = currentResult;
+			visited.set(id);
 		}
 	}
 
 	public final void traverse(final boa.graphs.cfg.CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
 		if (cfg == null || cfg.getNodes() == null) return;
+		final TraversalProfile profile = begin(kind);
 		try {
 			if (outputMapObj == null) {
 				outputMapObj = new java.util.HashMap<Long, T1>();
@@ -424,6 +533,9 @@ public abstract class BoaAbstractTraversal<T1> {
 								}
 							}
 						}
+						this.profile.iterations++;
+						if (!fixpFlag && this.profile.isOverTime() && overBudget(TRAVERSALCOUNTER.TIME_BUDGET_EXHAUSTED))
+							break;
 					} while (!fixpFlag);
 					break;
 				case WORKLIST_POSTORDER:
@@ -448,7 +560,7 @@ public abstract class BoaAbstractTraversal<T1> {
 											postorderBackward(cfg.getEntryNode(), visitedNodes);
 										} else {
 											for (int i = nl.length - 1; i >= 0; i--) {
-												traverse(nl[i], false);
+												visit(nl[i], false);
 											}
 										}
 										break;
@@ -461,7 +573,7 @@ public abstract class BoaAbstractTraversal<T1> {
 											postorderForward(cfg.getExitNode(), visitedNodes);
 										} else {
 											for (int i = 0; i < nl.length; i++) {
-												traverse(nl[i], false);
+												visit(nl[i], false);
 											}
 										}
 										break;
@@ -475,13 +587,13 @@ public abstract class BoaAbstractTraversal<T1> {
 											final Queue<CFGNode> queue = new LinkedList<CFGNode>();
 											populateWithPostorder(cfg.getEntryNode(), visitedNodes, queue);
 											while (!queue.isEmpty()) {
-												traverse(queue.remove(), false);
+												visit(queue.remove(), false);
 											}
 										} else if (cfg.getIsBranchPresent()) {
 											postorderBackward(cfg.getEntryNode(), visitedNodes);
 										} else {
 											for (int i = nl.length - 1; i >= 0; i--) {
-												traverse(nl[i], false);
+												visit(nl[i], false);
 											}
 										}
 										break;
@@ -490,13 +602,13 @@ public abstract class BoaAbstractTraversal<T1> {
 											final Stack<CFGNode> stack = new Stack<CFGNode>();
 											populateWithReversePostorder(cfg.getEntryNode(), visitedNodes, stack);
 											while (!stack.isEmpty()) {
-												traverse(stack.pop(), false);
+												visit(stack.pop(), false);
 											}
 										} else if (cfg.getIsBranchPresent()) {
 											postorderForward(cfg.getExitNode(), visitedNodes);
 										} else {
 											for (int i = 0; i < nl.length; i++) {
-												traverse(nl[i], false);
+												visit(nl[i], false);
 											}
 										}
 										break;
@@ -511,7 +623,11 @@ public abstract class BoaAbstractTraversal<T1> {
 					break;
 			}
 		} catch (final java.lang.StackOverflowError e) {
+			// the recursive orders gave up part way
+			this.profile.truncated = true;
 			return;
+		} finally {
+			end(profile);
 		}
 	}
 
@@ -559,6 +675,7 @@ public abstract class BoaAbstractTraversal<T1> {
 
 	public final void traverse(final boa.graphs.cfg.CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind) throws Exception {
 		if (cfg == null || cfg.getNodes() == null) return;
+		final TraversalProfile profile = begin(kind);
 		try {
 			if (preTraverse(cfg)) {
 				if (outputMapObj == null) {
@@ -619,25 +736,25 @@ public abstract class BoaAbstractTraversal<T1> {
 							switch (direction) {
 								case FORWARD:
 									for (int i = 0; i < nl.length; i++) {
-										traverse(nl[i], false);
+										visit(nl[i], false);
 									}
 									break;
 								default:
 								case BACKWARD:
 									for (int i = nl.length - 1; i >= 0; i--) {
-										traverse(nl[i], false);
+										visit(nl[i], false);
 									}
 									break;
 							}
 							break;
 						case RANDOM:
 							for (final CFGNode n : cfg.getNodes()) {
-								traverse(n, false);
+								visit(n, false);
 							}
 							break;
 						case HYBRID:
 							for (int i = 0; i < nl.length; i++) {
-								traverse(nl[i], false);
+								visit(nl[i], false);
 							}
 							break;
 						default:
@@ -646,7 +763,11 @@ public abstract class BoaAbstractTraversal<T1> {
 				}
 			}
 		} catch (final java.lang.StackOverflowError e) {
+			// the recursive orders gave up part way
+			this.profile.truncated = true;
 			return;
+		} finally {
+			end(profile);
 		}
 	}
 
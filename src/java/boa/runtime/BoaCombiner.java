@@ -88,13 +88,12 @@ public abstract class BoaCombiner extends Reducer<EmitKey, EmitValue, EmitKey, E
 		final Aggregator a = this.aggregators.get(key.getName());
 
 		a.setCombining(true);
-		a.start(key);
 		a.setContext(context);
+		a.start(key);
 
 		for (final EmitValue value : values)
 			try {
-				for (final String s : value.getData())
-					a.aggregate(s, value.getMetadata());
+				a.aggregate(value);
 			} catch (final FinishedException e) {
 				// we are done
 				return;
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.runtime;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapred.Task;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.Progressable;
+
+import boa.io.BoaOutputCommitter;
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+
+/**
+ * Runs a compiled Boa job on local data inside the calling JVM, without
+ * going through Hadoop's job runner.
+ *
+ * The projects are read straight from the sequence file and mapped by the
+ * job's mapper on {@link BoaMapper#THREADS} threads.  The values emitted are
+ * kept in memory, sorted by key, and reduced by the job's reducer into a
+ * single part file, in the same format as the job's output.  Values emitted
+ * are copied the way Hadoop serializes them, so the reducer sees the same
+ * values it would in a Hadoop job.  The job sets its keys in the
+ * configuration through {@link BoaRunner#configure(Configuration)}.
+ *
+ * When the output variables are spread over several reducers each, the
+ * values are partitioned and the partial outputs merged back as in a
+ * Hadoop job, so the part file is the same however many there are.
+ *
+ * @author agent
+ */
+public class BoaLocalRunner {
+	private final BoaRunner job;
+	private final Configuration conf;
+
+	private final Counters counters = new Counters();
+	private final StatusReporter reporter = new StatusReporter() {
+		@Override
+		public Counter getCounter(final Enum<?> name) {
+			synchronized (counters) {
+				return counters.findCounter(name);
+			}
+		}
+
+		@Override
+		public Counter getCounter(final String group, final String name) {
+			synchronized (counters) {
+				return counters.findCounter(group, name);
+			}
+		}
+
+		@Override
+		public void progress() {
+		}
+
+		@Override
+		public void setStatus(final String status) {
+		}
+	};
+
+	/**
+	 * Construct a {@link BoaLocalRunner}.
+	 *
+	 * @param job
+	 *            The compiled {@link BoaRunner} to run
+	 *
+	 * @param conf
+	 *            The {@link Configuration} to run the job with, such as the
+	 *            number of {@link BoaMapper#THREADS} to map projects with
+	 */
+	public BoaLocalRunner(final BoaRunner job, final Configuration conf) {
+		this.job = job;
+		this.conf = conf;
+		this.job.configure(this.conf);
+	}
+
+	/**
+	 * @return The counters of the last run
+	 */
+	public Counters getCounters() {
+		return this.counters;
+	}
+
+	/**
+	 * Run the job.
+	 *
+	 * @param in
+	 *            The directory holding the local data
+	 *
+	 * @param out
+	 *            The directory to write the output to
+	 */
+	public void run(final String in, final String out) throws IOException, InterruptedException {
+		this.conf.set("boa.input.dir", in);
+
+		final TreeMap<EmitKey, List<EmitValue>> emitted = this.map(new Path(in, "projects.seq"));
+
+		final File dir = new File(out);
+		if (!dir.exists() && !dir.mkdirs())
+			throw new IOException("unable to mkdir " + dir);
+		try (final OutputStream o = new BufferedOutputStream(new FileOutputStream(new File(dir, "part-r-00000")))) {
+			if (BoaPartitioner.getReducersPerVariable(this.conf) > 1 && BoaPartitioner.getVariableCount() > 0)
+				this.reduceSpread(emitted, new Path(dir.getAbsolutePath(), "_parts"), o);
+			else
+				this.reduce(emitted, o);
+		}
+	}
+
+	/**
+	 * Reduce the values the way a job spreading each output variable over
+	 * several reducers does.  The keys are partitioned by {@link BoaPartitioner},
+	 * each partition is reduced into its own file, and each variable's files
+	 * are merged the way {@link BoaOutputCommitter} merges them.  The
+	 * variables are written in key order, as a single reducer writes them.
+	 */
+	private void reduceSpread(final TreeMap<EmitKey, List<EmitValue>> emitted, final Path tmp, final OutputStream o) throws IOException, InterruptedException {
+		final int reducersPerVariable = BoaPartitioner.getReducersPerVariable(this.conf);
+		final int num = BoaPartitioner.getVariableCount() * reducersPerVariable;
+
+		final BoaPartitioner partitioner = new BoaPartitioner();
+		partitioner.setConf(this.conf);
+		final List<TreeMap<EmitKey, List<EmitValue>>> partitions = new ArrayList<TreeMap<EmitKey, List<EmitValue>>>();
+		for (int i = 0; i < num; i++)
+			partitions.add(new TreeMap<EmitKey, List<EmitValue>>());
+		for (final Map.Entry<EmitKey, List<EmitValue>> e : emitted.entrySet())
+			partitions.get(partitioner.getPartition(e.getKey(), null, num)).put(e.getKey(), e.getValue());
+
+		final FileSystem fs = FileSystem.getLocal(this.conf);
+		final TreeMap<String, List<Path>> parts = new TreeMap<String, List<Path>>();
+		for (int i = 0; i < num; i++) {
+			final Path part = new Path(tmp, "part-r-" + String.format("%05d", i));
+			try (final OutputStream po = fs.create(part)) {
+				this.reduce(partitions.get(i), po);
+			}
+
+			final String var = BoaPartitioner.getVariableFromPartition(i, reducersPerVariable);
+			if (!parts.containsKey(var))
+				parts.put(var, new ArrayList<Path>());
+			parts.get(var).add(part);
+		}
+
+		final Writer writer = new OutputStreamWriter(o, "UTF-8");
+		for (final List<Path> p : parts.values())
+			BoaOutputCommitter.mergeParts(fs, p, writer, new Progressable() {
+				@Override
+				public void progress() {
+				}
+			});
+		writer.flush();
+		fs.delete(tmp, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	private TreeMap<EmitKey, List<EmitValue>> map(final Path in) throws IOException, InterruptedException {
+		final TreeMap<EmitKey, List<EmitValue>> emitted = new TreeMap<EmitKey, List<EmitValue>>();
+
+		final BoaMapper mapper = (BoaMapper) this.job.getMapper();
+		mapper.setConf(this.conf);
+
+		final FileSystem fs = FileSystem.getLocal(this.conf);
+		final SequenceFile.Reader reader = new SequenceFile.Reader(fs, in, this.conf);
+		try {
+			final RecordReader<Text, BytesWritable> input = new RecordReader<Text, BytesWritable>() {
+				private final Text key = new Text();
+				private final BytesWritable value = new BytesWritable();
+
+				@Override
+				public void initialize(final InputSplit split, final TaskAttemptContext context) {
+				}
+
+				@Override
+				public boolean nextKeyValue() throws IOException {
+					return reader.next(this.key, this.value);
+				}
+
+				@Override
+				public Text getCurrentKey() {
+					return this.key;
+				}
+
+				@Override
+				public BytesWritable getCurrentValue() {
+					return this.value;
+				}
+
+				@Override
+				public float getProgress() {
+					return 0;
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+
+			// the mapper's threads take turns writing
+			final RecordWriter<EmitKey, EmitValue> output = new RecordWriter<EmitKey, EmitValue>() {
+				@Override
+				public void write(final EmitKey key, final EmitValue value) {
+					final EmitKey k = WritableUtils.clone(key, conf);
+					List<EmitValue> values = emitted.get(k);
+					if (values == null) {
+						values = new ArrayList<EmitValue>();
+						emitted.put(k, values);
+					}
+					values.add(WritableUtils.clone(value, conf));
+				}
+
+				@Override
+				public void close(final TaskAttemptContext context) {
+				}
+			};
+
+			final FileSplit split = new FileSplit(in, 0, fs.getFileStatus(in).getLen(), null);
+			mapper.run(mapper.new Context(this.conf, new TaskAttemptID(), input, output, null, this.reporter, split));
+		} finally {
+			reader.close();
+		}
+
+		return emitted;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void reduce(final TreeMap<EmitKey, List<EmitValue>> emitted, final OutputStream o) throws IOException, InterruptedException {
+		final BoaReducer reducer = this.job.getReducer();
+		reducer.setConf(this.conf);
+
+		// the sorted values are serialized back, so the reducer reads them
+		// the way it reads the merged map outputs in a Hadoop job
+		final Iterator<Map.Entry<EmitKey, List<EmitValue>>> groups = emitted.entrySet().iterator();
+		final RawKeyValueIterator input = new RawKeyValueIterator() {
+			private final DataOutputBuffer buffer = new DataOutputBuffer();
+			private final DataInputBuffer key = new DataInputBuffer();
+			private final DataInputBuffer value = new DataInputBuffer();
+
+			private EmitKey group;
+			private Iterator<EmitValue> values = Collections.<EmitValue>emptyList().iterator();
+
+			@Override
+			public DataInputBuffer getKey() {
+				return this.key;
+			}
+
+			@Override
+			public DataInputBuffer getValue() {
+				return this.value;
+			}
+
+			@Override
+			public boolean next() throws IOException {
+				while (!this.values.hasNext()) {
+					if (!groups.hasNext())
+						return false;
+					final Map.Entry<EmitKey, List<EmitValue>> e = groups.next();
+					this.group = e.getKey();
+					this.values = e.getValue().iterator();
+				}
+
+				this.buffer.reset();
+				this.group.write(this.buffer);
+				final int length = this.buffer.getLength();
+				this.values.next().write(this.buffer);
+
+				this.key.reset(this.buffer.getData(), 0, length);
+				this.value.reset(this.buffer.getData(), length, this.buffer.getLength() - length);
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+
+			@Override
+			public Progress getProgress() {
+				return new Progress();
+			}
+		};
+
+		// written like TextOutputFormat writes a key with no value
+		final RecordWriter<Text, NullWritable> output = new RecordWriter<Text, NullWritable>() {
+			@Override
+			public void write(final Text key, final NullWritable value) throws IOException {
+				o.write(key.getBytes(), 0, key.getLength());
+				o.write('\n');
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+
+		reducer.run(reducer.new Context(this.conf, new TaskAttemptID(), input,
+				this.reporter.getCounter(Task.Counter.REDUCE_INPUT_GROUPS), this.reporter.getCounter(Task.Counter.REDUCE_INPUT_RECORDS),
+				output, null, this.reporter, WritableComparator.get(EmitKey.class), EmitKey.class, EmitValue.class));
+	}
+}
@@ -17,28 +17,104 @@
 package boa.runtime;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.log4j.Logger;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.FinishedException;
 import boa.io.EmitKey;
 import boa.io.EmitValue;
+import boa.types.Toplevel.Project;
 
 /**
  * A {@link Mapper} that performs the brunt of all Boa work.
  * 
+ * Values emitted to output variables whose aggregator can combine are folded
+ * into an in-memory table of combining aggregators, one per output variable
+ * and index, instead of being written out one by one.  The table is flushed
+ * to the context when it holds {@link #COMBINE_SIZE} keys, when more than
+ * {@link #COMBINE_MEMORY} of the heap is in use, and during cleanup.
+ * 
+ * If {@link #THREADS} is above 1, several input records are mapped at once,
+ * each by one of as many copies of the mapper, so the state of the
+ * program's visitors and output variables is confined to one thread.  The
+ * values each record emits without combining are held until the records
+ * before it are done, so they are written in input order.
+ * 
  * @author anthonyu
  */
 public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, EmitValue> implements Configurable {
 	protected static final Logger LOG = Logger.getLogger(BoaMapper.class);
 
+	/**
+	 * The configuration key holding the number of keys the in-mapper combiner
+	 * holds before flushing.  A value of 0 disables in-mapper combining.
+	 */
+	public static final String COMBINE_SIZE = "boa.map.combine.size";
+
+	private static final int DEFAULT_COMBINE_SIZE = 10000;
+
+	/**
+	 * The configuration key holding the fraction of the maximum heap that
+	 * may be in use before the in-mapper combiner is flushed early.  Memory
+	 * is checked every 1024 keys.
+	 */
+	public static final String COMBINE_MEMORY = "boa.map.combine.memory";
+
+	private static final float DEFAULT_COMBINE_MEMORY = 0.75f;
+
+	/**
+	 * The configuration key holding the number of threads mapping input
+	 * records.  Programs with static variables share them between threads,
+	 * so they should keep the default of 1.
+	 */
+	public static final String THREADS = "boa.map.threads";
+
+	private static final int DEFAULT_THREADS = 1;
+
+	private static class Emit {
+		private final EmitKey key;
+		private final EmitValue value;
+
+		Emit(final EmitKey key, final EmitValue value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
 	private Configuration conf;
 	protected Context context;
 
+	private final Map<EmitKey, Aggregator> combined = new HashMap<EmitKey, Aggregator>();
+	private int combineSize = DEFAULT_COMBINE_SIZE;
+	private float combineMemory = DEFAULT_COMBINE_MEMORY;
+	private int threads = DEFAULT_THREADS;
+
+	// the values emitted by the record being mapped, when mapping on a thread
+	private List<Emit> emits;
+
 	/** {@inheritDoc} */
 	@Override
 	public Configuration getConf() {
@@ -49,6 +125,92 @@ public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, Emi
 	@Override
 	public void setConf(final Configuration conf) {
 		this.conf = conf;
+		this.combineSize = conf.getInt(COMBINE_SIZE, DEFAULT_COMBINE_SIZE);
+		this.combineMemory = conf.getFloat(COMBINE_MEMORY, DEFAULT_COMBINE_MEMORY);
+		this.threads = conf.getInt(THREADS, DEFAULT_THREADS);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void run(final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException, InterruptedException {
+		if (this.threads <= 1) {
+			super.run(context);
+			return;
+		}
+
+		this.setup(context);
+
+		final List<BoaMapper> mappers = new ArrayList<BoaMapper>();
+		final BlockingQueue<BoaMapper> idle = new ArrayBlockingQueue<BoaMapper>(this.threads);
+		mappers.add(this);
+		for (int i = 1; i < this.threads; i++) {
+			final BoaMapper mapper = ReflectionUtils.newInstance(this.getClass(), this.conf);
+			mapper.context = context;
+			mappers.add(mapper);
+		}
+		idle.addAll(mappers);
+
+		final ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		final Queue<Future<List<Emit>>> pending = new ArrayDeque<Future<List<Emit>>>();
+		try {
+			while (context.nextKeyValue()) {
+				// the record reader reuses its key and value
+				final Text key = new Text(context.getCurrentKey());
+				final BytesWritable value = new BytesWritable();
+				value.set(context.getCurrentValue());
+
+				pending.add(pool.submit(new Callable<List<Emit>>() {
+					@Override
+					public List<Emit> call() throws Exception {
+						final BoaMapper mapper = idle.take();
+						try {
+							return mapper.mapOnThread(key, value, context);
+						} finally {
+							idle.add(mapper);
+						}
+					}
+				}));
+
+				// keep a few records queued for each thread, but no more
+				if (pending.size() >= 2 * this.threads)
+					this.write(pending.remove());
+			}
+
+			while (!pending.isEmpty())
+				this.write(pending.remove());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		for (int i = 1; i < mappers.size(); i++)
+			mappers.get(i).flush();
+		this.cleanup(context);
+	}
+
+	private List<Emit> mapOnThread(final Text key, final BytesWritable value, final Context context) throws IOException, InterruptedException {
+		this.emits = new ArrayList<Emit>();
+		try {
+			this.map(key, value, context);
+			return this.emits;
+		} finally {
+			this.emits = null;
+		}
+	}
+
+	private void write(final Future<List<Emit>> future) throws IOException, InterruptedException {
+		final List<Emit> emits;
+		try {
+			emits = future.get();
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+
+		synchronized (this.context) {
+			for (final Emit e : emits)
+				this.context.write(e.key, e.value);
+		}
 	}
 
 	/** {@inheritDoc} */
@@ -57,4 +219,125 @@ public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, Emi
 		super.setup(context);
 		this.context = context;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void cleanup(final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException, InterruptedException {
+		this.flush();
+		super.cleanup(context);
+	}
+
+	/**
+	 * Return a new aggregator that combines values emitted to the named
+	 * output variable, or null if that variable can not be combined.
+	 * 
+	 * @param name
+	 *            A {@link String} containing the name of the output variable
+	 * 
+	 * @return A new {@link Aggregator}, or null
+	 */
+	protected Aggregator getCombiningAggregator(final String name) {
+		return null;
+	}
+
+	/**
+	 * Emit a value to an output variable, folding it into the in-mapper
+	 * combiner if the variable's aggregator can combine.
+	 * 
+	 * @param key
+	 *            The {@link EmitKey} naming the output variable and index
+	 * 
+	 * @param value
+	 *            The {@link EmitValue} to emit
+	 */
+	public void emit(final EmitKey key, final EmitValue value) throws IOException, InterruptedException {
+		Aggregator a = this.combined.get(key);
+
+		if (a == null) {
+			if (this.combineSize <= 0 || (a = this.getCombiningAggregator(key.getName())) == null) {
+				if (this.emits != null)
+					this.emits.add(new Emit(key, value));
+				else
+					this.context.write(key, value);
+				return;
+			}
+
+			if (this.combined.size() >= this.combineSize || (this.combined.size() % 1024 == 0 && this.isMemoryLow()))
+				this.flush();
+
+			a.setCombining(true);
+			a.setContext(this.context);
+			a.start(key);
+			this.combined.put(key, a);
+		}
+
+		try {
+			a.aggregate(value);
+		} catch (final FinishedException e) {
+			// the aggregator needs no more values for this key
+		}
+	}
+
+	/**
+	 * Parse a project, keeping only some of its fields.  The other fields are
+	 * skipped without being parsed, and runs of kept fields are parsed
+	 * straight from the input.
+	 * 
+	 * @param bytes
+	 *            The serialized project
+	 * 
+	 * @param length
+	 *            The length of the serialized project
+	 * 
+	 * @param fields
+	 *            A mask with bit n set to keep field number n
+	 * 
+	 * @return The {@link Project}, possibly without some required fields
+	 */
+	public static Project parseProject(final byte[] bytes, final int length, final long fields) throws IOException {
+		final Project.Builder project = Project.newBuilder();
+		final CodedInputStream in = CodedInputStream.newInstance(bytes, 0, length);
+
+		// the start of the current run of kept fields, or -1
+		int start = -1;
+		while (true) {
+			final int pos = in.getTotalBytesRead();
+			final int tag = in.readTag();
+			final int number = WireFormat.getTagFieldNumber(tag);
+
+			if (tag != 0 && number < 64 && (fields & (1L << number)) != 0) {
+				if (start < 0)
+					start = pos;
+			} else if (start >= 0) {
+				project.mergeFrom(bytes, start, pos - start);
+				start = -1;
+			}
+
+			if (tag == 0)
+				break;
+			in.skipField(tag);
+		}
+
+		return project.buildPartial();
+	}
+
+	/**
+	 * Write out the partial results held by the in-mapper combiner.
+	 */
+	protected void flush() throws IOException, InterruptedException {
+		if (this.combined.isEmpty())
+			return;
+
+		// other threads may be writing too
+		synchronized (this.context) {
+			for (final Aggregator a : this.combined.values())
+				a.finish();
+		}
+		this.combined.clear();
+	}
+
+	private boolean isMemoryLow() {
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory() > runtime.maxMemory() * this.combineMemory;
+	}
 }
@@ -16,6 +16,8 @@
  */
 package boa.runtime;
 
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.Partitioner;
 
 import boa.io.EmitKey;
@@ -25,24 +27,67 @@ import boa.io.EmitValue;
  * A {@link Partitioner} that assigns each
  * output variable to its own reducer.
  *
+ * If {@link #REDUCERS_PER_VARIABLE} is set to a value larger than 1, each
+ * output variable instead gets that many consecutive reducers and its keys
+ * are spread over them by hashing the key's index.  The partial outputs are
+ * merged back into one file per variable by the
+ * {@link boa.io.BoaOutputCommitter}.
+ *
  * @author rdyer
  * @author hungc
  */
-public class BoaPartitioner extends Partitioner<EmitKey, EmitValue> {
+public class BoaPartitioner extends Partitioner<EmitKey, EmitValue> implements Configurable {
+	/**
+	 * The configuration key holding the number of reducers each output variable is spread over.
+	 */
+	public static final String REDUCERS_PER_VARIABLE = "boa.reducers.per.variable";
+
 	private static String[] outputVariableNames = new String[0];
 
+	private Configuration conf;
+	private int reducersPerVariable = 1;
+
+	/** {@inheritDoc} */
+	@Override
+	public Configuration getConf() {
+		return this.conf;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setConf(final Configuration conf) {
+		this.conf = conf;
+		this.reducersPerVariable = getReducersPerVariable(conf);
+	}
+
 	public int getPartition(final EmitKey key, final EmitValue value, final int num) {
-		return getPartitionForVariable(key.getName()) % num;
+		final int partition = getPartitionForVariable(key.getName());
+		if (this.reducersPerVariable <= 1)
+			return partition % num;
+		return (partition * this.reducersPerVariable + (key.getIndex().hashCode() & Integer.MAX_VALUE) % this.reducersPerVariable) % num;
 	}
 
 	public static void setVariableNames(final String[] names) {
 		outputVariableNames = names;
 	}
 
+	public static int getVariableCount() {
+		return outputVariableNames.length;
+	}
+
+	public static int getReducersPerVariable(final Configuration conf) {
+		return Math.max(1, conf.getInt(REDUCERS_PER_VARIABLE, 1));
+	}
+
 	public static String getVariableFromPartition(final int pIndex) {
-		if (pIndex >= outputVariableNames.length)
+		return getVariableFromPartition(pIndex, 1);
+	}
+
+	public static String getVariableFromPartition(final int pIndex, final int reducersPerVariable) {
+		final int vIndex = pIndex / reducersPerVariable;
+		if (vIndex >= outputVariableNames.length)
 			return "part-r-" + String.format("%05d", pIndex);
-		return outputVariableNames[pIndex];
+		return outputVariableNames[vIndex];
 	}
 
 	public static int getPartitionForVariable(final String s) {
@@ -82,8 +82,8 @@ public abstract class BoaReducer extends Reducer<EmitKey, EmitValue, Text, NullW
 		final Aggregator a = this.aggregators.get(key.getName());
 		
 		a.setCombining(false);
-		a.start(key);
 		a.setContext(context);
+		a.start(key);
 
 		for (final EmitValue value : values)
 			try {
@@ -97,8 +97,7 @@ public abstract class BoaReducer extends Reducer<EmitKey, EmitValue, Text, NullW
 						mla.aggregate(value.getData(), value.getMetadata());
 					}
 				} else {
-					for (final String s : value.getData()) 
-						a.aggregate(s, value.getMetadata());
+					a.aggregate(value);
 				}
 			} catch (final FinishedException e) {
 				// we are done
@@ -100,6 +100,17 @@ public abstract class BoaRunner extends Configured implements Tool {
 		return job;
 	}
 
+	/**
+	 * Set the keys the compiled program depends on in a configuration.  Both
+	 * {@link #run(String[])} and {@link BoaLocalRunner} call this, so the
+	 * program sees the same configuration however it is run.
+	 *
+	 * @param configuration
+	 *            The {@link Configuration} to set the keys in
+	 */
+	public void configure(final Configuration configuration) {
+	}
+
 	protected static Options options = new Options();
 
 	static {
@@ -120,6 +131,16 @@ public abstract class BoaRunner extends Configured implements Tool {
 										.hasArg()
 										.withArgName("INPUT")
 										.create("c"));
+		options.addOption(org.apache.commons.cli.OptionBuilder.withLongOpt("reducers")
+										.withDescription("number of reducers to spread each output variable over")
+										.hasArg()
+										.withArgName("NUM")
+										.create("r"));
+		options.addOption(org.apache.commons.cli.OptionBuilder.withLongOpt("threads")
+										.withDescription("number of threads each map task maps projects with")
+										.hasArg()
+										.withArgName("NUM")
+										.create("t"));
 	}
 
 	protected static Options getOptions() { return options; }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.runtime;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
+import boa.types.Graph.Traversal.TraversalKind;
+
+/**
+ * The work done by one CFG traversal, added to Hadoop counters in a group
+ * per traversal kind when the traversal ends.
+ *
+ * Fixpoint iterations are passes over the whole graph for traversals that
+ * repeat until a fixpoint, and visits to nodes already visited for
+ * worklist traversals.
+ *
+ * @author agent
+ */
+public final class TraversalProfile {
+	public static final String GROUP = "Boa traversal ";
+
+	public static final String TRAVERSALS = "traversals";
+	public static final String VISITS = "node visits";
+	public static final String ITERATIONS = "fixpoint iterations";
+	public static final String OVER_BUDGET = "over budget";
+	public static final String TRUNCATED = "truncated";
+	public static final String TIME = "time (us)";
+
+	private static final String[] COLUMNS = { TRAVERSALS, VISITS, ITERATIONS, OVER_BUDGET, TRUNCATED, TIME };
+
+	private final TraversalKind kind;
+	private final long start = System.nanoTime();
+	private final long deadline;
+
+	long visits;
+	long iterations;
+	boolean overBudget;
+	boolean truncated;
+
+	/**
+	 * Start profiling a traversal.
+	 *
+	 * @param kind the kind of traversal
+	 * @param timeBudget the most milliseconds the traversal may take, or 0 for no limit
+	 */
+	TraversalProfile(final TraversalKind kind, final long timeBudget) {
+		this.kind = kind;
+		this.deadline = timeBudget > 0 ? this.start + timeBudget * 1000000L : Long.MAX_VALUE;
+	}
+
+	boolean isOverTime() {
+		return this.deadline != Long.MAX_VALUE && System.nanoTime() > this.deadline;
+	}
+
+	@SuppressWarnings("rawtypes")
+	void finish(final Context context) {
+		if (context == null)
+			return;
+
+		final String group = GROUP + this.kind.name();
+		context.getCounter(group, TRAVERSALS).increment(1);
+		context.getCounter(group, VISITS).increment(this.visits);
+		context.getCounter(group, ITERATIONS).increment(this.iterations);
+		if (this.overBudget)
+			context.getCounter(group, OVER_BUDGET).increment(1);
+		if (this.truncated)
+			context.getCounter(group, TRUNCATED).increment(1);
+		context.getCounter(group, TIME).increment((System.nanoTime() - this.start) / 1000);
+	}
+
+	/**
+	 * Summarize a job's traversal counters as a table, one row per kind.
+	 *
+	 * @param counters the job's counters
+	 * @return the table, or an empty string if the job did no traversals
+	 */
+	static String summary(final Counters counters) {
+		final StringBuilder sb = new StringBuilder();
+		for (final CounterGroup group : counters) {
+			if (!group.getName().startsWith(GROUP))
+				continue;
+
+			if (sb.length() == 0) {
+				sb.append(String.format("%-26s", "TRAVERSAL KIND"));
+				for (final String column : COLUMNS)
+					sb.append(String.format(" %20s", column));
+				sb.append("\n");
+			}
+
+			sb.append(String.format("%-26s", group.getName().substring(GROUP.length())));
+			for (final String column : COLUMNS) {
+				long value = 0;
+				for (final Counter c : group)
+					if (c.getName().equals(column))
+						value = c.getValue();
+				sb.append(String.format(" %20d", value));
+			}
+			sb.append("\n");
+		}
+		return sb.toString();
+	}
+}
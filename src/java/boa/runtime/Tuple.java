@@ -18,7 +18,13 @@ package boa.runtime;
 
 import java.io.IOException;
 
-public interface Tuple {
+import org.apache.hadoop.io.Writable;
+
+/**
+ * A Boa tuple.  Generated tuple classes write their fields one by one,
+ * and must have a no-argument constructor so they can be read back.
+ */
+public interface Tuple extends Writable {
 	public String[] getValues();
 	public String[] getFieldNames();
 	public byte[] serialize(Object o) throws IOException;
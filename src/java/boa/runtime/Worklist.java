@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.runtime;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import boa.graphs.cfg.CFGNode;
+
+/**
+ * A worklist of CFG nodes for fixpoint traversals.
+ *
+ * Each node is ranked by when it was first added, so a worklist seeded in
+ * reverse postorder always hands out the pending node with the lowest
+ * reverse postorder number.  Pending nodes are kept as a bit per rank,
+ * so adding a node already in the worklist does nothing.
+ *
+ * @author agent
+ */
+public final class Worklist {
+	private CFGNode[] nodes = new CFGNode[16];
+	// the rank of each node by id, plus one so unranked nodes are 0
+	private int[] ranks = new int[16];
+	private int size = 0;
+	private final BitSet pending = new BitSet();
+
+	/**
+	 * Add a node to the worklist, unless it is already there.
+	 *
+	 * @param node
+	 *            The {@link CFGNode} to add
+	 */
+	public void add(final CFGNode node) {
+		final int id = node.getNodeId();
+		if (id >= this.ranks.length)
+			this.ranks = Arrays.copyOf(this.ranks, Math.max(id + 1, this.ranks.length * 2));
+
+		int rank = this.ranks[id] - 1;
+		if (rank < 0) {
+			rank = this.size++;
+			if (rank >= this.nodes.length)
+				this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+			this.nodes[rank] = node;
+			this.ranks[id] = rank + 1;
+		}
+
+		this.pending.set(rank);
+	}
+
+	public boolean isEmpty() {
+		return this.pending.isEmpty();
+	}
+
+	/**
+	 * Remove the pending node of lowest rank.
+	 *
+	 * @return The {@link CFGNode} removed
+	 */
+	public CFGNode remove() {
+		final int rank = this.pending.nextSetBit(0);
+		this.pending.clear(rank);
+		return this.nodes[rank];
+	}
+}
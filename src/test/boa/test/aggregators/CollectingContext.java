@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import boa.aggregators.Aggregator;
+import boa.io.EmitKey;
+
+/**
+ * A task context that keeps the values an {@link Aggregator} collects, so
+ * aggregators can be run without a job.
+ */
+public class CollectingContext extends TaskInputOutputContext<Object, Object, Object, Object> {
+	private final List<Object> values = new ArrayList<Object>();
+
+	public CollectingContext(final Configuration conf) {
+		super(conf, new TaskAttemptID(), null, null, null);
+	}
+
+	/**
+	 * Start an aggregator writing to a new {@link CollectingContext}.
+	 *
+	 * @param a
+	 *            The {@link Aggregator} to start
+	 *
+	 * @param conf
+	 *            The {@link Configuration} the aggregator reads its keys from
+	 *
+	 * @param combining
+	 *            true if the aggregator is run as a combiner
+	 *
+	 * @return The {@link CollectingContext} the aggregator collects into
+	 */
+	public static CollectingContext start(final Aggregator a, final Configuration conf, final boolean combining) {
+		final CollectingContext context = new CollectingContext(conf);
+		a.setContext(context);
+		a.setCombining(combining);
+		a.start(new EmitKey("out"));
+		return context;
+	}
+
+	/**
+	 * @return The values collected so far, in order
+	 */
+	public List<Object> getValues() {
+		return this.values;
+	}
+
+	/**
+	 * @return The values collected so far as strings, in order
+	 */
+	public List<String> getStrings() {
+		final List<String> strings = new ArrayList<String>();
+		for (final Object v : this.values)
+			strings.add(v.toString());
+		return strings;
+	}
+
+	@Override
+	public void write(final Object key, final Object value) {
+		// reducers write their output as the key
+		this.values.add(value == null || value instanceof NullWritable ? key : value);
+	}
+
+	@Override
+	public boolean nextKeyValue() {
+		return false;
+	}
+
+	@Override
+	public Object getCurrentKey() {
+		return null;
+	}
+
+	@Override
+	public Object getCurrentValue() {
+		return null;
+	}
+}
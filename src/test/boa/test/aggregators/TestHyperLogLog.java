@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import boa.aggregators.HyperLogLog;
+import boa.aggregators.UniqueAggregator;
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+
+/**
+ * Test the {@link HyperLogLog} sketch against exact cardinalities.
+ */
+public class TestHyperLogLog {
+	private static final double ERROR = 0.02;
+
+	@Test
+	public void testRelativeError() throws Exception {
+		// the sketch's error is a standard deviation, so allow three of them
+		for (final int n : new int[] { 10000, 100000, 1000000 }) {
+			final HyperLogLog s = HyperLogLog.withError(ERROR);
+			for (int i = 0; i < n; i++)
+				s.add(("v" + i).getBytes("UTF-8"));
+
+			assertWithin(n, s.cardinality(), 3 * ERROR * n);
+		}
+	}
+
+	@Test
+	public void testSmallRange() throws Exception {
+		assertEquals(0, HyperLogLog.withError(ERROR).cardinality());
+
+		// linear counting is all but exact while few values share a register
+		for (final int n : new int[] { 1, 10, 100, 1000 }) {
+			final HyperLogLog s = HyperLogLog.withError(ERROR);
+			for (int i = 0; i < n; i++)
+				for (int j = 0; j < 3; j++)
+					s.add(("v" + i).getBytes("UTF-8"));
+
+			assertWithin(n, s.cardinality(), Math.max(1, 0.01 * n));
+		}
+	}
+
+	@Test
+	public void testMergeCommutes() throws Exception {
+		final Configuration conf = new Configuration();
+		conf.setFloat(UniqueAggregator.ERROR, (float) ERROR);
+
+		// overlapping halves of 0..29999
+		final byte[] a = combine(conf, 0, 20000);
+		final byte[] b = combine(conf, 10000, 30000);
+
+		final List<String> ab = reduce(conf, a, b);
+		final List<String> ba = reduce(conf, b, a);
+		assertEquals(ab, ba);
+
+		final HyperLogLog whole = HyperLogLog.withError(ERROR);
+		for (int i = 0; i < 30000; i++)
+			whole.add(("v" + i).getBytes("UTF-8"));
+		assertEquals(Collections.singletonList(new EmitKey("out") + " = " + whole.cardinality()), ab);
+	}
+
+	private static byte[] combine(final Configuration conf, final int from, final int to) throws Exception {
+		final UniqueAggregator combiner = new UniqueAggregator(1000);
+		final CollectingContext out = CollectingContext.start(combiner, conf, true);
+		for (int i = from; i < to; i++)
+			combiner.aggregate("v" + i);
+		combiner.finish();
+
+		assertEquals(1, out.getValues().size());
+		return ((EmitValue) out.getValues().get(0)).getBytesData();
+	}
+
+	private static List<String> reduce(final Configuration conf, final byte[]... sketches) throws Exception {
+		final UniqueAggregator reducer = new UniqueAggregator(1000);
+		final CollectingContext out = CollectingContext.start(reducer, conf, false);
+		for (final byte[] s : sketches)
+			reducer.aggregate(s);
+		reducer.finish();
+		return out.getStrings();
+	}
+
+	private static void assertWithin(final long expected, final long actual, final double delta) {
+		assertTrue(actual + " estimated for " + expected, Math.abs(actual - expected) <= delta);
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.FloatQuantileAggregator;
+import boa.aggregators.IntQuantileAggregator;
+import boa.aggregators.QuantileSketch;
+import boa.io.EmitValue;
+
+/**
+ * Test the {@link QuantileSketch} against exact ranks, and the quantile
+ * aggregators using it against their exact modes.
+ */
+public class TestQuantileSketch {
+	private static final double ERROR = 0.01;
+	private static final int VALUES = 100000;
+	private static final int PARTS = 4;
+
+	@Test
+	public void testRankError() {
+		final QuantileSketch s = QuantileSketch.withError(ERROR);
+		for (final double v : permutation(new Random(0)))
+			s.add(v, 1);
+
+		assertEquals(VALUES, s.getCount());
+		assertRanksWithinError(s);
+	}
+
+	@Test
+	public void testMergeSerialized() throws Exception {
+		final List<Double> values = permutation(new Random(1));
+
+		// each part is sketched and serialized, like a combiner would
+		final List<byte[]> parts = new ArrayList<byte[]>();
+		for (int p = 0; p < PARTS; p++) {
+			final QuantileSketch s = QuantileSketch.withError(ERROR);
+			for (int i = p; i < values.size(); i += PARTS)
+				s.add(values.get(i), 1);
+			parts.add(s.toBytes());
+		}
+
+		final QuantileSketch merged = QuantileSketch.fromBytes(parts.get(0));
+		for (int p = 1; p < PARTS; p++)
+			merged.merge(QuantileSketch.fromBytes(parts.get(p)));
+
+		assertEquals(VALUES, merged.getCount());
+		assertRanksWithinError(merged);
+	}
+
+	@Test
+	public void testSerializedRoundTrip() throws Exception {
+		final QuantileSketch s = QuantileSketch.withError(ERROR);
+		for (final double v : permutation(new Random(2)))
+			s.add(v, 1);
+
+		final QuantileSketch read = QuantileSketch.fromBytes(s.toBytes());
+		assertEquals(s.getCount(), read.getCount());
+		assertEquals(s.getWeightedValues(), read.getWeightedValues());
+	}
+
+	@Test
+	public void testIntQuantileSmallInputExact() throws Exception {
+		assertSameAsExact(new IntQuantileAggregator(5), new IntQuantileAggregator(5), new IntQuantileAggregator(5));
+	}
+
+	@Test
+	public void testFloatQuantileSmallInputExact() throws Exception {
+		assertSameAsExact(new FloatQuantileAggregator(5), new FloatQuantileAggregator(5), new FloatQuantileAggregator(5));
+	}
+
+	// fewer values than the sketch keeps, so it must not lose any
+	private static void assertSameAsExact(final Aggregator exact, final Aggregator sketched, final Aggregator combiner) throws Exception {
+		final Random r = new Random(3);
+		final List<Double> values = new ArrayList<Double>();
+		final List<Long> counts = new ArrayList<Long>();
+		for (int i = 0; i < 50; i++) {
+			values.add((double) r.nextInt(20) + (exact instanceof FloatQuantileAggregator ? 0.5 : 0));
+			counts.add((long) (1 + r.nextInt(3)));
+		}
+
+		final CollectingContext exactOut = CollectingContext.start(exact, new Configuration(), false);
+		for (int i = 0; i < values.size(); i++)
+			exact.aggregate(values.get(i), counts.get(i));
+		exact.finish();
+
+		final Configuration conf = new Configuration();
+		conf.setFloat(IntQuantileAggregator.ERROR, (float) ERROR);
+
+		final CollectingContext out = CollectingContext.start(sketched, conf, false);
+		for (int p = 0; p < PARTS; p++) {
+			final CollectingContext combined = CollectingContext.start(combiner, conf, true);
+			for (int i = p; i < values.size(); i += PARTS)
+				combiner.aggregate(values.get(i), counts.get(i));
+			combiner.finish();
+
+			for (final Object v : combined.getValues())
+				sketched.aggregate((EmitValue) v);
+		}
+		sketched.finish();
+
+		assertFalse(exactOut.getStrings().isEmpty());
+		assertEquals(exactOut.getStrings(), out.getStrings());
+	}
+
+	// value v is the (v + 1)th smallest, so its exact rank is v + 1
+	private static void assertRanksWithinError(final QuantileSketch s) {
+		final double bound = ERROR * VALUES;
+
+		long rank = 0;
+		for (final Map.Entry<Double, Long> e : s.getWeightedValues().entrySet()) {
+			rank += e.getValue();
+			final double exact = e.getKey() + 1;
+			assertTrue("rank of " + e.getKey() + " estimated as " + rank, Math.abs(rank - exact) <= bound);
+		}
+		assertEquals(VALUES, rank);
+	}
+
+	private static List<Double> permutation(final Random r) {
+		final List<Double> values = new ArrayList<Double>(VALUES);
+		for (int i = 0; i < VALUES; i++)
+			values.add((double) i);
+		Collections.shuffle(values, r);
+		return values;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import boa.aggregators.SpaceSaving;
+import boa.aggregators.TopAggregator;
+import boa.functions.BoaCasts;
+import boa.io.EmitValue;
+
+/**
+ * Test the {@link SpaceSaving} summary against exact counts.
+ */
+public class TestSpaceSaving {
+	private static final int CAPACITY = 200;
+	private static final int ITEMS = 100000;
+	private static final int PARTS = 4;
+
+	@Test
+	public void testErrorBound() {
+		final List<String> items = new ArrayList<String>();
+		final List<Integer> weights = new ArrayList<Integer>();
+		stream(new Random(0), items, weights);
+
+		final SpaceSaving s = new SpaceSaving(CAPACITY);
+		for (int i = 0; i < items.size(); i++)
+			s.add(items.get(i), weights.get(i));
+
+		assertWithinBound(s, exact(items, weights), total(weights));
+	}
+
+	@Test
+	public void testMergeSerialized() throws Exception {
+		final List<String> items = new ArrayList<String>();
+		final List<Integer> weights = new ArrayList<Integer>();
+		stream(new Random(1), items, weights);
+
+		// each part is summarized and serialized, like a combiner would
+		final List<byte[]> parts = new ArrayList<byte[]>();
+		for (int p = 0; p < PARTS; p++) {
+			final SpaceSaving s = new SpaceSaving(CAPACITY);
+			for (int i = p; i < items.size(); i += PARTS)
+				s.add(items.get(i), weights.get(i));
+			parts.add(s.toBytes());
+		}
+
+		final SpaceSaving merged = SpaceSaving.fromBytes(parts.get(0));
+		for (int p = 1; p < PARTS; p++)
+			merged.merge(SpaceSaving.fromBytes(parts.get(p)));
+
+		assertWithinBound(merged, exact(items, weights), total(weights));
+	}
+
+	@Test
+	public void testSerializedRoundTrip() throws Exception {
+		final SpaceSaving s = new SpaceSaving(CAPACITY);
+		final Random r = new Random(2);
+		for (int i = 0; i < ITEMS; i++)
+			s.add("k" + r.nextInt(1000), 1);
+
+		final SpaceSaving read = SpaceSaving.fromBytes(s.toBytes());
+		assertEquals(toString(s), toString(read));
+		assertEquals(s.getMinimum(), read.getMinimum(), 0);
+	}
+
+	@Test
+	public void testTopSameAsExact() throws Exception {
+		final Random r = new Random(3);
+		final List<String> items = new ArrayList<String>();
+		final List<Integer> weights = new ArrayList<Integer>();
+		for (int i = 0; i < ITEMS / 10; i++) {
+			items.add("k" + r.nextInt(500));
+			weights.add(1 + r.nextInt(3));
+		}
+
+		// exact
+		final TopAggregator exact = new TopAggregator(10);
+		final CollectingContext exactOut = CollectingContext.start(exact, new Configuration(), false);
+		for (int i = 0; i < items.size(); i++)
+			exact.aggregate(items.get(i), (long) weights.get(i));
+		exact.finish();
+
+		// a summary monitoring 1000 items, more than there are, combined in parts
+		final Configuration conf = new Configuration();
+		conf.setFloat(TopAggregator.ERROR, 0.001f);
+
+		final TopAggregator top = new TopAggregator(10);
+		final CollectingContext out = CollectingContext.start(top, conf, false);
+		for (int p = 0; p < PARTS; p++) {
+			final TopAggregator combiner = new TopAggregator(10);
+			final CollectingContext combined = CollectingContext.start(combiner, conf, true);
+			for (int i = p; i < items.size(); i += PARTS)
+				combiner.aggregate(items.get(i), (long) weights.get(i));
+			combiner.finish();
+
+			for (final Object v : combined.getValues())
+				top.aggregate((EmitValue) v);
+		}
+		top.finish();
+
+		final String suffix = " +/- " + BoaCasts.doubleToString(0);
+		final List<String> approximate = new ArrayList<String>();
+		for (final String s : out.getStrings()) {
+			assertTrue(s, s.endsWith(suffix));
+			approximate.add(s.substring(0, s.length() - suffix.length()));
+		}
+
+		assertFalse(approximate.isEmpty());
+		assertEquals(exactOut.getStrings(), approximate);
+	}
+
+	private static void assertWithinBound(final SpaceSaving s, final Map<String, Double> exact, final double total) {
+		final double bound = total / CAPACITY;
+
+		final Set<String> monitored = new HashSet<String>();
+		for (final SpaceSaving.Counter c : s.getCounters()) {
+			final double count = exact.get(c.getItem());
+			assertTrue(c.getItem() + " underestimated", c.getWeight() >= count);
+			assertTrue(c.getItem() + " error too small", c.getWeight() - c.getError() <= count);
+			assertTrue(c.getItem() + " error " + c.getError() + " over " + bound, c.getError() <= bound);
+			monitored.add(c.getItem());
+		}
+
+		// anything heavier than the bound can not have been evicted
+		for (final Map.Entry<String, Double> e : exact.entrySet())
+			if (e.getValue() > bound)
+				assertTrue(e.getKey() + " not monitored", monitored.contains(e.getKey()));
+	}
+
+	// a skewed stream of 10000 distinct items
+	private static void stream(final Random r, final List<String> items, final List<Integer> weights) {
+		for (int i = 0; i < ITEMS; i++) {
+			items.add("k" + (int) (Math.pow(r.nextDouble(), 3) * 10000));
+			weights.add(1 + r.nextInt(3));
+		}
+	}
+
+	private static Map<String, Double> exact(final List<String> items, final List<Integer> weights) {
+		final Map<String, Double> counts = new HashMap<String, Double>();
+		for (int i = 0; i < items.size(); i++) {
+			final Double c = counts.get(items.get(i));
+			counts.put(items.get(i), (c == null ? 0 : c) + weights.get(i));
+		}
+		return counts;
+	}
+
+	private static double total(final List<Integer> weights) {
+		double total = 0;
+		for (final int w : weights)
+			total += w;
+		return total;
+	}
+
+	private static String toString(final SpaceSaving s) {
+		final StringBuilder sb = new StringBuilder();
+		for (final SpaceSaving.Counter c : s.getCounters())
+			sb.append(c.getItem()).append(' ').append(c.getWeight()).append(' ').append(c.getError()).append('\n');
+		return sb.toString();
+	}
+}
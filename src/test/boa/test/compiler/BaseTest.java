@@ -28,6 +28,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -59,6 +60,8 @@ import boa.compiler.transforms.VariableDeclRenameTransformer;
 import boa.compiler.transforms.VisitorOptimizingTransformer;
 import boa.compiler.visitors.CodeGeneratingVisitor;
 import boa.compiler.visitors.PrettyPrintVisitor;
+import boa.compiler.visitors.ProjectFieldFindingVisitor;
+import boa.compiler.visitors.TaskClassifyingVisitor;
 import boa.compiler.visitors.TypeCheckingVisitor;
 import boa.parser.BoaLexer;
 import boa.parser.BoaParser;
@@ -247,34 +250,11 @@ public abstract class BaseTest {
 		final File outputSrcDir = new File(outputRoot, "boa");
 		if (!outputSrcDir.mkdirs())
 			throw new IOException("unable to mkdir " + outputSrcDir);
-		final File outputFile = new File(outputSrcDir, "Test.java");
 
 		final StartContext ctx = typecheck(input);
-		final Start p = ctx.ast;
-		// use the whole input string to seed the RNG
-		final int seed = new PrettyPrintVisitor().startAndReturn(p).hashCode();
 
 		try {
-			new VariableDeclRenameTransformer().start(p);
-			new InheritedAttributeTransformer().start(p);
-			new LocalAggregationTransformer().start(p);
-			new VisitorOptimizingTransformer().start(p);
-
-			final CodeGeneratingVisitor cg = new CodeGeneratingVisitor("Test", 64 * 1024 * 1024, seed, false);
-			cg.start(p);
-
-			try (final BufferedOutputStream o = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-				o.write(cg.getCode().getBytes());
-			}
-
-			final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-			final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
-			final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
-			final Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(Arrays.asList(new File[] { outputFile }));
-
-			if (!compiler.getTask(null, fileManager, diagnostics, Arrays.asList(new String[] { "-cp", System.getProperty("java.class.path") }), null, compilationUnits).call())
-				for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
-					throw new RuntimeException("Error on line " + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(null));
+			compile(ctx.ast, outputSrcDir);
 
 			if (error != null)
 				fail("expected to see exception: " + error);
@@ -294,6 +274,53 @@ public abstract class BaseTest {
 		return ctx;
 	}
 
+	/**
+	 * Generates and compiles the input into outputRoot, then loads the
+	 * generated class boa.Test from there.
+	 */
+	protected Class<?> codegenAndLoad(final String input, final File outputRoot) throws Exception {
+		final File outputSrcDir = new File(outputRoot, "boa");
+		if (!outputSrcDir.mkdirs())
+			throw new IOException("unable to mkdir " + outputSrcDir);
+
+		compile(typecheck(input).ast, outputSrcDir);
+
+		return new URLClassLoader(new URL[] { outputRoot.toURI().toURL() }).loadClass("boa.Test");
+	}
+
+	private void compile(final Start p, final File outputSrcDir) throws Exception {
+		final File outputFile = new File(outputSrcDir, "Test.java");
+
+		// use the whole input string to seed the RNG
+		final int seed = new PrettyPrintVisitor().startAndReturn(p).hashCode();
+
+		final TaskClassifyingVisitor simpleVisitor = new TaskClassifyingVisitor();
+		simpleVisitor.start(p);
+		final ProjectFieldFindingVisitor projectFields = new ProjectFieldFindingVisitor();
+		projectFields.start(p);
+
+		new VariableDeclRenameTransformer().start(p);
+		new InheritedAttributeTransformer().start(p);
+		new LocalAggregationTransformer().start(p);
+		new VisitorOptimizingTransformer().start(p);
+
+		final CodeGeneratingVisitor cg = new CodeGeneratingVisitor("Test", simpleVisitor.getSplitSize(), seed, false, projectFields, simpleVisitor.getStores());
+		cg.start(p);
+
+		try (final BufferedOutputStream o = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+			o.write(cg.getCode().getBytes());
+		}
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		final Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(Arrays.asList(new File[] { outputFile }));
+
+		if (!compiler.getTask(null, fileManager, diagnostics, Arrays.asList(new String[] { "-cp", System.getProperty("java.class.path") }), null, compilationUnits).call())
+			for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+				throw new RuntimeException("Error on line " + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(null));
+	}
+
 
 	//
 	// misc utils
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
+import boa.compiler.visitors.ProjectFieldFindingVisitor;
+import boa.types.Toplevel.Project;
+
+/**
+ * Test which fields of the input project a program is found to read.
+ */
+public class TestProjectFields extends BaseTest {
+	private static final String HEADER = "p: Project = input;\ncounts: output sum of int;\n";
+
+	@Test
+	public void selected() throws Exception {
+		assertFields("counts << len(p.programming_languages);", bit("programming_languages"));
+		assertFields("counts << len(p.licenses) + len(p.description);", bit("licenses") | bit("description"));
+	}
+
+	@Test
+	public void visited() throws Exception {
+		assertFields("visit(p, visitor { before r: Revision -> counts << len(r.files); });", bit("code_repositories"));
+		assertFields("visit(p, visitor { before i: IssueRepository -> counts << 1; });", bit("issue_repositories"));
+	}
+
+	@Test
+	public void wholeProject() throws Exception {
+		assertTrue(find("q := p;\ncounts << len(q.name);").needsAll());
+		assertTrue(find("visit(p, visitor { before _ -> counts << 1; });").needsAll());
+	}
+
+	private void assertFields(final String body, final long fields) throws IOException {
+		assertEquals(Long.toBinaryString(required() | fields), Long.toBinaryString(find(body).getFields()));
+	}
+
+	private ProjectFieldFindingVisitor find(final String body) throws IOException {
+		final ProjectFieldFindingVisitor v = new ProjectFieldFindingVisitor();
+		v.start(typecheck(HEADER + body).ast);
+		return v;
+	}
+
+	private static long bit(final String name) {
+		return 1L << Project.getDescriptor().findFieldByName(name).getNumber();
+	}
+
+	private static long required() {
+		long mask = 0;
+		for (final FieldDescriptor f : Project.getDescriptor().getFields())
+			if (f.isRequired())
+				mask |= 1L << f.getNumber();
+		return mask;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.functions.BoaAstIntrinsics;
+import boa.runtime.BoaRunner;
+
+/**
+ * Test the stores and split size generated jobs are configured with.
+ */
+public class TestTaskClassifying extends BaseTest {
+	private static final int SMALL = 10 * 1024 * 1024;
+	private static final int LARGE = 64 * 1024 * 1024;
+
+	private static final String HEADER = "p: Project = input;\ncounts: output sum of int;\n";
+
+	private File outputRoot;
+
+	@Before
+	public void createOutputRoot() {
+		outputRoot = new File(new File(System.getProperty("java.io.tmpdir")), UUID.randomUUID().toString());
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		delete(outputRoot);
+	}
+
+	@Test
+	public void projectsOnly() throws Exception {
+		assertConfigured("counts << len(p.code_repositories);", "", LARGE);
+	}
+
+	@Test
+	public void revisions() throws Exception {
+		assertConfigured("visit(p, visitor { before r: Revision -> counts << len(r.files); });", "commit", LARGE);
+	}
+
+	@Test
+	public void getast() throws Exception {
+		assertConfigured("visit(p, visitor { before f: ChangedFile -> counts << len(getast(f).namespaces); });", "ast,commit", SMALL);
+	}
+
+	@Test
+	public void getcomments() throws Exception {
+		assertConfigured("visit(p, visitor { before f: ChangedFile -> counts << len(getcomments(f).comments); });", "comments,commit", SMALL);
+	}
+
+	@Test
+	public void getissues() throws Exception {
+		assertConfigured("foreach (i: int; def(p.issue_repositories[i])) counts << len(getissues(p.issue_repositories[i]).issues);", "issues", LARGE);
+	}
+
+	@Test
+	public void astVisitor() throws Exception {
+		assertConfigured("visit(p, visitor { before m: Method -> counts << 1; });", "ast,commit", SMALL);
+	}
+
+	private void assertConfigured(final String body, final String stores, final int splitSize) throws Exception {
+		final BoaRunner job = codegenAndLoad(HEADER + body, outputRoot).asSubclass(BoaRunner.class).getDeclaredConstructor().newInstance();
+
+		final Configuration conf = new Configuration(false);
+		job.configure(conf);
+
+		assertEquals(stores, conf.get(BoaAstIntrinsics.STORES));
+		assertEquals(splitSize, conf.getInt("mapred.max.split.size", 0));
+	}
+}
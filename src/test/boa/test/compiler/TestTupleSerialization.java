@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.UUID;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.runtime.Tuple;
+import boa.types.Shared.ChangeKind;
+
+/**
+ * Round trips generated tuples through their write and readFields methods.
+ */
+public class TestTupleSerialization extends BaseTest {
+	private File outputRoot;
+	private Class<? extends Tuple> outer;
+	private Class<? extends Tuple> inner;
+
+	@Before
+	public void generate() throws Exception {
+		outputRoot = new File(new File(System.getProperty("java.io.tmpdir")), UUID.randomUUID().toString());
+
+		// the program declares { x: int, y: string } and a tuple holding one
+		final Class<?> test = codegenAndLoad(load("test/codegen/tuple-fields.boa"), outputRoot);
+		for (final Class<?> c : test.getDeclaredClasses())
+			for (final Class<?> t : c.getDeclaredClasses())
+				if (Tuple.class.isAssignableFrom(t)) {
+					if (hasField(t, "___n"))
+						outer = t.asSubclass(Tuple.class);
+					else if (hasField(t, "___y"))
+						inner = t.asSubclass(Tuple.class);
+				}
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		delete(outputRoot);
+	}
+
+	@Test
+	public void allFields() throws Exception {
+		final Tuple t = newOuter();
+		set(t, "___i", 42L);
+		set(t, "___f", 1.5);
+		set(t, "___b", true);
+		set(t, "___s", "string");
+		set(t, "___k", ChangeKind.RENAMED);
+		set(t, "___n", newInner(-7L, "nested"));
+		set(t, "___a", new long[] { 1, 2, 3 });
+
+		assertSameFields(t, roundTrip(t));
+	}
+
+	@Test
+	public void unsetFields() throws Exception {
+		final Tuple t = roundTrip(newOuter());
+
+		for (final Field f : outer.getDeclaredFields())
+			if (f.getName().startsWith("___"))
+				assertNull(f.getName(), get(t, f.getName()));
+	}
+
+	@Test
+	public void unsetNestedFields() throws Exception {
+		final Tuple t = newOuter();
+		set(t, "___i", 0L);
+		set(t, "___n", newInner(null, null));
+		set(t, "___a", new long[0]);
+
+		assertSameFields(t, roundTrip(t));
+	}
+
+	@Test
+	public void smallerThanJavaSerialization() throws Exception {
+		final Tuple t = newOuter();
+		set(t, "___i", 42L);
+		set(t, "___f", 1.5);
+		set(t, "___b", true);
+		set(t, "___s", "string");
+		set(t, "___k", ChangeKind.RENAMED);
+		set(t, "___n", newInner(-7L, "nested"));
+
+		final ByteArrayOutputStream java = new ByteArrayOutputStream();
+		try (final ObjectOutputStream o = new ObjectOutputStream(java)) {
+			o.writeObject(t);
+		}
+		final DataOutputBuffer fields = new DataOutputBuffer();
+		t.write(fields);
+
+		assertTrue(fields.getLength() + " bytes, " + java.size() + " with Java serialization", fields.getLength() * 4 < java.size());
+	}
+
+	private Tuple roundTrip(final Tuple t) throws Exception {
+		final DataOutputBuffer out = new DataOutputBuffer();
+		t.write(out);
+
+		final DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		final Tuple read = newOuter();
+		read.readFields(in);
+
+		assertEquals("bytes left over", in.getLength(), in.getPosition());
+		return read;
+	}
+
+	private static void assertSameFields(final Object expected, final Object actual) throws Exception {
+		for (final Field f : expected.getClass().getDeclaredFields()) {
+			if (!f.getName().startsWith("___"))
+				continue;
+			f.setAccessible(true);
+			final Object e = f.get(expected);
+			final Object a = f.get(actual);
+			if (e instanceof long[])
+				assertArrayEquals(f.getName(), (long[]) e, (long[]) a);
+			else if (e instanceof Tuple)
+				assertSameFields(e, a);
+			else
+				assertEquals(f.getName(), e, a);
+		}
+	}
+
+	private Tuple newOuter() throws Exception {
+		final Constructor<? extends Tuple> c = outer.getDeclaredConstructor();
+		c.setAccessible(true);
+		return c.newInstance();
+	}
+
+	private Tuple newInner(final Long x, final String y) throws Exception {
+		final Constructor<? extends Tuple> c = inner.getDeclaredConstructor();
+		c.setAccessible(true);
+		final Tuple t = c.newInstance();
+		set(t, "___x", x);
+		set(t, "___y", y);
+		return t;
+	}
+
+	private static boolean hasField(final Class<?> c, final String name) {
+		try {
+			c.getDeclaredField(name);
+			return true;
+		} catch (final NoSuchFieldException e) {
+			return false;
+		}
+	}
+
+	private static void set(final Object o, final String name, final Object value) throws Exception {
+		final Field f = o.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		f.set(o, value);
+	}
+
+	private static Object get(final Object o, final String name) throws Exception {
+		final Field f = o.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		return f.get(o);
+	}
+}
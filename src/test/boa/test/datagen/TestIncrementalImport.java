@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.Text;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.protobuf.CodedInputStream;
+
+import boa.datagen.SeqCombiner;
+import boa.datagen.scm.AbstractCommit;
+import boa.datagen.scm.GitConnector;
+import boa.datagen.scm.ImportedRepository;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Toplevel.Project;
+import boa.types.Toplevel.Project.ForgeKind;
+
+/**
+ * Imports a small local repository, commits to it and refreshes the import
+ * from the combined dataset.
+ */
+public class TestIncrementalImport {
+	private static final String NAME = "test/incremental";
+
+	private final Configuration conf = new Configuration();
+	private File base;
+	private File gitDir;
+	private Git git;
+
+	@Before
+	public void setUp() throws Exception {
+		base = new File(new File(System.getProperty("java.io.tmpdir")), UUID.randomUUID().toString());
+		gitDir = new File(base, "repo");
+		git = Git.init().setDirectory(gitDir).call();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		git.close();
+		FileUtils.deleteDirectory(base);
+	}
+
+	@Test
+	public void testRefreshParsesNewCommits() throws Exception {
+		final String first = commit("src/A.java", "class A { }");
+		final String second = commit("src/B.java", "class B { }");
+
+		final List<String> parsed = importRepository(1000, false);
+		assertEquals(new HashSet<String>(Arrays.asList(first, second)), new HashSet<String>(parsed));
+		SeqCombiner.main(new String[] { base.getPath() });
+
+		final String third = commit("src/A.java", "class A { int a; }");
+
+		assertEquals(Collections.singletonList(third), importRepository(2000, true));
+		SeqCombiner.main(new String[] { base.getPath() });
+
+		final CodeRepository repo = readRepository();
+		final Set<String> ids = new HashSet<String>();
+		for (final Revision rev : repo.getRevisionsList())
+			ids.add(rev.getId());
+		assertEquals(new HashSet<String>(Arrays.asList(first, second, third)), ids);
+	}
+
+	@Test
+	public void testRefreshDropsSupersededAsts() throws Exception {
+		commit("src/A.java", "class A { }");
+		importRepository(1000, false);
+		SeqCombiner.main(new String[] { base.getPath() });
+
+		commit("src/B.java", "class B { }");
+		importRepository(2000, true);
+		SeqCombiner.main(new String[] { base.getPath() });
+
+		// the first import's copies of the ASTs are not in the combined file
+		final CodeRepository repo = readRepository();
+		final Set<Long> keys = new HashSet<Long>();
+		for (final Revision rev : repo.getRevisionsList())
+			for (final ChangedFile cf : rev.getFilesList())
+				if (cf.getKey() > 0)
+					keys.add(cf.getKey());
+		for (final ChangedFile cf : repo.getHeadSnapshotList())
+			if (cf.getKey() > 0)
+				keys.add(cf.getKey());
+
+		// SeqCombiner closes the file system it used
+		final FileSystem fileSystem = FileSystem.getLocal(conf);
+		final MapFile.Reader astReader = new MapFile.Reader(fileSystem, base + "/ast", conf);
+		try {
+			for (final long key : keys)
+				assertNotNull("AST " + key, astReader.get(new LongWritable(key), new BytesWritable()));
+
+			astReader.reset();
+			int count = 0;
+			while (astReader.next(new LongWritable(), new BytesWritable()))
+				count++;
+			assertEquals(keys.size(), count);
+		} finally {
+			astReader.close();
+		}
+	}
+
+	private String commit(final String path, final String content) throws Exception {
+		final File file = new File(gitDir, path);
+		FileUtils.writeStringToFile(file, content);
+		git.add().addFilepattern(path).call();
+		return git.commit().setMessage("change " + path).setAuthor("test", "test@example.com").call().getName();
+	}
+
+	/**
+	 * Imports the repository the way SeqRepoImporter does, into files named
+	 * with the given time.
+	 *
+	 * @return the ids of the commits parsed
+	 */
+	private List<String> importRepository(final long time, final boolean refresh) throws Exception {
+		final String suffix = "test-" + time + ".seq";
+		final FileSystem fileSystem = FileSystem.getLocal(conf);
+		final SequenceFile.Writer projectWriter = SequenceFile.createWriter(fileSystem, conf, new Path(base + "/project/" + suffix),
+				Text.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer astWriter = SequenceFile.createWriter(fileSystem, conf, new Path(base + "/ast/" + suffix),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer commitWriter = SequenceFile.createWriter(fileSystem, conf, new Path(base + "/commit/" + suffix),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer contentWriter = SequenceFile.createWriter(fileSystem, conf, new Path(base + "/source/" + suffix),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+
+		MapFile.Reader astReader = null, commitReader = null;
+		final GitConnector conn = new GitConnector(gitDir.getAbsolutePath(), NAME, astWriter, 1, commitWriter, 1, contentWriter, 1);
+		try {
+			if (refresh) {
+				astReader = new MapFile.Reader(fileSystem, base + "/ast", conf);
+				commitReader = new MapFile.Reader(fileSystem, base + "/commit", conf);
+				conn.setPrevious(new ImportedRepository(readRepository(), astReader, commitReader));
+			}
+
+			final CodeRepository.Builder repoBuilder = CodeRepository.newBuilder();
+			repoBuilder.setKind(RepositoryKind.GIT);
+			repoBuilder.setUrl(gitDir.toURI().toString());
+			for (final Object rev : conn.getRevisions(NAME))
+				repoBuilder.addRevisions((Revision) rev);
+			repoBuilder.setHead(conn.getHeadCommitOffset());
+			repoBuilder.addAllHeadSnapshot(conn.buildHeadSnapshot());
+			repoBuilder.addAllBranches(conn.getBranchIndices());
+			repoBuilder.addAllBranchNames(conn.getBranchNames());
+			repoBuilder.addAllTags(conn.getTagIndices());
+			repoBuilder.addAllTagNames(conn.getTagNames());
+
+			final Project project = Project.newBuilder()
+					.setId("1")
+					.setName(NAME)
+					.setProjectUrl(repoBuilder.getUrl())
+					.setKind(ForgeKind.OTHER)
+					.addCodeRepositories(repoBuilder)
+					.build();
+			projectWriter.append(new Text(project.getId()), new BytesWritable(project.toByteArray()));
+
+			final List<String> parsed = new ArrayList<String>();
+			for (final AbstractCommit commit : conn.getRevisions())
+				parsed.add(commit.getId());
+			return parsed;
+		} finally {
+			conn.close();
+			if (astReader != null)
+				astReader.close();
+			if (commitReader != null)
+				commitReader.close();
+			projectWriter.close();
+			astWriter.close();
+			commitWriter.close();
+			contentWriter.close();
+		}
+	}
+
+	private CodeRepository readRepository() throws IOException {
+		final SequenceFile.Reader r = new SequenceFile.Reader(FileSystem.getLocal(conf), new Path(base + "/projects.seq"), conf);
+		try {
+			final Text key = new Text();
+			final BytesWritable value = new BytesWritable();
+			assertTrue(r.next(key, value));
+			final Project project = Project.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
+			assertFalse(r.next(key, value));
+			return project.getCodeRepositories(0);
+		} finally {
+			r.close();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.datagen.scm.GitConnector;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Code.Revision;
+
+/**
+ * Imports a small local repository parsing on one thread and on several,
+ * and checks the ASTs, commits and revisions written are the same.
+ */
+public class TestParseThreads {
+	private static final String NAME = "test/threads";
+	private static final String THREADS = "num.parse.threads";
+
+	private static final int COMMITS = 20;
+	private static final int FILES = 8;
+
+	private final Configuration conf = new Configuration();
+	private File base;
+	private File gitDir;
+	private Git git;
+
+	@Before
+	public void setUp() throws Exception {
+		base = new File(new File(System.getProperty("java.io.tmpdir")), UUID.randomUUID().toString());
+		gitDir = new File(base, "repo");
+		git = Git.init().setDirectory(gitDir).call();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		System.clearProperty(THREADS);
+		git.close();
+		FileUtils.deleteDirectory(base);
+	}
+
+	@Test
+	public void testSameOutput() throws Exception {
+		for (int i = 0; i < COMMITS; i++) {
+			for (int f = 0; f < FILES; f++) {
+				// some files change every commit, some every few, and some are copies
+				if (f % 4 == 0 || i % f == 0)
+					write("src/C" + f + ".java", source(f, i));
+				else if (f % 4 == 1)
+					write("src/copy/C" + f + ".java", source(f - 1, i - i % (f - 1)));
+			}
+			if (i % 5 == 4)
+				git.rm().addFilepattern("src/C4.java").call();
+			git.add().addFilepattern("src").call();
+			git.commit().setMessage("change " + i).setAuthor("test", "test@example.com").call();
+		}
+
+		System.setProperty(THREADS, "1");
+		long start = System.nanoTime();
+		final File one = importRepository("one");
+		final long oneTime = System.nanoTime() - start;
+
+		System.setProperty(THREADS, "4");
+		start = System.nanoTime();
+		final File four = importRepository("four");
+		final long fourTime = System.nanoTime() - start;
+
+		System.out.println("import with 1 parse thread: " + oneTime / 1000000 + " ms, with 4: " + fourTime / 1000000 + " ms");
+
+		for (final String name : new String[] { "ast", "commit", "revisions" })
+			assertArrayEquals(name, records(new File(one, name)), records(new File(four, name)));
+		assertTrue(records(new File(one, "ast")).length > 0);
+	}
+
+	private void write(final String path, final String content) throws IOException {
+		FileUtils.writeStringToFile(new File(gitDir, path), content);
+	}
+
+	private static String source(final int f, final int version) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("package p;\n\nclass C").append(f).append(" {\n");
+		for (int m = 0; m <= version; m++) {
+			sb.append("\tint m").append(m).append("(int a) {\n");
+			sb.append("\t\tif (a > ").append(m).append(")\n");
+			sb.append("\t\t\treturn m").append(m > 0 ? m - 1 : 0).append("(a - 1) + ").append(f).append(";\n");
+			sb.append("\t\treturn a;\n\t}\n");
+		}
+		return sb.append("}\n").toString();
+	}
+
+	/**
+	 * Imports the repository the way SeqRepoImporter does, into a directory
+	 * of its own.  The repository is under the commit limit, so its
+	 * revisions are kept with the project, and written to a file of their
+	 * own here.
+	 *
+	 * @return the directory written to
+	 */
+	private File importRepository(final String dir) throws Exception {
+		final File out = new File(base, dir);
+		final FileSystem fileSystem = FileSystem.getLocal(conf);
+		final SequenceFile.Writer astWriter = SequenceFile.createWriter(fileSystem, conf, new Path(out + "/ast"),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer commitWriter = SequenceFile.createWriter(fileSystem, conf, new Path(out + "/commit"),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer contentWriter = SequenceFile.createWriter(fileSystem, conf, new Path(out + "/source"),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer revisionWriter = SequenceFile.createWriter(fileSystem, conf, new Path(out + "/revisions"),
+				LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+
+		final GitConnector conn = new GitConnector(gitDir.getAbsolutePath(), NAME, astWriter, 1, commitWriter, 1, contentWriter, 1);
+		try {
+			final CodeRepository.Builder repoBuilder = CodeRepository.newBuilder();
+			repoBuilder.setKind(RepositoryKind.GIT);
+			repoBuilder.setUrl(gitDir.toURI().toString());
+			for (final Object rev : conn.getRevisions(NAME))
+				repoBuilder.addRevisions((Revision) rev);
+			repoBuilder.setHead(conn.getHeadCommitOffset());
+			repoBuilder.addAllHeadSnapshot(conn.buildHeadSnapshot());
+
+			final CodeRepository repo = repoBuilder.build();
+			for (int i = 0; i < repo.getRevisionsCount(); i++)
+				revisionWriter.append(new LongWritable(i), new BytesWritable(repo.getRevisions(i).toByteArray()));
+			revisionWriter.append(new LongWritable(-1), new BytesWritable(CodeRepository.newBuilder(repo).clearRevisions().build().toByteArray()));
+		} finally {
+			conn.close();
+			astWriter.close();
+			commitWriter.close();
+			contentWriter.close();
+			revisionWriter.close();
+		}
+		return out;
+	}
+
+	// the keys and values of a sequence file, which has a random sync marker
+	private byte[] records(final File file) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+
+		final SequenceFile.Reader r = new SequenceFile.Reader(FileSystem.getLocal(conf), new Path(file.getPath()), conf);
+		try {
+			final LongWritable key = new LongWritable();
+			final BytesWritable value = new BytesWritable();
+			while (r.next(key, value)) {
+				key.write(out);
+				value.write(out);
+			}
+		} finally {
+			r.close();
+		}
+
+		out.close();
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen.js;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ast.AstRoot;
+
+import boa.datagen.util.JavaScriptErrorCheckVisitor;
+import boa.datagen.util.JavaScriptLevelVisitor;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Test that parsing a JavaScript file once finds the same kind and AST as
+ * trying each language version in turn.
+ */
+public class TestJavaScriptLevel {
+	private static final int[] VERSIONS = {
+		Context.VERSION_1_1, Context.VERSION_1_2, Context.VERSION_1_3, Context.VERSION_1_5,
+		Context.VERSION_1_6, Context.VERSION_1_7, Context.VERSION_1_8
+	};
+	private static final FileKind[] KINDS = {
+		FileKind.SOURCE_JS_ES1, FileKind.SOURCE_JS_ES2, FileKind.SOURCE_JS_ES3, FileKind.SOURCE_JS_ES5,
+		FileKind.SOURCE_JS_ES6, FileKind.SOURCE_JS_ES7, FileKind.SOURCE_JS_ES8
+	};
+
+	@Test
+	public void testEquality() {
+		assertSameLevel("var a = 1, b = '1';\nif (a == b) a = b === a;", FileKind.SOURCE_JS_ES1);
+		assertSameLevel("while (x != null) x = x.next;", FileKind.SOURCE_JS_ES1);
+	}
+
+	@Test
+	public void testLet() {
+		assertSameLevel("function f() { let x = 1; return x; }", FileKind.SOURCE_JS_ES7);
+		assertSameLevel("let (x = 1) { print(x); }", FileKind.SOURCE_JS_ES7);
+		assertSameLevel("var y = let (x = 1) x + 1;", FileKind.SOURCE_JS_ES7);
+	}
+
+	@Test
+	public void testYield() {
+		assertSameLevel("function g() { var i = 0; while (true) yield i++; }", FileKind.SOURCE_JS_ES7);
+	}
+
+	@Test
+	public void testLetAndYieldAsNames() {
+		// names before 1.7, so the single pass parses at 1.1 too
+		assertSameLevel("var x = let + yield;", FileKind.SOURCE_JS_ES1);
+		assertSameLevel("var let = 1, yield = 2;", FileKind.SOURCE_JS_ES1);
+		assertSameLevel("function g() { yield; }", FileKind.SOURCE_JS_ES1);
+	}
+
+	@Test
+	public void testExpressionClosure() {
+		assertSameLevel("var square = function(x) x * x;", FileKind.SOURCE_JS_ES8);
+		assertSameLevel("function g() { let f = function() 1; yield f(); }", FileKind.SOURCE_JS_ES8);
+	}
+
+	@Test
+	public void testError() {
+		assertSameLevel("var x = 1 +;", FileKind.SOURCE_JS_ERROR);
+	}
+
+	private static void assertSameLevel(final String content, final FileKind expected) {
+		final ChangedFile.Builder ladder = ChangedFile.newBuilder();
+		final AstRoot ladderAst = parseEachVersion(content, ladder);
+		assertEquals(content, expected, ladder.getKind());
+
+		// the single pass falls back to the ladder when it returns null
+		final ChangedFile.Builder once = ChangedFile.newBuilder();
+		final AstRoot onceAst = JavaScriptLevelVisitor.parseOnce(content, once);
+		if (ladderAst == null) {
+			assertNull(content, onceAst);
+			return;
+		}
+		if (onceAst == null)
+			return;
+		assertEquals(content, ladder.getKind(), once.getKind());
+		assertEquals(content, ladderAst.debugPrint(), onceAst.debugPrint());
+	}
+
+	/**
+	 * The kind and AST given by trying each version in turn.
+	 */
+	private static AstRoot parseEachVersion(final String content, final ChangedFile.Builder fb) {
+		for (int i = 0; i < VERSIONS.length; i++) {
+			fb.setKind(KINDS[i]);
+			final AstRoot cu = JavaScriptLevelVisitor.parse(content, VERSIONS[i]);
+			if (cu == null)
+				continue;
+			final JavaScriptErrorCheckVisitor errorCheck = new JavaScriptErrorCheckVisitor();
+			cu.visit(errorCheck);
+			if (!errorCheck.hasError)
+				return cu;
+		}
+		fb.setKind(FileKind.SOURCE_JS_ERROR);
+		return null;
+	}
+}
@@ -0,0 +1,55 @@
+package boa.test.datagen.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import boa.evaluator.BoaEvaluator;
+
+/**
+ * Runs the same query in-process and through Hadoop's local job runner and
+ * checks both give the same output.
+ */
+public class TestLocalRunner extends QueryTest {
+	@Test
+	public void testOneThread() throws IOException {
+		assertSameAsHadoop("1");
+	}
+
+	@Test
+	public void testFourThreads() throws IOException {
+		assertSameAsHadoop("4");
+	}
+
+	private void assertSameAsHadoop(final String threads) throws IOException {
+		final String local = evaluate(threads, false);
+		final String hadoop = evaluate(threads, true);
+
+		assertFalse(local.isEmpty());
+		assertEquals(hadoop, local);
+	}
+
+	private String evaluate(final String threads, final boolean hadoop) throws IOException {
+		final List<String> args = new ArrayList<String>(Arrays.asList("-i", "test/known-good/local-runner.boa",
+				"-d", "test/datagen/test_datagen", "-o", "test/datagen/temp_output", "-t", threads,
+				"-D", "boa.top.error=0.01",
+				"-D", "boa.quantile.error=0.01",
+				"-D", "boa.unique.error=0.05"));
+		if (hadoop)
+			args.add("-m");
+		BoaEvaluator.main(args.toArray(new String[args.size()]));
+
+		final File outputDir = new File("test/datagen/temp_output");
+		final String results = getResults(outputDir);
+		FileUtils.deleteDirectory(outputDir);
+		return results;
+	}
+}
@@ -0,0 +1,37 @@
+package boa.test.datagen.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import boa.evaluator.BoaEvaluator;
+
+/**
+ * Runs the same query with each output variable on one reducer and spread
+ * over several, and checks both give the same output.
+ */
+public class TestReducers extends QueryTest {
+	@Test
+	public void testThreeReducers() throws IOException {
+		final String one = evaluate("1");
+		final String three = evaluate("3");
+
+		assertFalse(one.isEmpty());
+		assertEquals(one, three);
+	}
+
+	private String evaluate(final String reducers) throws IOException {
+		BoaEvaluator.main(new String[] { "-i", "test/known-good/local-runner.boa",
+				"-d", "test/datagen/test_datagen", "-o", "test/datagen/temp_output", "-r", reducers });
+
+		final File outputDir = new File("test/datagen/temp_output");
+		final String results = getResults(outputDir);
+		FileUtils.deleteDirectory(outputDir);
+		return results;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGEdge;
+import boa.graphs.cfg.CFGNode;
+import boa.graphs.trees.DTree;
+import boa.graphs.trees.PDTree;
+import boa.graphs.trees.TreeNode;
+
+/**
+ * Test that dominator and post-dominator trees built with the
+ * Cooper-Harvey-Kennedy algorithm match the iterative ones.
+ *
+ * @author agent
+ */
+public class TestDominators {
+	private static final int GRAPHS = 500;
+
+	@Test
+	public void testDTree() throws Exception {
+		final Random random = new Random(0);
+		for (int i = 0; i < GRAPHS; i++) {
+			final CFG cfg = randomCfg(random, 2 + random.nextInt(60));
+			assertEquals(toString(new DTree(cfg, true).getNodes()), toString(new DTree(cfg, false).getNodes()));
+		}
+	}
+
+	@Test
+	public void testPDTree() throws Exception {
+		final Random random = new Random(1);
+		for (int i = 0; i < GRAPHS; i++) {
+			final CFG cfg = randomCfg(random, 2 + random.nextInt(60));
+			assertEquals(toString(new PDTree(cfg, true).getNodes()), toString(new PDTree(cfg, false).getNodes()));
+		}
+	}
+
+	// a chain from the entry node through the other nodes, in random order, to
+	// the stop node, so every node is reachable both ways, plus random jumps
+	private static CFG randomCfg(final Random random, final int size) {
+		final CFG cfg = new CFG();
+
+		final CFGNode[] nodes = new CFGNode[size];
+		for (int i = 0; i < size; i++) {
+			nodes[i] = new CFGNode();
+			nodes[i].setId(i);
+			cfg.getNodes().add(nodes[i]);
+		}
+
+		final List<CFGNode> chain = new ArrayList<CFGNode>(Arrays.asList(nodes).subList(1, size - 1));
+		Collections.shuffle(chain, random);
+		chain.add(0, nodes[0]);
+		chain.add(nodes[size - 1]);
+		for (int i = 0; i < size - 1; i++)
+			new CFGEdge(chain.get(i), chain.get(i + 1));
+
+		final int jumps = random.nextInt(size + 1);
+		for (int i = 0; i < jumps && size > 2; i++) {
+			final int src = random.nextInt(size - 1);
+			final int dest = 1 + random.nextInt(size - 1);
+			if (src != dest)
+				new CFGEdge(nodes[src], nodes[dest]);
+		}
+
+		return cfg;
+	}
+
+	private static String toString(final Iterable<TreeNode> nodes) {
+		final StringBuilder sb = new StringBuilder();
+		for (final TreeNode n : nodes)
+			sb.append(n.getNodeId()).append(" <- ").append(n.getParent()).append(" ").append(n.getChildren()).append("\n");
+		return sb.toString();
+	}
+}
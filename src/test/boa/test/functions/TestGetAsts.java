@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.datagen.DefaultProperties;
+import boa.functions.BoaAstIntrinsics;
+import boa.types.Ast.ASTRoot;
+import boa.types.Ast.Namespace;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+import boa.types.Shared.ChangeKind;
+
+/**
+ * Test that getasts, which reads the ASTs in key order, returns them in
+ * the order of the files it is given.
+ *
+ * @author agent
+ */
+public class TestGetAsts {
+	private static final int KEYS = 50;
+
+	private File dir;
+	private final Counters counters = new Counters();
+	private Mapper<Text, BytesWritable, Text, Text>.Context context;
+
+	@Before
+	public void setUp() throws IOException, InterruptedException {
+		this.dir = File.createTempFile("getasts", "");
+		this.dir.delete();
+
+		final Configuration conf = new Configuration();
+		final FileSystem fs = FileSystem.getLocal(conf);
+		final MapFile.Writer w = new MapFile.Writer(conf, fs, new File(this.dir, "ast").getPath(), LongWritable.class, BytesWritable.class);
+		for (int key = 0; key < KEYS; key++) {
+			// every other key is missing from the store
+			if (key % 2 == 1)
+				continue;
+			final byte[] ast = ast(key).toByteArray();
+			w.append(new LongWritable(key), new BytesWritable(ast));
+		}
+		w.close();
+
+		DefaultProperties.localDataPath = this.dir.getPath();
+
+		final StatusReporter reporter = new StatusReporter() {
+			@Override
+			public Counter getCounter(final Enum<?> name) {
+				return counters.findCounter(name);
+			}
+
+			@Override
+			public Counter getCounter(final String group, final String name) {
+				return counters.findCounter(group, name);
+			}
+
+			@Override
+			public void progress() {
+			}
+
+			@Override
+			public void setStatus(final String status) {
+			}
+		};
+		this.context = new Mapper<Text, BytesWritable, Text, Text>().new Context(conf, new TaskAttemptID(), null, null, null, reporter, null);
+		BoaAstIntrinsics.setup(this.context);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		BoaAstIntrinsics.cleanup(this.context);
+		DefaultProperties.localDataPath = null;
+		FileUtil.fullyDelete(this.dir);
+	}
+
+	@Test
+	public void testFileOrder() {
+		final List<ChangedFile> files = new ArrayList<ChangedFile>();
+		for (int key = 0; key < KEYS; key++)
+			files.add(file(key, true));
+		// the same file twice, and a file without an AST
+		files.add(file(4, true));
+		files.add(file(6, false));
+		Collections.shuffle(files, new Random(0));
+
+		final ASTRoot[] asts = BoaAstIntrinsics.getasts(files.toArray(new ChangedFile[files.size()]));
+
+		assertEquals(files.size(), asts.length);
+		for (int i = 0; i < asts.length; i++) {
+			final ChangedFile f = files.get(i);
+			if (f.getAst() && f.getKey() % 2 == 0)
+				assertEquals(f.getName(), ast(f.getKey()), asts[i]);
+			else
+				assertEquals(f.getName(), ASTRoot.getDefaultInstance(), asts[i]);
+		}
+
+		// the second read of file 4 comes from the cache
+		assertEquals(1, this.counters.findCounter(BoaAstIntrinsics.ASTCOUNTER.CACHE_HITS).getValue());
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, BoaAstIntrinsics.getasts(new ChangedFile[0]).length);
+	}
+
+	private static ASTRoot ast(final long key) {
+		return ASTRoot.newBuilder().addNamespaces(Namespace.newBuilder().setName("n" + key)).build();
+	}
+
+	private static ChangedFile file(final long key, final boolean ast) {
+		return ChangedFile.newBuilder()
+				.setName("f" + key + (ast ? ".java" : ".txt"))
+				.setKind(FileKind.SOURCE_JAVA_JLS8)
+				.setChange(ChangeKind.MODIFIED)
+				.setKey(key)
+				.setAst(ast)
+				.build();
+	}
+}
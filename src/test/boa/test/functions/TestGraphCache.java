@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import boa.functions.GraphCache;
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+import boa.types.Ast.Method;
+
+/**
+ * Test that the {@link GraphCache} finds methods by identity and evicts the
+ * least recently used ones by their number of CFG nodes.
+ *
+ * @author agent
+ */
+public class TestGraphCache {
+	// each method has 3 nodes and is charged one more, so 3 fit
+	private static final int NODES = 3;
+	private static final long CAPACITY = 3 * (NODES + 1);
+
+	@Test
+	public void testIdentity() {
+		final GraphCache cache = new GraphCache(CAPACITY);
+		final Method m = method(0);
+		final GraphCache.Graphs graphs = cache.put(m, false, cfg(NODES));
+
+		assertSame(graphs, cache.get(m, false));
+		// an equal method that is not the same object is a different method
+		assertNull(cache.get(method(0), false));
+		// and so is the same method with parameters as statements
+		assertNull(cache.get(m, true));
+
+		// the graphs already cached are kept
+		assertSame(graphs, cache.put(m, false, cfg(NODES)));
+		assertSame(graphs, cache.get(m, false));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		final GraphCache cache = new GraphCache(CAPACITY);
+		final Method[] m = methods(4);
+		for (int i = 0; i < 3; i++)
+			cache.put(m[i], false, cfg(NODES));
+
+		// 0 is used, so 1 is the least recently used
+		assertNotNull(cache.get(m[0], false));
+		cache.put(m[3], false, cfg(NODES));
+
+		assertNotNull(cache.get(m[0], false));
+		assertNull(cache.get(m[1], false));
+		assertNotNull(cache.get(m[2], false));
+		assertNotNull(cache.get(m[3], false));
+	}
+
+	@Test
+	public void testEvictsForLargerGraph() {
+		final GraphCache cache = new GraphCache(CAPACITY);
+		final Method[] m = methods(4);
+		for (int i = 0; i < 3; i++)
+			cache.put(m[i], false, cfg(NODES));
+
+		// room for two of the small methods is needed
+		cache.put(m[3], false, cfg(2 * NODES));
+
+		assertNull(cache.get(m[0], false));
+		assertNull(cache.get(m[1], false));
+		assertNotNull(cache.get(m[2], false));
+		assertNotNull(cache.get(m[3], false));
+	}
+
+	@Test
+	public void testTooLargeNotKept() {
+		final GraphCache cache = new GraphCache(CAPACITY);
+		final Method[] m = methods(2);
+		cache.put(m[0], false, cfg(NODES));
+
+		// the graphs are still handed back to be used once
+		assertNotNull(cache.put(m[1], false, cfg((int) CAPACITY)));
+
+		assertNotNull(cache.get(m[0], false));
+		assertNull(cache.get(m[1], false));
+	}
+
+	@Test
+	public void testSetCapacity() {
+		final GraphCache cache = new GraphCache(CAPACITY);
+		final Method[] m = methods(3);
+		for (int i = 0; i < 3; i++)
+			cache.put(m[i], false, cfg(NODES));
+
+		cache.setCapacity(NODES + 1);
+		assertNull(cache.get(m[0], false));
+		assertNull(cache.get(m[1], false));
+		assertNotNull(cache.get(m[2], false));
+
+		cache.setCapacity(0);
+		assertNull(cache.get(m[2], false));
+		cache.put(m[2], false, cfg(NODES));
+		assertNull(cache.get(m[2], false));
+
+		// growing it makes room again
+		cache.setCapacity(CAPACITY);
+		for (int i = 0; i < 3; i++)
+			cache.put(m[i], false, cfg(NODES));
+		for (int i = 0; i < 3; i++)
+			assertNotNull(cache.get(m[i], false));
+	}
+
+	private static Method method(final int i) {
+		return Method.newBuilder().setName("m" + i).buildPartial();
+	}
+
+	private static Method[] methods(final int n) {
+		final Method[] methods = new Method[n];
+		for (int i = 0; i < n; i++)
+			methods[i] = method(i);
+		return methods;
+	}
+
+	private static CFG cfg(final int size) {
+		final CFG cfg = new CFG();
+		for (int i = 0; i < size; i++) {
+			final CFGNode node = new CFGNode();
+			node.setId(i);
+			cfg.getNodes().add(node);
+		}
+		return cfg;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import boa.functions.MessageCache;
+import boa.types.Code.Revision;
+
+/**
+ * Test the least-recently-used eviction of the {@link MessageCache}.
+ *
+ * @author agent
+ */
+public class TestMessageCache {
+	// each message is charged as 10 serialized bytes, so 3 fit
+	private static final int SIZE = 10;
+	private static final long CAPACITY = 3 * SIZE * MessageCache.DECODED_BYTES_PER_BYTE;
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		final MessageCache<Revision> cache = new MessageCache<Revision>(CAPACITY);
+		final Revision[] r = revisions(4);
+		for (int i = 0; i < 3; i++)
+			cache.put(i, r[i], SIZE);
+
+		// 0 is used, so 1 is the least recently used
+		assertSame(r[0], cache.get(0));
+		cache.put(3, r[3], SIZE);
+
+		assertSame(r[0], cache.get(0));
+		assertNull(cache.get(1));
+		assertSame(r[2], cache.get(2));
+		assertSame(r[3], cache.get(3));
+	}
+
+	@Test
+	public void testEvictsForLargerMessage() {
+		final MessageCache<Revision> cache = new MessageCache<Revision>(CAPACITY);
+		final Revision[] r = revisions(3);
+		for (int i = 0; i < 3; i++)
+			cache.put(i, r[i], SIZE);
+
+		cache.put(0, r[0], 2 * SIZE);
+
+		assertSame(r[0], cache.get(0));
+		assertNull(cache.get(1));
+		assertSame(r[2], cache.get(2));
+	}
+
+	@Test
+	public void testTooLargeNotKept() {
+		final MessageCache<Revision> cache = new MessageCache<Revision>(CAPACITY);
+		final Revision[] r = revisions(2);
+		cache.put(0, r[0], SIZE);
+		cache.put(1, r[1], 3 * SIZE + 1);
+
+		assertSame(r[0], cache.get(0));
+		assertNull(cache.get(1));
+	}
+
+	@Test
+	public void testChargedDecodedSize() {
+		// the serialized sizes add up to the capacity, but not the decoded ones
+		final MessageCache<Revision> cache = new MessageCache<Revision>(3 * SIZE);
+		cache.put(0, revisions(1)[0], SIZE);
+
+		assertNull(cache.get(0));
+	}
+
+	@Test
+	public void testSetCapacity() {
+		final MessageCache<Revision> cache = new MessageCache<Revision>(CAPACITY);
+		final Revision[] r = revisions(3);
+		for (int i = 0; i < 3; i++)
+			cache.put(i, r[i], SIZE);
+
+		cache.setCapacity(SIZE * MessageCache.DECODED_BYTES_PER_BYTE);
+		assertNull(cache.get(0));
+		assertNull(cache.get(1));
+		assertSame(r[2], cache.get(2));
+
+		cache.setCapacity(0);
+		assertNull(cache.get(2));
+		cache.put(2, r[2], SIZE);
+		assertNull(cache.get(2));
+	}
+
+	@Test
+	public void testClear() {
+		final MessageCache<Revision> cache = new MessageCache<Revision>(CAPACITY);
+		final Revision[] r = revisions(3);
+		for (int i = 0; i < 3; i++)
+			cache.put(i, r[i], SIZE);
+
+		cache.clear();
+		for (int i = 0; i < 3; i++)
+			assertNull(cache.get(i));
+
+		// all the room is free again
+		for (int i = 0; i < 3; i++)
+			cache.put(i, r[i], SIZE);
+		for (int i = 0; i < 3; i++)
+			assertSame(r[i], cache.get(i));
+	}
+
+	private static Revision[] revisions(final int n) {
+		final Revision[] revisions = new Revision[n];
+		for (int i = 0; i < n; i++)
+			revisions[i] = Revision.newBuilder().setId("r" + i).buildPartial();
+		return revisions;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import boa.functions.BoaStringIntrinsics;
+import boa.functions.PatternCache;
+
+/**
+ * Test the eviction and counters of the {@link PatternCache}, and that
+ * splitting gives the same results whether or not it uses the cache.
+ */
+public class TestPatternCache {
+	@Test
+	public void testEviction() {
+		final PatternCache cache = new PatternCache(2);
+		final Pattern a = cache.getPattern("a+");
+		final Pattern b = cache.getPattern("b+");
+
+		// using a makes b the least recently used, so c evicts it
+		assertSame(a, cache.getPattern("a+"));
+		cache.getPattern("c+");
+		assertSame(a, cache.getPattern("a+"));
+		assertNotSame(b, cache.getPattern("b+"));
+	}
+
+	@Test
+	public void testSetCapacity() {
+		final PatternCache cache = new PatternCache(3);
+		final Pattern a = cache.getPattern("a+");
+		final Pattern b = cache.getPattern("b+");
+		final Pattern c = cache.getPattern("c+");
+		cache.getPattern("a+");
+
+		// shrinking keeps the most recently used
+		cache.setCapacity(2);
+		assertSame(c, cache.getPattern("c+"));
+		assertSame(a, cache.getPattern("a+"));
+		assertNotSame(b, cache.getPattern("b+"));
+	}
+
+	@Test
+	public void testCounters() {
+		final PatternCache cache = new PatternCache(2);
+		cache.getPattern("a+");
+		cache.getPattern("a+");
+		cache.getPattern("b+");
+		cache.getPattern("a+");
+
+		assertEquals(2, cache.takeHits());
+		assertEquals(2, cache.takeMisses());
+
+		// taking the counts resets them
+		assertEquals(0, cache.takeHits());
+		assertEquals(0, cache.takeMisses());
+
+		// a matcher is a miss until this thread has one, even with the pattern cached
+		final Matcher m = cache.getMatcher("a+");
+		assertSame(m, cache.getMatcher("a+"));
+		assertEquals(2, cache.takeHits());
+		assertEquals(0, cache.takeMisses());
+
+		cache.getMatcher("c+");
+		assertEquals(0, cache.takeHits());
+		assertEquals(1, cache.takeMisses());
+	}
+
+	@Test
+	public void testSplit() {
+		final String[] strings = { "", "a,b,,c,,", ",a", "a.b|c d\td", "no separators" };
+		final String[] regexes = { ",", " ", "\t", ".", "|", "\\.", "\\s+", "[,|]" };
+
+		for (final String s : strings)
+			for (final String r : regexes) {
+				assertArrayEquals(s + " by " + r, s.split(r, 1), BoaStringIntrinsics.split(s, r));
+				assertArrayEquals(s + " by " + r, s.split(r, 2), BoaStringIntrinsics.splitn(s, r, 2));
+				assertArrayEquals(s + " by " + r, s.split(r), BoaStringIntrinsics.splitall(s, r));
+			}
+	}
+}
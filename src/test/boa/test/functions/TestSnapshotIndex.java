@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import boa.functions.BoaIntrinsics;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+import boa.types.Shared.ChangeKind;
+import boa.types.Shared.Person;
+
+/**
+ * Test that snapshots served from the snapshot index match the snapshots
+ * found by replaying the whole history.
+ *
+ * @author agent
+ */
+public class TestSnapshotIndex {
+	private static final int REVISIONS = 1000;
+	private static final String[][] KINDS = { {}, { "SOURCE_JAVA" } };
+
+	@Test
+	public void testSnapshotByIndex() throws Exception {
+		final CodeRepository cr = randomRepository(new Random(0));
+
+		// a new copy of the repository is never indexed, so it replays the history
+		final List<String> expected = new ArrayList<String>();
+		for (final String[] kinds : KINDS)
+			for (int i = 0; i < REVISIONS; i++)
+				expected.add(toString(BoaIntrinsics.getSnapshotByIndex(CodeRepository.newBuilder(cr).build(), i, kinds)));
+
+		final List<String> actual = new ArrayList<String>();
+		for (final String[] kinds : KINDS)
+			for (int i = 0; i < REVISIONS; i++)
+				actual.add(toString(BoaIntrinsics.getSnapshotByIndex(cr, i, kinds)));
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testSnapshotOfRevision() throws Exception {
+		final CodeRepository cr = randomRepository(new Random(1));
+
+		final List<String> expected = new ArrayList<String>();
+		for (int i = REVISIONS - 1; i >= 0; i--)
+			expected.add(toString(BoaIntrinsics.getSnapshot(CodeRepository.newBuilder(cr).build(), cr.getRevisions(i))));
+
+		final List<String> actual = new ArrayList<String>();
+		for (int i = REVISIONS - 1; i >= 0; i--)
+			actual.add(toString(BoaIntrinsics.getSnapshot(cr, cr.getRevisions(i))));
+
+		assertEquals(expected, actual);
+	}
+
+	// a history with short-lived branches, where each commit changes a few
+	// files out of a small pool
+	private static CodeRepository randomRepository(final Random random) {
+		final Person person = Person.newBuilder().setUsername("boa").build();
+		final CodeRepository.Builder cr = CodeRepository.newBuilder()
+				.setUrl("")
+				.setKind(RepositoryKind.GIT)
+				.setHead(-1);
+
+		for (int i = 0; i < REVISIONS; i++) {
+			final Revision.Builder r = Revision.newBuilder()
+					.setId("" + i)
+					.setCommitter(person)
+					.setCommitDate(i)
+					.setLog("");
+			if (i > 0)
+				r.addParents(Math.max(0, i - 1 - random.nextInt(5)));
+			if (i > 1 && random.nextInt(10) == 0)
+				r.addParents(random.nextInt(i - 1));
+
+			final int files = 1 + random.nextInt(4);
+			for (int j = 0; j < files; j++) {
+				final ChangeKind change = ChangeKind.valueOf(1 + random.nextInt(7));
+				final ChangedFile.Builder cf = ChangedFile.newBuilder()
+						.setChange(change)
+						.setKind(random.nextBoolean() ? FileKind.SOURCE_JAVA_JLS8 : FileKind.TEXT)
+						.setName("f" + random.nextInt(40))
+						.setKey(i * 10 + j)
+						.setAst(false);
+				if (change == ChangeKind.RENAMED || change == ChangeKind.MERGED) {
+					cf.addChanges(random.nextBoolean() ? ChangeKind.DELETED : ChangeKind.RENAMED);
+					cf.addPreviousNames(random.nextInt(4) == 0 ? "" : "f" + random.nextInt(40));
+				}
+				r.addFiles(cf);
+			}
+
+			cr.addRevisions(r);
+		}
+
+		return cr.build();
+	}
+
+	private static String toString(final ChangedFile[] files) {
+		final StringBuilder sb = new StringBuilder();
+		for (final ChangedFile cf : files)
+			sb.append(cf.getName()).append("@").append(cf.getKey()).append(" ");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.graphs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.LabelInterner;
+
+/**
+ * Test that the {@link LabelInterner} shares labels until its table is full,
+ * and hands labels back as given after that.
+ *
+ * @author agent
+ */
+public class TestLabelInterner {
+	@Test
+	public void testCapacity() {
+		// the table is shared by the whole task, so labels here are unique to this test
+		final String shared = LabelInterner.intern(new String("interner-shared"));
+		assertSame(shared, LabelInterner.intern(new String("interner-shared")));
+
+		// fill the table, however much of it is already used
+		for (int i = 0; i < LabelInterner.CAPACITY; i++)
+			LabelInterner.intern("interner-" + i);
+
+		// labels already in the table are still shared
+		assertSame(shared, LabelInterner.intern(new String("interner-shared")));
+
+		// new labels are not added
+		final String label = new String("interner-new");
+		final String copy = new String("interner-new");
+		assertSame(label, LabelInterner.intern(label));
+		assertSame(copy, LabelInterner.intern(copy));
+		assertEquals(label, copy);
+	}
+
+	@Test
+	public void testNull() {
+		assertNull(LabelInterner.intern(null));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.graphs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.CFGEdge;
+import boa.graphs.cfg.CFGNode;
+
+/**
+ * Test that the predecessors and successors a node caches are dropped
+ * whenever one of its edges changes.
+ *
+ * @author agent
+ */
+public class TestNodeAdjacency {
+	@Test
+	public void testSharedUntilChanged() {
+		final CFGNode a = node();
+		final CFGNode b = node();
+		new CFGEdge(a, b);
+
+		final List<CFGNode> successors = a.getSuccessorsList();
+		assertSame(successors, a.getSuccessorsList());
+
+		// an edge to a node that is already a successor changes nothing
+		new CFGEdge(a, b);
+		assertSame(successors, a.getSuccessorsList());
+	}
+
+	@Test
+	public void testAddEdge() {
+		final CFGNode a = node();
+		final CFGNode b = node();
+		final CFGNode c = node();
+		new CFGEdge(a, b);
+
+		assertNodes(a.getSuccessorsList(), b);
+		assertNodes(c.getPredecessorsList());
+		assertEquals(1, a.getSuccessorCount());
+
+		new CFGEdge(a, c);
+		assertNodes(a.getSuccessorsList(), b, c);
+		assertNodes(c.getPredecessorsList(), a);
+		assertEquals(2, a.getSuccessorCount());
+		assertEquals(1, c.getPredecessorCount());
+		assertSame(a, c.getPredecessor(0));
+		assertNodes(Arrays.asList(a.getSuccessor(0), a.getSuccessor(1)), b, c);
+	}
+
+	@Test
+	public void testDeleteEdge() {
+		final CFGNode a = node();
+		final CFGNode b = node();
+		final CFGNode c = node();
+		final CFGEdge ab = new CFGEdge(a, b);
+		new CFGEdge(a, c);
+
+		assertNodes(a.getSuccessorsList(), b, c);
+		assertNodes(b.getPredecessorsList(), a);
+
+		ab.delete();
+		assertNodes(a.getSuccessorsList(), c);
+		assertEquals(1, a.getSuccessorCount());
+		assertNodes(b.getPredecessorsList());
+		assertEquals(0, b.getPredecessorCount());
+	}
+
+	@Test
+	public void testDeleteNode() {
+		final CFGNode a = node();
+		final CFGNode b = node();
+		final CFGNode c = node();
+		new CFGEdge(a, b);
+		new CFGEdge(b, c);
+
+		assertNodes(a.getSuccessorsList(), b);
+		assertNodes(c.getPredecessorsList(), b);
+
+		b.delete();
+		assertNodes(a.getSuccessorsList());
+		assertNodes(c.getPredecessorsList());
+	}
+
+	@Test
+	public void testCopies() {
+		final CFGNode a = node();
+		final CFGNode b = node();
+		new CFGEdge(a, b);
+
+		// the copies can be changed without changing the node
+		final List<CFGNode> copy = a.getSuccessors();
+		assertNotSame(a.getSuccessorsList(), copy);
+		copy.clear();
+		assertNodes(a.getSuccessorsList(), b);
+		b.getPredecessors().add(b);
+		assertNodes(b.getPredecessorsList(), a);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testListReadOnly() {
+		final CFGNode a = node();
+		new CFGEdge(a, node());
+		a.getSuccessorsList().clear();
+	}
+
+	// nodes are equal by id, so each needs its own
+	private int nextId = 0;
+
+	private CFGNode node() {
+		final CFGNode node = new CFGNode();
+		node.setId(this.nextId++);
+		return node;
+	}
+
+	private static void assertNodes(final List<CFGNode> actual, final CFGNode... expected) {
+		assertEquals(expected.length, actual.size());
+		final Set<CFGNode> nodes = new HashSet<CFGNode>(actual);
+		assertEquals(new HashSet<CFGNode>(Arrays.asList(expected)), nodes);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.graphs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+import boa.types.Ast.Expression;
+import boa.types.Ast.Expression.ExpressionKind;
+import boa.types.Ast.Method;
+import boa.types.Ast.Statement;
+import boa.types.Ast.Statement.StatementKind;
+
+/**
+ * Test that each CFG numbers its nodes densely from 0, whatever other
+ * graphs are built before or alongside it.
+ *
+ * @author agent
+ */
+public class TestNodeIds {
+	private static final int THREADS = 4;
+	private static final int GRAPHS = 200;
+
+	@Test
+	public void testPerGraph() {
+		final CFG first = cfg(3);
+		assertIds(first, 3);
+
+		final CFG second = cfg(5);
+		assertIds(second, 5);
+
+		// building the second graph did not renumber the first
+		assertIds(first, 3);
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<CFG>> graphs = new ArrayList<Future<CFG>>();
+			for (int i = 0; i < GRAPHS; i++) {
+				final int calls = i % 20;
+				graphs.add(pool.submit(new Callable<CFG>() {
+					@Override
+					public CFG call() {
+						return cfg(calls);
+					}
+				}));
+			}
+
+			for (int i = 0; i < GRAPHS; i++)
+				assertIds(graphs.get(i).get(), i % 20);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// the entry and exit nodes plus one node per call
+	private static void assertIds(final CFG cfg, final int calls) {
+		assertNotNull(cfg);
+		final List<Integer> ids = new ArrayList<Integer>();
+		for (final CFGNode node : cfg.getNodes())
+			ids.add(node.getNodeId());
+		Collections.sort(ids);
+
+		final List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < calls + 2; i++)
+			expected.add(i);
+		assertEquals(expected, ids);
+	}
+
+	// a method whose body calls a method the given number of times
+	private static CFG cfg(final int calls) {
+		final Statement.Builder body = Statement.newBuilder().setKind(StatementKind.BLOCK);
+		for (int i = 0; i < calls; i++)
+			body.addStatements(Statement.newBuilder()
+					.setKind(StatementKind.EXPRESSION)
+					.addExpressions(Expression.newBuilder()
+							.setKind(ExpressionKind.METHODCALL)
+							.setMethod("m" + i)));
+		final Method method = Method.newBuilder().setName("m").addStatements(body).buildPartial();
+		return new CFG(method).get();
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.junit.Test;
+
+import boa.io.EmitValue;
+import boa.runtime.Tuple;
+
+/**
+ * Test writing and reading back each kind of {@link EmitValue} datum with
+ * each kind of metadatum.
+ */
+public class TestEmitValue {
+	// no metadata, then an empty, string, long and double metadatum
+	private static final int METADATA = 5;
+
+	@Test
+	public void testNone() throws IOException {
+		for (int m = 0; m < METADATA; m++) {
+			final EmitValue v = withMetadata(new EmitValue((String[]) null), m);
+			final EmitValue r = roundTrip(v);
+			assertNull(r.getData());
+			assertMetadata(v, r);
+		}
+	}
+
+	@Test
+	public void testString() throws IOException {
+		for (int m = 0; m < METADATA; m++) {
+			final EmitValue v = withMetadata(new EmitValue(new String[] { "a", "", "\u00e9\u4e2d" }), m);
+			final EmitValue r = roundTrip(v);
+			assertArrayEquals(new String[] { "a", "", "\u00e9\u4e2d" }, r.getData());
+			assertFalse(r.isLongData());
+			assertFalse(r.isDoubleData());
+			assertMetadata(v, r);
+		}
+	}
+
+	@Test
+	public void testLong() throws IOException {
+		for (final long l : new long[] { 0, -1, 127, 128, Long.MIN_VALUE, Long.MAX_VALUE })
+			for (int m = 0; m < METADATA; m++) {
+				final EmitValue v = withMetadata(new EmitValue(l), m);
+				final EmitValue r = roundTrip(v);
+				assertTrue(r.isLongData());
+				assertEquals(l, r.getLongData());
+				assertMetadata(v, r);
+			}
+	}
+
+	@Test
+	public void testDouble() throws IOException {
+		for (final double d : new double[] { 0.0, -0.5, 1e300, Double.NaN, Double.NEGATIVE_INFINITY })
+			for (int m = 0; m < METADATA; m++) {
+				final EmitValue v = withMetadata(new EmitValue(d), m);
+				final EmitValue r = roundTrip(v);
+				assertTrue(r.isDoubleData());
+				assertEquals(Double.doubleToLongBits(d), Double.doubleToLongBits(r.getDoubleData()));
+				assertMetadata(v, r);
+			}
+	}
+
+	@Test
+	public void testTuple() throws IOException {
+		for (int m = 0; m < METADATA; m++) {
+			final EmitValue v = withMetadata(new EmitValue(new Pair(42, "x")), m);
+			final EmitValue r = roundTrip(v);
+			assertTrue(r.getTuple() instanceof Pair);
+			assertEquals(42, ((Pair) r.getTuple()).a);
+			assertEquals("x", ((Pair) r.getTuple()).b);
+			assertMetadata(v, r);
+		}
+	}
+
+	@Test
+	public void testBytes() throws IOException {
+		for (final byte[] b : new byte[][] { {}, { 0, 1, -1, 127 } })
+			for (int m = 0; m < METADATA; m++) {
+				final EmitValue v = withMetadata(new EmitValue(b), m);
+				final EmitValue r = roundTrip(v);
+				assertTrue(r.isBytesData());
+				assertArrayEquals(b, r.getBytesData());
+				assertMetadata(v, r);
+			}
+	}
+
+	@Test
+	public void testReuse() throws IOException {
+		// a reducer reads each value into the same instance
+		final DataOutputBuffer out = new DataOutputBuffer();
+		new EmitValue(new byte[] { 1 }).write(out);
+		new EmitValue(3L, "meta").write(out);
+		new EmitValue("s").write(out);
+
+		final DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		final EmitValue r = new EmitValue();
+
+		r.readFields(in);
+		assertTrue(r.isBytesData());
+
+		r.readFields(in);
+		assertFalse(r.isBytesData());
+		assertNull(r.getBytesData());
+		assertEquals(3L, r.getLongData());
+		assertEquals("meta", r.getMetadata());
+
+		r.readFields(in);
+		assertFalse(r.isLongData());
+		assertArrayEquals(new String[] { "s" }, r.getData());
+		assertNull(r.getMetadata());
+	}
+
+	private static EmitValue withMetadata(final EmitValue v, final int kind) {
+		switch (kind) {
+		case 1:
+			v.setMetadata("");
+			break;
+		case 2:
+			v.setMetadata("meta");
+			break;
+		case 3:
+			v.setMetadata(-7L);
+			break;
+		case 4:
+			v.setMetadata(2.5);
+			break;
+		default:
+			v.setMetadata((String) null);
+			break;
+		}
+		return v;
+	}
+
+	private static void assertMetadata(final EmitValue expected, final EmitValue actual) {
+		assertEquals(expected.isLongMetadata(), actual.isLongMetadata());
+		assertEquals(expected.isDoubleMetadata(), actual.isDoubleMetadata());
+		if (expected.isLongMetadata())
+			assertEquals(expected.getLongMetadata(), actual.getLongMetadata());
+		else if (expected.isDoubleMetadata())
+			assertEquals(Double.doubleToLongBits(expected.getDoubleMetadata()), Double.doubleToLongBits(actual.getDoubleMetadata()));
+		else if ("".equals(expected.getMetadata()))
+			assertNull(actual.getMetadata());
+		else
+			assertEquals(expected.getMetadata(), actual.getMetadata());
+	}
+
+	private static EmitValue roundTrip(final EmitValue v) throws IOException {
+		final DataOutputBuffer out = new DataOutputBuffer();
+		v.write(out);
+		final DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		final EmitValue r = new EmitValue();
+		r.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+		return r;
+	}
+
+	public static class Pair implements Tuple {
+		long a;
+		String b;
+
+		public Pair() {
+		}
+
+		public Pair(final long a, final String b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		public void write(final DataOutput out) throws IOException {
+			WritableUtils.writeVLong(out, a);
+			Text.writeString(out, b);
+		}
+
+		public void readFields(final DataInput in) throws IOException {
+			a = WritableUtils.readVLong(in);
+			b = Text.readString(in);
+		}
+
+		public String[] getValues() {
+			return new String[] { String.valueOf(a), b };
+		}
+
+		public String[] getFieldNames() {
+			return new String[] { "a", "b" };
+		}
+
+		public byte[] serialize(final Object o) throws IOException {
+			final DataOutputBuffer out = new DataOutputBuffer();
+			write(out);
+			return Arrays.copyOf(out.getData(), out.getLength());
+		}
+
+		public Object getValue(final String f) {
+			return "a".equals(f) ? a : b;
+		}
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.util.Progress;
+
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+import boa.runtime.BoaCombiner;
+import boa.runtime.BoaMapper;
+import boa.runtime.BoaReducer;
+
+/**
+ * Runs a mapper, combiner and reducer over records held in memory, the way
+ * a job with a single map task and a single reducer runs them, so they can
+ * be tested without a job.  Keys and values are copied the way Hadoop
+ * serializes them.
+ */
+class LocalTask {
+	/**
+	 * A key and value written by a task.
+	 */
+	static class Emitted {
+		final EmitKey key;
+		final EmitValue value;
+
+		Emitted(final EmitKey key, final EmitValue value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + " = " + this.value;
+		}
+	}
+
+	private final Configuration conf;
+	private final Counters counters = new Counters();
+	private final StatusReporter reporter = new StatusReporter() {
+		@Override
+		public Counter getCounter(final Enum<?> name) {
+			synchronized (counters) {
+				return counters.findCounter(name);
+			}
+		}
+
+		@Override
+		public Counter getCounter(final String group, final String name) {
+			synchronized (counters) {
+				return counters.findCounter(group, name);
+			}
+		}
+
+		@Override
+		public void progress() {
+		}
+
+		@Override
+		public void setStatus(final String status) {
+		}
+	};
+
+	LocalTask(final Configuration conf) {
+		this.conf = conf;
+	}
+
+	/**
+	 * Map the records.
+	 *
+	 * @param mapper
+	 *            The {@link BoaMapper} to run
+	 *
+	 * @param records
+	 *            The values of the records, keyed by their position
+	 *
+	 * @return The keys and values written, in the order they were written
+	 */
+	@SuppressWarnings("unchecked")
+	List<Emitted> map(final BoaMapper mapper, final List<byte[]> records) throws IOException, InterruptedException {
+		mapper.setConf(this.conf);
+
+		final RecordReader<Text, BytesWritable> input = new RecordReader<Text, BytesWritable>() {
+			private final Text key = new Text();
+			private final BytesWritable value = new BytesWritable();
+			private int next = 0;
+
+			@Override
+			public void initialize(final InputSplit split, final TaskAttemptContext context) {
+			}
+
+			@Override
+			public boolean nextKeyValue() {
+				if (this.next >= records.size())
+					return false;
+				final byte[] record = records.get(this.next);
+				this.key.set(String.valueOf(this.next++));
+				this.value.set(record, 0, record.length);
+				return true;
+			}
+
+			@Override
+			public Text getCurrentKey() {
+				return this.key;
+			}
+
+			@Override
+			public BytesWritable getCurrentValue() {
+				return this.value;
+			}
+
+			@Override
+			public float getProgress() {
+				return 0;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		final List<Emitted> emitted = new ArrayList<Emitted>();
+		final RecordWriter<EmitKey, EmitValue> output = new RecordWriter<EmitKey, EmitValue>() {
+			@Override
+			public void write(final EmitKey key, final EmitValue value) {
+				emitted.add(new Emitted(WritableUtils.clone(key, conf), WritableUtils.clone(value, conf)));
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+
+		mapper.run(mapper.new Context(this.conf, new TaskAttemptID(), input, output, null, this.reporter, null));
+		return emitted;
+	}
+
+	/**
+	 * Sort and combine the values written by a mapper.
+	 *
+	 * @param combiner
+	 *            The {@link BoaCombiner} to run
+	 *
+	 * @param emitted
+	 *            The keys and values written by the mapper
+	 *
+	 * @return The keys and values written by the combiner, in order
+	 */
+	@SuppressWarnings("unchecked")
+	List<Emitted> combine(final BoaCombiner combiner, final List<Emitted> emitted) throws IOException, InterruptedException {
+		combiner.setConf(this.conf);
+
+		final List<Emitted> combined = new ArrayList<Emitted>();
+		final RecordWriter<EmitKey, EmitValue> output = new RecordWriter<EmitKey, EmitValue>() {
+			@Override
+			public void write(final EmitKey key, final EmitValue value) {
+				combined.add(new Emitted(WritableUtils.clone(key, conf), WritableUtils.clone(value, conf)));
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+
+		combiner.run(combiner.new Context(this.conf, new TaskAttemptID(), sort(emitted),
+				this.reporter.getCounter("combine", "groups"), this.reporter.getCounter("combine", "records"),
+				output, null, this.reporter, WritableComparator.get(EmitKey.class), EmitKey.class, EmitValue.class));
+		return combined;
+	}
+
+	/**
+	 * Sort and reduce the values written by a mapper or combiner.
+	 *
+	 * @param reducer
+	 *            The {@link BoaReducer} to run
+	 *
+	 * @param emitted
+	 *            The keys and values to reduce
+	 *
+	 * @return The lines of output
+	 */
+	@SuppressWarnings("unchecked")
+	List<String> reduce(final BoaReducer reducer, final List<Emitted> emitted) throws IOException, InterruptedException {
+		reducer.setConf(this.conf);
+
+		final List<String> lines = new ArrayList<String>();
+		final RecordWriter<Text, NullWritable> output = new RecordWriter<Text, NullWritable>() {
+			@Override
+			public void write(final Text key, final NullWritable value) {
+				lines.add(key.toString());
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+
+		reducer.run(reducer.new Context(this.conf, new TaskAttemptID(), sort(emitted),
+				this.reporter.getCounter("reduce", "groups"), this.reporter.getCounter("reduce", "records"),
+				output, null, this.reporter, WritableComparator.get(EmitKey.class), EmitKey.class, EmitValue.class));
+		return lines;
+	}
+
+	// the values of each key keep the order they were written in
+	private static RawKeyValueIterator sort(final List<Emitted> emitted) {
+		final TreeMap<EmitKey, List<EmitValue>> sorted = new TreeMap<EmitKey, List<EmitValue>>();
+		for (final Emitted e : emitted) {
+			List<EmitValue> values = sorted.get(e.key);
+			if (values == null) {
+				values = new ArrayList<EmitValue>();
+				sorted.put(e.key, values);
+			}
+			values.add(e.value);
+		}
+
+		final Iterator<Map.Entry<EmitKey, List<EmitValue>>> groups = sorted.entrySet().iterator();
+		return new RawKeyValueIterator() {
+			private final DataOutputBuffer buffer = new DataOutputBuffer();
+			private final DataInputBuffer key = new DataInputBuffer();
+			private final DataInputBuffer value = new DataInputBuffer();
+
+			private EmitKey group;
+			private Iterator<EmitValue> values = Collections.<EmitValue>emptyList().iterator();
+
+			@Override
+			public DataInputBuffer getKey() {
+				return this.key;
+			}
+
+			@Override
+			public DataInputBuffer getValue() {
+				return this.value;
+			}
+
+			@Override
+			public boolean next() throws IOException {
+				while (!this.values.hasNext()) {
+					if (!groups.hasNext())
+						return false;
+					final Map.Entry<EmitKey, List<EmitValue>> e = groups.next();
+					this.group = e.getKey();
+					this.values = e.getValue().iterator();
+				}
+
+				this.buffer.reset();
+				this.group.write(this.buffer);
+				final int length = this.buffer.getLength();
+				this.values.next().write(this.buffer);
+
+				this.key.reset(this.buffer.getData(), 0, length);
+				this.value.reset(this.buffer.getData(), length, this.buffer.getLength() - length);
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+
+			@Override
+			public Progress getProgress() {
+				return new Progress();
+			}
+		};
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.BottomAggregator;
+import boa.aggregators.DistinctAggregator;
+import boa.aggregators.FloatHistogramAggregator;
+import boa.aggregators.FloatMeanAggregator;
+import boa.aggregators.FloatQuantileAggregator;
+import boa.aggregators.FloatSumAggregator;
+import boa.aggregators.IntHistogramAggregator;
+import boa.aggregators.IntMeanAggregator;
+import boa.aggregators.IntQuantileAggregator;
+import boa.aggregators.IntSumAggregator;
+import boa.aggregators.MaximumAggregator;
+import boa.aggregators.MedianAggregator;
+import boa.aggregators.MinimumAggregator;
+import boa.aggregators.SetAggregator;
+import boa.aggregators.TopAggregator;
+import boa.aggregators.UniqueAggregator;
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+import boa.runtime.BoaCombiner;
+import boa.runtime.BoaMapper;
+import boa.runtime.BoaReducer;
+
+/**
+ * Test that flushing the in-mapper combiner when it is full or memory is
+ * low, followed by the combiner and reducer, gives the same output as
+ * running without it, for each family of combining aggregators.
+ */
+public class TestMapperCombining {
+	private static final String[] VARIABLES = {
+		"sum", "fsum", "mean", "fmean", "histogram", "fhistogram", "quantile", "fquantile", "median",
+		"minimum", "maximum", "top", "bottom", "set", "unique", "distinct"
+	};
+
+	// more keys than the default combine size, so it is flushed while mapping
+	private static final int INDICES = 1000;
+	// runs of records emit to the same index, and every index is seen twice
+	private static final int RUN = 10;
+	private static final int RECORDS = 2 * RUN * INDICES;
+
+	private static List<String> expected;
+
+	@BeforeClass
+	public static void runWithoutCombining() throws IOException, InterruptedException {
+		final Configuration conf = new Configuration();
+		conf.setInt(BoaMapper.COMBINE_SIZE, 0);
+
+		final LocalTask task = new LocalTask(conf);
+		final List<LocalTask.Emitted> emitted = task.map(new Mapper(), records());
+		assertEquals(RECORDS * VARIABLES.length, emitted.size());
+
+		expected = task.reduce(new Reducer(), task.combine(new Combiner(), emitted));
+		assertEquals(INDICES * VARIABLES.length, countKeys(expected));
+	}
+
+	@Test
+	public void testDefaultSize() throws IOException, InterruptedException {
+		final Configuration conf = new Configuration();
+		conf.setFloat(BoaMapper.COMBINE_MEMORY, 1);
+		assertCombined(assertSameOutput(conf));
+	}
+
+	@Test
+	public void testSizeOne() throws IOException, InterruptedException {
+		// every new key flushes the one before it
+		final Configuration conf = new Configuration();
+		conf.setInt(BoaMapper.COMBINE_SIZE, 1);
+		conf.setFloat(BoaMapper.COMBINE_MEMORY, 1);
+		assertSameOutput(conf);
+	}
+
+	@Test
+	public void testMemoryLow() throws IOException, InterruptedException {
+		// memory is always low, so the table is flushed every 1024 keys
+		final Configuration conf = new Configuration();
+		conf.setInt(BoaMapper.COMBINE_SIZE, Integer.MAX_VALUE);
+		conf.setFloat(BoaMapper.COMBINE_MEMORY, 0);
+		assertCombined(assertSameOutput(conf));
+	}
+
+	// returns the number of values the mapper wrote
+	private static int assertSameOutput(final Configuration conf) throws IOException, InterruptedException {
+		final LocalTask task = new LocalTask(conf);
+		final List<LocalTask.Emitted> emitted = task.map(new Mapper(), records());
+
+		final List<String> actual = task.reduce(new Reducer(), task.combine(new Combiner(), emitted));
+		for (final String name : VARIABLES)
+			assertEquals(name, lines(expected, name), lines(actual, name));
+		assertEquals(expected, actual);
+
+		return emitted.size();
+	}
+
+	// values were combined, and partial results were flushed before cleanup
+	private static void assertCombined(final int written) {
+		assertTrue(written < RECORDS * VARIABLES.length);
+		assertTrue(written > INDICES * VARIABLES.length);
+	}
+
+	private static List<String> lines(final List<String> output, final String name) {
+		final List<String> lines = new ArrayList<String>();
+		for (final String line : output)
+			if (line.startsWith(name + "["))
+				lines.add(line);
+		assertFalse(name, lines.isEmpty());
+		return lines;
+	}
+
+	private static int countKeys(final List<String> output) {
+		int keys = 0;
+		String last = null;
+		for (final String line : output) {
+			final String key = line.substring(0, line.indexOf(']') + 1);
+			if (!key.equals(last))
+				keys++;
+			last = key;
+		}
+		return keys;
+	}
+
+	private static List<byte[]> records() {
+		final List<byte[]> records = new ArrayList<byte[]>();
+		for (int i = 0; i < RECORDS; i++)
+			records.add(new byte[0]);
+		return records;
+	}
+
+	static Aggregator aggregator(final String name) {
+		if (name.equals("sum"))
+			return new IntSumAggregator();
+		if (name.equals("fsum"))
+			return new FloatSumAggregator();
+		if (name.equals("mean"))
+			return new IntMeanAggregator();
+		if (name.equals("fmean"))
+			return new FloatMeanAggregator();
+		if (name.equals("histogram"))
+			return new IntHistogramAggregator(0, 100, 10);
+		if (name.equals("fhistogram"))
+			return new FloatHistogramAggregator(0, 100, 10);
+		if (name.equals("quantile"))
+			return new IntQuantileAggregator(4);
+		if (name.equals("fquantile"))
+			return new FloatQuantileAggregator(4);
+		if (name.equals("median"))
+			return new MedianAggregator();
+		if (name.equals("minimum"))
+			return new MinimumAggregator(3);
+		if (name.equals("maximum"))
+			return new MaximumAggregator(3);
+		if (name.equals("top"))
+			return new TopAggregator(3);
+		if (name.equals("bottom"))
+			return new BottomAggregator(3);
+		if (name.equals("set"))
+			return new SetAggregator();
+		if (name.equals("unique"))
+			return new UniqueAggregator(100);
+		if (name.equals("distinct"))
+			return new DistinctAggregator(100);
+		return null;
+	}
+
+	// emits a value of each record to every variable, at one of the indices
+	static class Mapper extends BoaMapper {
+		@Override
+		protected void map(final Text key, final BytesWritable value, final Context context) throws IOException, InterruptedException {
+			final int record = Integer.parseInt(key.toString());
+			final Random r = new Random(record);
+			final String index = "[" + (record / RUN % INDICES) + "]";
+
+			// floats are multiples of 1/4, so their sums are exact in any order
+			emit(new EmitKey(index, "sum"), new EmitValue(r.nextInt(100)));
+			emit(new EmitKey(index, "fsum"), new EmitValue(r.nextInt(400) / 4.0));
+			emit(new EmitKey(index, "mean"), new EmitValue(r.nextInt(100)));
+			emit(new EmitKey(index, "fmean"), new EmitValue(r.nextInt(400) / 4.0));
+			emit(new EmitKey(index, "histogram"), new EmitValue(r.nextInt(100)));
+			emit(new EmitKey(index, "fhistogram"), new EmitValue(r.nextInt(400) / 4.0));
+			emit(new EmitKey(index, "quantile"), new EmitValue(r.nextInt(100)));
+			emit(new EmitKey(index, "fquantile"), new EmitValue(r.nextInt(400) / 4.0));
+			emit(new EmitKey(index, "median"), new EmitValue(r.nextInt(100)));
+			// weights are distinct, so ties do not depend on the order values arrive in
+			emit(new EmitKey(index, "minimum"), new EmitValue("m" + r.nextInt(10), record));
+			emit(new EmitKey(index, "maximum"), new EmitValue("m" + r.nextInt(10), record));
+			emit(new EmitKey(index, "top"), new EmitValue("t" + r.nextInt(5), 1 + record % 7));
+			emit(new EmitKey(index, "bottom"), new EmitValue("b" + r.nextInt(5), 1 + record % 7));
+			emit(new EmitKey(index, "set"), new EmitValue("s" + r.nextInt(10)));
+			emit(new EmitKey(index, "unique"), new EmitValue("u" + r.nextInt(50)));
+			emit(new EmitKey(index, "distinct"), new EmitValue("d" + r.nextInt(50)));
+		}
+
+		@Override
+		protected Aggregator getCombiningAggregator(final String name) {
+			return aggregator(name);
+		}
+	}
+
+	static class Combiner extends BoaCombiner {
+		Combiner() {
+			for (final String name : VARIABLES)
+				this.aggregators.put(name, aggregator(name));
+		}
+	}
+
+	static class Reducer extends BoaReducer {
+		Reducer() {
+			for (final String name : VARIABLES)
+				this.aggregators.put(name, aggregator(name));
+		}
+	}
+}
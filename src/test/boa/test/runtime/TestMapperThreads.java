@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.CollectionAggregator;
+import boa.aggregators.IntSumAggregator;
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+import boa.runtime.BoaMapper;
+import boa.runtime.BoaReducer;
+
+/**
+ * Test that mapping records on several threads writes the same output, in
+ * the same order, as mapping them on one.
+ */
+public class TestMapperThreads {
+	private static final int RECORDS = 2000;
+	private static final int INDICES = 50;
+
+	// the threads that mapped records, to check several were used
+	private static final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+	@Test
+	public void testWithoutCombining() throws IOException, InterruptedException {
+		final Configuration conf = new Configuration();
+		conf.setInt(BoaMapper.COMBINE_SIZE, 0);
+
+		final List<String> expected = toStrings(map(conf, 1));
+		assertEquals(2 * RECORDS, expected.size());
+
+		// nothing is combined, so every value is written in input order
+		assertEquals(expected, toStrings(map(conf, 4)));
+	}
+
+	@Test
+	public void testCombining() throws IOException, InterruptedException {
+		final Configuration conf = new Configuration();
+
+		final List<LocalTask.Emitted> one = map(conf, 1);
+		final List<LocalTask.Emitted> four = map(conf, 4);
+
+		// values that are not combined are still written in input order
+		final List<String> expected = toStrings(named(one, "collect"));
+		assertEquals(RECORDS, expected.size());
+		assertEquals(expected, toStrings(named(four, "collect")));
+
+		// and the partial sums add up to the same output
+		assertTrue(named(one, "sum").size() < RECORDS);
+		assertEquals(reduce(conf, one), reduce(conf, four));
+	}
+
+	private static List<LocalTask.Emitted> map(final Configuration conf, final int n) throws IOException, InterruptedException {
+		final Configuration c = new Configuration(conf);
+		c.setInt(BoaMapper.THREADS, n);
+
+		final List<byte[]> records = new ArrayList<byte[]>();
+		for (int i = 0; i < RECORDS; i++)
+			records.add(new byte[0]);
+
+		threads.clear();
+		final List<LocalTask.Emitted> emitted = new LocalTask(c).map(new Mapper(), records);
+		assertEquals(n, threads.size());
+		return emitted;
+	}
+
+	private static List<String> reduce(final Configuration conf, final List<LocalTask.Emitted> emitted) throws IOException, InterruptedException {
+		final List<String> lines = new LocalTask(conf).reduce(new Reducer(), emitted);
+		assertEquals(RECORDS + INDICES, lines.size());
+		return lines;
+	}
+
+	private static List<LocalTask.Emitted> named(final List<LocalTask.Emitted> emitted, final String name) {
+		final List<LocalTask.Emitted> named = new ArrayList<LocalTask.Emitted>();
+		for (final LocalTask.Emitted e : emitted)
+			if (e.key.getName().equals(name))
+				named.add(e);
+		return named;
+	}
+
+	private static List<String> toStrings(final List<LocalTask.Emitted> emitted) {
+		final List<String> strings = new ArrayList<String>();
+		for (final LocalTask.Emitted e : emitted)
+			strings.add(e.toString());
+		return strings;
+	}
+
+	// collects each record and sums a value of it at one of the indices
+	static class Mapper extends BoaMapper {
+		@Override
+		protected void map(final Text key, final BytesWritable value, final Context context) throws IOException, InterruptedException {
+			threads.add(Thread.currentThread());
+
+			// records take different times to map, so threads finish out of order
+			final int record = Integer.parseInt(key.toString());
+			if (record % 3 == 0)
+				Thread.sleep(1);
+
+			emit(new EmitKey("collect"), new EmitValue(record));
+			emit(new EmitKey("[" + record % INDICES + "]", "sum"), new EmitValue(record));
+		}
+
+		@Override
+		protected Aggregator getCombiningAggregator(final String name) {
+			if (name.equals("sum"))
+				return new IntSumAggregator();
+			return null;
+		}
+	}
+
+	static class Reducer extends BoaReducer {
+		Reducer() {
+			this.aggregators.put("collect", new CollectionAggregator());
+			this.aggregators.put("sum", new IntSumAggregator());
+		}
+	}
+}
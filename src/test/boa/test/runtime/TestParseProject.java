@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+
+import boa.runtime.BoaMapper;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Toplevel.Project;
+import boa.types.Toplevel.Project.ForgeKind;
+
+/**
+ * Test parsing a project keeping only some of its fields.
+ */
+public class TestParseProject {
+	private static final int UNKNOWN = 60;
+
+	@Test
+	public void testAllFields() throws IOException {
+		final Project p = project();
+		assertEquals(p, parse(p.toByteString(), -1L));
+	}
+
+	@Test
+	public void testNoFields() throws IOException {
+		assertEquals(Project.getDefaultInstance(), parse(project().toByteString(), 0));
+	}
+
+	@Test
+	public void testRequestedFields() throws IOException {
+		final long mask = bit("id") | bit("name") | bit("programming_languages") | bit("code_repositories") | (1L << UNKNOWN);
+
+		final Project expected = Project.newBuilder(project())
+				.clearProjectUrl()
+				.clearKind()
+				.clearDescription()
+				.clearProgrammingLanguagesLocs()
+				.setUnknownFields(UnknownFieldSet.newBuilder()
+						.addField(UNKNOWN, UnknownFieldSet.Field.newBuilder().addVarint(7).build())
+						.build())
+				.buildPartial();
+		assertEquals(expected, parse(project().toByteString(), mask));
+	}
+
+	@Test
+	public void testSplitRepeatedField() throws IOException {
+		// a repeated field need not be contiguous in the input
+		final ByteString bytes = Project.newBuilder().addProgrammingLanguages("java").buildPartial().toByteString()
+				.concat(Project.newBuilder().setDescription("skipped").buildPartial().toByteString())
+				.concat(Project.newBuilder().addProgrammingLanguages("c").buildPartial().toByteString());
+
+		final Project p = parse(bytes, bit("programming_languages"));
+		assertEquals(Arrays.asList("java", "c"), p.getProgrammingLanguagesList());
+		assertFalse(p.hasDescription());
+	}
+
+	private static Project parse(final ByteString bytes, final long fields) throws IOException {
+		final byte[] b = bytes.toByteArray();
+		return BoaMapper.parseProject(b, b.length, fields);
+	}
+
+	private static long bit(final String name) {
+		return 1L << Project.getDescriptor().findFieldByName(name).getNumber();
+	}
+
+	private static Project project() {
+		return Project.newBuilder()
+				.setId("1")
+				.setName("test")
+				.setProjectUrl("https://example.com/test")
+				.setKind(ForgeKind.GITHUB)
+				.setDescription("a test project")
+				.addProgrammingLanguages("java")
+				.addProgrammingLanguages("c")
+				.addProgrammingLanguagesLocs(10)
+				.addProgrammingLanguagesLocs(20)
+				.addCodeRepositories(CodeRepository.newBuilder()
+						.setUrl("https://example.com/test.git")
+						.setKind(RepositoryKind.GIT)
+						.setHead(0))
+				.setUnknownFields(UnknownFieldSet.newBuilder()
+						.addField(UNKNOWN, UnknownFieldSet.Field.newBuilder().addVarint(7).build())
+						.addField(UNKNOWN + 1, UnknownFieldSet.Field.newBuilder().addVarint(8).build())
+						.build())
+				.build();
+	}
+}
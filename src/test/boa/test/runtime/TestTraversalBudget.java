@@ -0,0 +1,214 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.Test;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGEdge;
+import boa.graphs.cfg.CFGNode;
+import boa.runtime.BoaAbstractFixP;
+import boa.runtime.BoaAbstractTraversal;
+import boa.runtime.TraversalProfile;
+import boa.types.Graph.Traversal.TraversalDirection;
+import boa.types.Graph.Traversal.TraversalKind;
+
+/**
+ * Test what worklist traversals do once they are over budget, for each
+ * {@link BoaAbstractTraversal.BudgetFallback}.
+ */
+public class TestTraversalBudget {
+	// visits to the loop header before its result stops changing
+	private static final int LIMIT = 100;
+
+	private final Counters counters = new Counters();
+
+	@Test
+	public void testTruncate() throws Exception {
+		setup(BoaAbstractTraversal.BudgetFallback.TRUNCATE, 10, 0);
+
+		final CountingTraversal t = traverse(0);
+		assertTrue(t.getResult() < LIMIT);
+		assertEquals(1, count(BoaAbstractTraversal.TRAVERSALCOUNTER.WORKLIST_BUDGET_EXHAUSTED));
+		assertEquals(0, count(BoaAbstractTraversal.TRAVERSALCOUNTER.TIME_BUDGET_EXHAUSTED));
+	}
+
+	@Test
+	public void testExact() throws Exception {
+		setup(BoaAbstractTraversal.BudgetFallback.EXACT, 10, 0);
+
+		final CountingTraversal t = traverse(0);
+		assertEquals(LIMIT, t.getResult());
+		assertEquals(0, count(BoaAbstractTraversal.TRAVERSALCOUNTER.WORKLIST_BUDGET_EXHAUSTED));
+		assertEquals(1, this.counters.findCounter(TraversalProfile.GROUP + TraversalKind.WORKLIST_REVERSEPOSTORDER.name(), TraversalProfile.OVER_BUDGET).getValue());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFail() throws Exception {
+		setup(BoaAbstractTraversal.BudgetFallback.FAIL, 10, 0);
+
+		traverse(0);
+	}
+
+	@Test
+	public void testTimeBudget() throws Exception {
+		setup(BoaAbstractTraversal.BudgetFallback.TRUNCATE, 0, 1);
+
+		final CountingTraversal t = traverse(2);
+		assertTrue(t.getResult() < LIMIT);
+		assertEquals(0, count(BoaAbstractTraversal.TRAVERSALCOUNTER.WORKLIST_BUDGET_EXHAUSTED));
+		assertEquals(1, count(BoaAbstractTraversal.TRAVERSALCOUNTER.TIME_BUDGET_EXHAUSTED));
+	}
+
+	@Test
+	public void testWorklistBudgetCutoff() throws Exception {
+		setup(BoaAbstractTraversal.BudgetFallback.TRUNCATE, 5, 0);
+		assertEquals(5, traverse(new ChainCfg(20), 0).getVisits());
+
+		// no budget
+		setup(BoaAbstractTraversal.BudgetFallback.TRUNCATE, 0, 0);
+		assertEquals(20, traverse(new ChainCfg(20), 0).getVisits());
+	}
+
+	private void setup(final BoaAbstractTraversal.BudgetFallback fallback, final int worklistBudget, final long timeBudget) throws Exception {
+		final Configuration conf = new Configuration(false);
+		conf.set(BoaAbstractTraversal.BUDGET_FALLBACK, fallback.name());
+		conf.setInt(BoaAbstractTraversal.WORKLIST_BUDGET, worklistBudget);
+		conf.setLong(BoaAbstractTraversal.TIME_BUDGET, timeBudget);
+
+		final StatusReporter reporter = new StatusReporter() {
+			@Override
+			public Counter getCounter(final Enum<?> name) {
+				return counters.findCounter(name);
+			}
+
+			@Override
+			public Counter getCounter(final String group, final String name) {
+				return counters.findCounter(group, name);
+			}
+
+			@Override
+			public void progress() {
+			}
+
+			@Override
+			public void setStatus(final String status) {
+			}
+		};
+
+		BoaAbstractTraversal.setup(new Mapper<Object, Object, Object, Object>().new Context(conf, new TaskAttemptID(), null, null, null, reporter, null));
+	}
+
+	private long count(final BoaAbstractTraversal.TRAVERSALCOUNTER counter) {
+		return this.counters.findCounter(counter).getValue();
+	}
+
+	private static CountingTraversal traverse(final long sleep) throws Exception {
+		return traverse(new LoopCfg(), sleep);
+	}
+
+	private static CountingTraversal traverse(final CFG cfg, final long sleep) throws Exception {
+		final CountingTraversal t = new CountingTraversal(sleep);
+		t.traverse(cfg, TraversalDirection.FORWARD, TraversalKind.WORKLIST_REVERSEPOSTORDER, new BoaAbstractFixP() {
+			@Override
+			public boolean invoke(final Object curr, final Object prev) {
+				return curr.equals(prev);
+			}
+		});
+		return t;
+	}
+
+	// entry -> header -> body -> header, and header -> exit
+	private static class LoopCfg extends CFG {
+		LoopCfg() {
+			final CFGNode[] nodes = new CFGNode[4];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = new CFGNode();
+				nodes[i].setId(i);
+				this.getNodes().add(nodes[i]);
+			}
+
+			new CFGEdge(nodes[0], nodes[1]);
+			new CFGEdge(nodes[1], nodes[2]);
+			new CFGEdge(nodes[2], nodes[1]);
+			new CFGEdge(nodes[1], nodes[3]);
+			this.entryNode = nodes[0];
+		}
+	}
+
+	// a straight line of nodes, each visited once
+	private static class ChainCfg extends CFG {
+		ChainCfg(final int size) {
+			final CFGNode[] nodes = new CFGNode[size];
+			for (int i = 0; i < size; i++) {
+				nodes[i] = new CFGNode();
+				nodes[i].setId(i);
+				this.getNodes().add(nodes[i]);
+				if (i > 0)
+					new CFGEdge(nodes[i - 1], nodes[i]);
+			}
+			this.entryNode = nodes[0];
+		}
+	}
+
+	// each node's result is how often it was visited, up to LIMIT
+	private static class CountingTraversal extends BoaAbstractTraversal<Integer> {
+		private final Map<Long, Integer> visits = new HashMap<Long, Integer>();
+		private final long sleep;
+		private int total = 0;
+
+		CountingTraversal(final long sleep) {
+			super(true, true);
+			this.sleep = sleep;
+		}
+
+		@Override
+		public void traverse(final CFGNode node, final boolean flag) throws Exception {
+			if (this.sleep > 0)
+				Thread.sleep(this.sleep);
+			this.total++;
+
+			final Integer v = this.visits.get(node.getId());
+			final int n = Math.min(LIMIT, v == null ? 1 : v + 1);
+			this.visits.put(node.getId(), n);
+
+			this.currentResult = n;
+			this.outputMapObj.put(node.getId(), n);
+		}
+
+		int getVisits() {
+			return this.total;
+		}
+
+		// the result of the loop header, or 0 if it was never reached
+		int getResult() {
+			final Integer n = this.outputMapObj.get(1L);
+			return n == null ? 0 : n;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.CFGNode;
+import boa.runtime.Worklist;
+
+/**
+ * Test the order a {@link Worklist} hands out nodes in.
+ */
+public class TestWorklist {
+	@Test
+	public void testRankOrder() {
+		final CFGNode a = node(5), b = node(2), c = node(40);
+
+		final Worklist w = new Worklist();
+		w.add(a);
+		w.add(b);
+		w.add(c);
+		assertSame(a, w.remove());
+		assertSame(b, w.remove());
+
+		// nodes keep the rank they were first added with
+		w.add(a);
+		assertSame(a, w.remove());
+		assertSame(c, w.remove());
+
+		w.add(c);
+		w.add(b);
+		w.add(a);
+		assertSame(a, w.remove());
+		assertSame(b, w.remove());
+		assertSame(c, w.remove());
+		assertTrue(w.isEmpty());
+	}
+
+	@Test
+	public void testDuplicates() {
+		final CFGNode a = node(0), b = node(1);
+
+		final Worklist w = new Worklist();
+		w.add(b);
+		w.add(a);
+		w.add(b);
+		w.add(a);
+		w.add(b);
+
+		assertSame(b, w.remove());
+		assertSame(a, w.remove());
+		assertTrue(w.isEmpty());
+	}
+
+	@Test
+	public void testManyNodes() {
+		final Worklist w = new Worklist();
+		for (int i = 99; i >= 0; i--)
+			w.add(node(i * 7));
+
+		for (int i = 99; i >= 0; i--) {
+			assertFalse(w.isEmpty());
+			assertEquals(i * 7, w.remove().getNodeId());
+		}
+		assertTrue(w.isEmpty());
+	}
+
+	private static CFGNode node(final int id) {
+		final CFGNode n = new CFGNode();
+		n.setId(id);
+		return n;
+	}
+}